@@ -42,6 +42,22 @@ dependencies {
 
 tasks.withType<Test> {
     useJUnitPlatform()
+    systemProperty("serverclient.logLevel", "WARN")     // 시뮬레이션이 판마다 찍는 INFO는 생략
+}
+
+// ClickAllocationTest의 스레드 할당량 측정(com.sun.management)은 테스트에서만 씀. 모듈에는 requires를 넣지 않음
+tasks.compileTestJava {
+    extensions.configure<org.javamodularity.moduleplugin.extensions.CompileTestModuleOptions> {
+        addModules = listOf("jdk.management")
+        addReads = mapOf("com.serverclient" to "jdk.management")
+    }
+}
+
+tasks.test {
+    extensions.configure<org.javamodularity.moduleplugin.extensions.TestModuleOptions> {
+        addModules = listOf("jdk.management")
+        addReads = mapOf("com.serverclient" to "jdk.management")
+    }
 }
 
 jlink {
@@ -51,3 +67,92 @@ jlink {
         name = "app"
     }
 }
+
+// 서버 전용 이미지 (JavaFX 없음, 자동 확장용으로 빨리 뜨도록)
+// src/main/java의 com/serverclient에서 클라이언트 UI만 빼고 src/server/java(서버 module-info, AppCDS 학습용 실행)와 같이 컴파일해서
+// 필요한 JDK 모듈만 jlink로 묶고, 기본 CDS + 학습 한 판으로 만든 AppCDS 아카이브를 이미지 안에 넣음
+//   ./gradlew serverImage     -> build/server-image (bin/chat-server [포트]로 실행)
+//   ./gradlew serverImageZip  -> build/distributions/server-image.zip
+val server: SourceSet by sourceSets.creating {
+    java {
+        srcDir("src/main/java")
+        // com/example(JavaFX 예제)와 클라이언트 module-info는 JavaFX가 필요하므로 com/serverclient만
+        include("com/serverclient/**", "module-info.java")
+        exclude("**/ChatClient.java", "**/GameController.java")
+        exclude { it.file == file("src/main/java/module-info.java") }
+    }
+}
+
+val serverJar by tasks.registering(Jar::class) {
+    archiveBaseName.set("server")
+    from(server.output)
+    manifest {
+        attributes("Main-Class" to "com.serverclient.ChatServer")
+    }
+}
+
+val serverJdk = javaToolchains.launcherFor {
+    languageVersion = JavaLanguageVersion.of(17)
+}
+val serverImageDir = layout.buildDirectory.dir("server-image")
+val serverJava = serverImageDir.map { it.file("bin/java").asFile.path }
+
+val serverLink by tasks.registering(Exec::class) {
+    dependsOn(serverJar)
+    inputs.files(serverJar)
+    outputs.dir(serverImageDir)
+    doFirst {
+        val jdk = serverJdk.get().metadata.installationPath
+        serverImageDir.get().asFile.deleteRecursively()
+        executable = jdk.file("bin/jlink").asFile.path
+        args("--module-path", serverJar.get().archiveFile.get().asFile.path + File.pathSeparator + jdk.dir("jmods").asFile.path,
+                "--add-modules", "com.serverclient.server",
+                "--strip-debug", "--compress", "2", "--no-header-files", "--no-man-pages",
+                "--output", serverImageDir.get().asFile.path)
+    }
+    doLast {
+        val launcher = serverImageDir.get().file("bin/chat-server").asFile
+        file("src/server/bin/chat-server").copyTo(launcher, overwrite = true)
+        launcher.setExecutable(true)
+    }
+}
+
+// 이미지 안 JDK 클래스의 기본 CDS 아카이브 (lib/server/classes.jsa)
+val serverCdsBase by tasks.registering(Exec::class) {
+    dependsOn(serverLink)
+    doFirst {
+        commandLine(serverJava.get(), "-Xshare:dump")
+    }
+}
+
+// 학습 한 판(ServerTraining)에서 쓰인 클래스를 기본 아카이브 위에 동적 아카이브로 (lib/server/app.jsa)
+val serverCds by tasks.registering(Exec::class) {
+    dependsOn(serverCdsBase)
+    val work = layout.buildDirectory.dir("tmp/serverCds")
+    doFirst {
+        val dir = work.get().asFile
+        dir.deleteRecursively()
+        dir.mkdirs()
+        commandLine(serverJava.get(),
+                "-XX:ArchiveClassesAtExit=" + serverImageDir.get().file("lib/server/app.jsa").asFile.path,
+                "-Dserverclient.checkpoint=" + File(dir, "training.ckpt").path,
+                "-Dserverclient.chatLog=" + File(dir, "chat-history.log").path,
+                "-Dserverclient.ranking=" + File(dir, "ranking").path,
+                "-m", "com.serverclient.server/com.serverclient.ServerTraining")
+    }
+}
+
+tasks.register("serverImage") {
+    group = "distribution"
+    description = "JavaFX 없는 서버 jlink 이미지 + AppCDS"
+    dependsOn(serverCds)
+}
+
+tasks.register<Zip>("serverImageZip") {
+    group = "distribution"
+    dependsOn(serverCds)
+    archiveFileName.set("server-image.zip")
+    destinationDirectory.set(layout.buildDirectory.dir("distributions"))
+    from(serverImageDir)
+    into("server")
+}
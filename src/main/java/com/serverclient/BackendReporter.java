@@ -0,0 +1,65 @@
+package com.serverclient;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+// 게임 서버(백엔드)가 라우터 제어 포트로 자기 상태를 주기적으로 보고하는 스레드
+// 줄 단위 텍스트 프로토콜:
+//   HELLO <호스트> <포트>          접속 직후 한 번 (클라이언트를 보낼 주소)
+//   LOAD <접속자수> <게임중 0/1>    REPORT_MILLIS마다
+//   SESSION <토큰> / END <토큰>    LOAD 앞에 지난 보고 뒤로 새로 생기거나 닫힌 세션 토큰 (라우터가 RESUME을 같은 백엔드로 보냄)
+// 라우터와 연결이 끊기면 잠시 후 다시 접속
+public class BackendReporter extends Thread {
+    static final long REPORT_MILLIS = 1000;
+    private static final long RETRY_MILLIS = 2000;
+
+    private final ChatServer server;
+    private final String routerHost;
+    private final int routerPort;
+    private final String advertiseHost;
+
+    public BackendReporter(ChatServer server, String routerHost, int routerPort, String advertiseHost) {
+        super("백엔드 보고");
+        this.server = server;
+        this.routerHost = routerHost;
+        this.routerPort = routerPort;
+        this.advertiseHost = advertiseHost;
+        setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+        while ( !isInterrupted() ) {
+            try ( Socket socket = new Socket(routerHost, routerPort);
+                  PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8) ) {
+                out.println("HELLO " + advertiseHost + " " + server.getPort());
+                Set<String> reported = new HashSet<>();     // 라우터에 다시 붙으면 처음부터 다 보냄
+                while ( !out.checkError() ) {
+                    Set<String> now = server.sessionTokens();
+                    for ( String t : now ) {
+                        if ( !reported.contains(t) ) out.println("SESSION " + t);
+                    }
+                    for ( String t : reported ) {
+                        if ( !now.contains(t) ) out.println("END " + t);
+                    }
+                    reported = now;
+                    out.println("LOAD " + server.playerCount() + " " + (server.isRunning() ? 1 : 0));
+                    Thread.sleep(REPORT_MILLIS);
+                }
+            } catch ( IOException e ) {
+                ServerLog.warn("라우터 연결 실패:", e.getMessage());
+            } catch ( InterruptedException e ) {
+                return;
+            }
+            try {
+                Thread.sleep(RETRY_MILLIS);
+            } catch ( InterruptedException e ) {
+                return;
+            }
+        }
+    }
+}
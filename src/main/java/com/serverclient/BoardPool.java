@@ -0,0 +1,167 @@
+package com.serverclient;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// 미리 만들어 둔 보드 (서버쪽)
+// - 새 판: 크기마다 DEPTH개씩 (시드, 첫 세대가 깔린 엔진)을 만들어 둠. startGame은 꺼내 쓰기만 하고, 꺼내면 뒤에서 다시 채움
+// - 재생성: 진행 중인 판 엔진의 다음 세대를 뒤에서 미리 깔아서 엔진에 넘겨둠 (GameEngine.forkNext/offerNext)
+//   보드가 막히면 엔진이 바꿔 끼우기만 하므로 handleClick 락 안에서 보드를 새로 까는 일이 없어짐
+// 둘 다 시드/난수 상태에서 그대로 만든 것이라 시드로 따라 만드는 클라이언트 보드와 같음
+// 준비가 안 돼 있으면 예전처럼 그 자리에서 만듦 (미스로 셈)
+// -Dserverclient.boardPool=크기별 새 판 수 (0이면 끔), -Dserverclient.boardSizes=25x25,40x30 (미리 채울 크기)
+public class BoardPool {
+    static final int DEPTH = Integer.getInteger("serverclient.boardPool", 2);
+    static final String SIZES = System.getProperty("serverclient.boardSizes", "25x25");
+
+    // 새 판 하나
+    public static class Ready {
+        public final long seed;
+        public final GameEngine engine;
+
+        Ready(long seed, GameEngine engine) {
+            this.seed = seed;
+            this.engine = engine;
+        }
+    }
+
+    private final int depth;
+    private final LongSupplier seeds;
+    private final Map<String, BlockingQueue<Ready>> fresh = new ConcurrentHashMap<>();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "보드 생성");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // 지표
+    private final LongAdder freshHits = new LongAdder(), freshMisses = new LongAdder();
+    private final LongAdder nextHits = new LongAdder(), nextMisses = new LongAdder();
+    private final LongAdder invalid = new LongAdder();             // 유효한 수가 없어서 버린 보드
+    private final LongAdder prepared = new LongAdder();
+    private final LongAdder prepareNanos = new LongAdder();        // 다음 세대 요청부터 준비 완료까지 (합)
+    private final LongAccumulator maxPrepareNanos = new LongAccumulator(Math::max, 0L);
+
+    public BoardPool() {
+        this(DEPTH, () -> ThreadLocalRandom.current().nextLong());
+    }
+
+    // depth가 0이면 미리 만들지 않고 요청한 스레드에서 바로 만듦 (시뮬레이션은 고정 시드와 함께 이렇게 씀)
+    public BoardPool(int depth, LongSupplier seeds) {
+        this.depth = depth;
+        this.seeds = seeds;
+        if ( depth <= 0 ) return;
+        for ( String size : SIZES.split(",") ) {
+            String[] wh = size.trim().split("x");
+            if ( wh.length == 2 ) {
+                refill(Integer.parseInt(wh[0].trim()), Integer.parseInt(wh[1].trim()));
+            }
+        }
+    }
+
+    // W x H 새 판. 준비된 게 없으면 여기서 만듦
+    public Ready take(int W, int H) {
+        if ( depth <= 0 ) {
+            freshMisses.increment();
+            return generate(W, H);
+        }
+        Ready r = queue(W, H).poll();
+        if ( r != null ) {
+            freshHits.increment();
+        } else {
+            freshMisses.increment();
+            r = generate(W, H);
+        }
+        refill(W, H);
+        return r;
+    }
+
+    // 진행 중인 엔진의 다음 세대를 뒤에서 준비. 엔진이 재생성하지 않는 동안(서버 락 안)에서 부를 것
+    public void prepareNext(GameEngine engine) {
+        if ( depth <= 0 ) return;
+        GameEngine next = engine.forkNext();
+        long requestedAt = System.nanoTime();
+        worker.execute(() -> {
+            next.regenerateBoard();
+            engine.offerNext(next);
+            long lag = System.nanoTime() - requestedAt;
+            prepared.increment();
+            prepareNanos.add(lag);
+            maxPrepareNanos.accumulate(lag);
+        });
+    }
+
+    // 엔진이 보드를 새로 깔았을 때 (미리 만든 걸 썼는지 기록)
+    public void regenerated(GameEngine engine) {
+        if ( engine.usedPrepared() ) {
+            nextHits.increment();
+        } else {
+            nextMisses.increment();
+        }
+    }
+
+    public long getFreshHits() {
+        return freshHits.sum();
+    }
+
+    public long getFreshMisses() {
+        return freshMisses.sum();
+    }
+
+    public long getNextHits() {
+        return nextHits.sum();
+    }
+
+    public long getNextMisses() {
+        return nextMisses.sum();
+    }
+
+    // 새 판 + 재생성 합친 적중률 (아직 요청이 없으면 1)
+    public double hitRate() {
+        long hits = freshHits.sum() + nextHits.sum();
+        long total = hits + freshMisses.sum() + nextMisses.sum();
+        return (total == 0) ? 1.0 : (double) hits / total;
+    }
+
+    public String summary() {
+        long n = prepared.sum();
+        return String.format("보드 풀: 적중률 %.2f (새 판 %d/%d, 재생성 %d/%d), 다음 세대 준비 %d건 평균 %.2f ms 최대 %.2f ms, 버린 보드 %d",
+                hitRate(), freshHits.sum(), freshHits.sum() + freshMisses.sum(),
+                nextHits.sum(), nextHits.sum() + nextMisses.sum(),
+                n, (n == 0) ? 0.0 : prepareNanos.sum() / 1e6 / n, maxPrepareNanos.get() / 1e6, invalid.sum());
+    }
+
+    private BlockingQueue<Ready> queue(int W, int H) {
+        return fresh.computeIfAbsent(W + "x" + H, k -> new ArrayBlockingQueue<>(depth));
+    }
+
+    // 빈 만큼 뒤에서 채움
+    private void refill(int W, int H) {
+        BlockingQueue<Ready> q = queue(W, H);
+        worker.execute(() -> {
+            while ( q.remainingCapacity() > 0 ) {
+                if ( !q.offer(generate(W, H)) ) break;
+            }
+        });
+    }
+
+    // 새 시드로 첫 세대를 깔고, 유효한 수가 있는지 확인 (엔진이 심어 주므로 거의 항상 통과)
+    private Ready generate(int W, int H) {
+        while ( true ) {
+            long seed = seeds.getAsLong();
+            GameEngine engine = new GameEngine(W, H, seed);
+            if ( engine.hasAnyClick() ) {
+                return new Ready(seed, engine);
+            }
+            invalid.increment();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.serverclient;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// 서버 안에서만 존재하는 봇 플레이어. 소켓이나 전용 스레드 없이
+// 서버의 예약 실행기가 주기적으로 tick()을 부르면, 공용 MoveSolver 풀에서 수를 고르고 클릭 큐에 넣는다
+public class BotPlayer {
+
+    // 봇 세기: 생각 주기, 탐색 깊이, 일부러 아무 수나 두는 확률
+    public enum Strength {
+        EASY(1500, 1, 0.30),
+        NORMAL(900, 2, 0.10),
+        HARD(500, 3, 0.0);
+
+        final long thinkMillis;
+        final int depth;
+        final double mistakeRate;
+
+        Strength(long thinkMillis, int depth, double mistakeRate) {
+            this.thinkMillis = thinkMillis;
+            this.depth = depth;
+            this.mistakeRate = mistakeRate;
+        }
+
+        public long getThinkMillis() {
+            return thinkMillis;
+        }
+    }
+
+    private final String nickname;
+    private final Strength strength;
+    private final Random rng;
+    private int clientSeq = 0;
+
+    // 이전 수를 아직 고르는 중이면 이번 주기는 건너뜀 (봇 하나당 작업이 최대 1개라 풀이 넘치지 않음)
+    private final AtomicBoolean thinking = new AtomicBoolean(false);
+
+    public BotPlayer(String nickname, Strength strength, long seed) {
+        this.nickname = nickname;
+        this.strength = strength;
+        this.rng = new Random(seed);
+    }
+
+    public String getNickname() {
+        return nickname;
+    }
+
+    public Strength getStrength() {
+        return strength;
+    }
+
+    // 예약 실행기 스레드에서 호출됨. 실제 탐색은 솔버 풀에 넘기고 바로 반환
+    public void tick(ChatServer server, MoveSolver solver) {
+        if ( !thinking.compareAndSet(false, true) ) return;
+        solver.execute(() -> {
+            try {
+                GameEngine view = server.snapshotEngine();
+                if ( view == null ) return;         // 게임 중이 아님
+                Move m = choose(view, solver);
+                if ( m != null ) {
+                    server.enqueueClick(nickname, m.x, m.y, ++clientSeq);
+                }
+            } finally {
+                thinking.set(false);
+            }
+        });
+    }
+
+    private Move choose(GameEngine view, MoveSolver solver) {
+        if ( rng.nextDouble() < strength.mistakeRate ) {
+            List<Move> moves = view.validMoves();
+            return moves.isEmpty() ? null : moves.get(rng.nextInt(moves.size()));
+        }
+        return solver.bestMove(view, strength.depth);
+    }
+}
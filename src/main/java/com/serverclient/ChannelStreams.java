@@ -0,0 +1,60 @@
+package com.serverclient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+// 블로킹 SocketChannel(유닉스 도메인 소켓)을 Object 스트림 아래에 까는 입출력 스트림
+// Channels.newInputStream/newOutputStream은 읽기와 쓰기가 채널의 같은 락(blockingLock)을 잡아서
+// 수신 스레드가 읽기에서 기다리는 동안 송신 스레드가 쓰지 못함. 채널의 read/write를 바로 불러서 서로 막지 않게 함
+final class ChannelStreams {
+    private ChannelStreams() {
+    }
+
+    static InputStream input(SocketChannel ch) {
+        return new InputStream() {
+            private final byte[] one = new byte[1];
+
+            @Override
+            public int read() throws IOException {
+                int n = read(one, 0, 1);
+                return (n < 0) ? -1 : one[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if ( len == 0 ) return 0;
+                return ch.read(ByteBuffer.wrap(b, off, len));     // 블로킹 채널이라 0은 안 돌려줌 (끝이면 -1)
+            }
+
+            @Override
+            public void close() throws IOException {
+                ch.close();
+            }
+        };
+    }
+
+    static OutputStream output(SocketChannel ch) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                ByteBuffer buf = ByteBuffer.wrap(b, off, len);
+                while ( buf.hasRemaining() ) {
+                    ch.write(buf);
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                ch.close();
+            }
+        };
+    }
+}
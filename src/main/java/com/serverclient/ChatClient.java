@@ -12,29 +12,55 @@ import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.Socket;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ChatClient extends Application implements Runnable {
     private TextArea output;
     private TextField input;
     private Button sendBtn;
+    private Button historyBtn;              // 이전 채팅 기록 불러오기
+    private long oldestChatSeq = -1L;       // 지금까지 받은 채팅 기록 중 가장 오래된 seq (-1이면 없음)
 
-    private Socket socket;
+    private volatile Socket socket;         // 수신 스레드가 접속/재접속, 종료 시 송신 스레드가 닫음
     private ObjectInputStream reader = null;
-    private ObjectOutputStream writer = null;
+    private final ClientSender sender = new ClientSender();    // 송신은 전부 이 스레드가 (UI 스레드는 소켓을 건드리지 않음)
+    private StreamCompression compression;                  // 받은 COMPRESSED 풀기용 (수신 스레드만). 재접속 시 버림
     private String nickName;
+    private String serverIP;
 
     private ListView<String> lobbyView;     // 닉네임 (ready) 형식의 목록 추가
+    private final Map<String,Boolean> lobby = new LinkedHashMap<>();   // 닉네임 -> 준비 (수신 스레드만)
+    private long lobbyVersion = -1L;                                   // 받은 로비 버전 (-1이면 전체를 기다리는 중)
     private Button readyBtn;
 
     private static final int PORT = 9500;
 
     private GameController gameController;
     private long lastServerSeq = 0L;
+    private Integer matchNo;                            // 지금(마지막으로) 본 판 번호. RESUME에 실어 보냄
     private int clientSeq = 0;
+    private volatile long clockOffset = 0L;             // 서버가 추정해 준 (내 시계 - 서버 시계), 밀리초
+
+    // 세션 재개
+    private String token;                               // 서버가 발급한 세션 토큰
+    private volatile boolean closing = false;           // 사용자가 창을 닫는 중이면 재접속하지 않음
+    private boolean catchingUp = false;                 // seq 누락 감지 후 CATCH_UP 대기 중
+    private final List<InfoDTO> pending = new ArrayList<>();   // 따라잡는 동안 도착한 방송 이벤트
+    private int lastReplyClientSeq = 0;                 // CLICK_OK/REJECT 중복 방지용
+    private static final int RECONNECT_TRIES = 5;
+
+    // 선택적 UDP 게임 채널 (-Dserverclient.udp=true). 클릭 요청/응답과 BOARD_DIFF만 UDP, 나머지는 TCP
+    private static final boolean USE_UDP = Boolean.getBoolean("serverclient.udp");
+    // 보드 재생성을 시드로 직접 (서버는 BOARD_REGEN만 보냄). false면 매번 스냅샷을 받음
+    private static final boolean SEED_BOARDS = Boolean.parseBoolean(System.getProperty("serverclient.seedBoards", "true"));
+    private DatagramClient udp;
+
+    // 서버가 PING을 2초마다 보내므로 이 시간 동안 아무것도 안 오면 끊긴 것으로 보고 재접속
+    private static final int IDLE_MILLIS = 10000;
 
     @Override
     public void start(Stage primaryStage) {
@@ -44,9 +70,10 @@ public class ChatClient extends Application implements Runnable {
 
         input = new TextField();
         sendBtn = new Button("보내기");
+        historyBtn = new Button("이전 대화");
 
         // 하단
-        HBox bottom = new HBox(10, input, sendBtn);
+        HBox bottom = new HBox(10, historyBtn, input, sendBtn);
         bottom.setPadding(new Insets(8));
         HBox.setHgrow(input, Priority.ALWAYS);
 
@@ -76,31 +103,58 @@ public class ChatClient extends Application implements Runnable {
         input.setOnAction(e -> sendMessage());
 
         readyBtn.setOnAction(e -> sendReadyToggle());   // 준비!버튼 추가
+        historyBtn.setOnAction(e -> requestOlderChat());
 
         // 종료 이벤트 처리
         primaryStage.setOnCloseRequest(e -> {
-            try {
-                InfoDTO dto = new InfoDTO();
-                dto.setNickName(nickName);
-                dto.setCommand(Info.EXIT);
-                writer.writeObject(dto);
-                writer.flush();
-                reader.close();
-                writer.close();
-                socket.close();
-            } catch (IOException io) {
-                io.printStackTrace();
-            }
+            closing = true;
+            if ( udp != null ) udp.close();
+            InfoDTO dto = new InfoDTO();
+            dto.setNickName(nickName);
+            dto.setCommand(Info.EXIT);
+            sender.send(dto);
+            // EXIT까지 보낸 뒤 송신 스레드가 소켓을 닫음. FX 스레드는 기다리지 않고 바로 돌아감
+            // 송신 스레드는 데몬이라, 데몬이 아닌 대기 스레드가 최대 1초 버텨서 프로세스가 끝나기 전에 보낼 시간을 줌
+            sender.finish(() -> {
+                try {
+                    if ( socket != null ) socket.close();
+                } catch (IOException io) {
+                    io.printStackTrace();
+                }
+            });
+            Thread linger = new Thread(() -> {
+                try {
+                    sender.join(1000);
+                } catch (InterruptedException ignored) {
+                }
+            }, "종료 대기");
+            linger.setDaemon(false);
+            linger.start();
         });
     }
 
+    // SESSION에 압축 방식이 있으면 그때부터 사용 (받는 쪽은 여기, 보내는 쪽은 송신 스레드)
+    private void startCompression(String mode) {
+        if ( compression == null && StreamCompression.MODE.equals(mode) ) {
+            compression = new StreamCompression(StreamCompression.CLIENT_MAX_INFLATED);
+        }
+        sender.startCompression(mode);
+    }
+
+    // 연결을 새로 만들 때 예전 압축 문맥을 버림 (수신 스레드만)
+    private void dropCompression() {
+        if ( compression != null ) {
+            compression.close();
+            compression = null;
+        }
+    }
+
     // 준비버튼 눌렀을 때 ready 상태 토글 메서드
     private void sendReadyToggle() {
-            InfoDTO dto = new InfoDTO();
-            dto.setCommand(Info.READY);
-            dto.setNickName(nickName);
-            writer.writeObject(dto);
-            writer.flush();
+        InfoDTO dto = new InfoDTO();
+        dto.setCommand(Info.READY);
+        dto.setNickName(nickName);
+        sender.send(dto);
     }
 
     // 클라이언트 안에서 서버와의 연결을 초기화하는 메서드
@@ -109,7 +163,7 @@ public class ChatClient extends Application implements Runnable {
         TextInputDialog ipDialog = new TextInputDialog("127.0.0.1");    // 로컬호스트로 기본 설정
         ipDialog.setHeaderText("서버 IP를 입력하세요.");
         ipDialog.setContentText("IP : ");
-        String serverIP = ipDialog.showAndWait().orElse("127.0.0.1");
+        serverIP = ipDialog.showAndWait().orElse("127.0.0.1");
 
         // 닉네임 입력
         TextInputDialog nickDialog = new TextInputDialog("guest");
@@ -117,174 +171,416 @@ public class ChatClient extends Application implements Runnable {
         nickDialog.setContentText("닉네임 :");
         nickName = nickDialog.showAndWait().orElse("guest");
 
+        // 접속은 수신 스레드에서 (UI 스레드는 소켓을 건드리지 않음)
+        Thread t = new Thread(this);
+        t.setDaemon(true); // UI 종료되면 스레드도 종료
+        t.start();
+    }
+
+    // 서버 접속 후 JOIN 전송. 수신 스레드 시작 시 한 번
+    private boolean connect() {
         try {
             socket = new Socket(serverIP, PORT);
-            writer = new ObjectOutputStream(socket.getOutputStream());
+            socket.setSoTimeout(IDLE_MILLIS);
+            sender.connect(socket.getOutputStream());
             reader = new ObjectInputStream(socket.getInputStream());
 
             // JOIN 패킷 보내기
             InfoDTO dto = new InfoDTO();
             dto.setCommand(Info.JOIN);
             dto.setNickName(nickName);
-            writer.writeObject(dto);
-            writer.flush();
-
-            // 스레드 시작
-            Thread t = new Thread(this);
-            t.setDaemon(true); // UI 종료되면 스레드도 종료
-            t.start();
-
+            dto.setCompression(StreamCompression.offer());
+            dto.setSeedBoards(SEED_BOARDS);
+            sender.send(dto);
+            sender.start();
+            return true;
         } catch (IOException e) {
             e.printStackTrace();
             Platform.exit();
+            return false;
         }
     }
 
+    // 가장 오래된 기록 이전 페이지를 서버에 요청
+    private void requestOlderChat() {
+        if ( oldestChatSeq <= 0 ) return;       // 더 이전 기록 없음
+        InfoDTO dto = new InfoDTO();
+        dto.setCommand(Info.CHAT_HISTORY);
+        dto.setBeforeSeq(oldestChatSeq);
+        sender.send(dto);
+    }
+
     // 보내기 버튼, 엔터 눌렀을 때 발동하는 메서드
     private void sendMessage() {
-        try {
-            String msg = input.getText();
-            InfoDTO dto = new InfoDTO();
-            dto.setCommand(Info.SEND);
-            dto.setMessage(msg);
-            dto.setNickName(nickName);
-            writer.writeObject(dto);
-            writer.flush();
-            input.clear();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        String msg = input.getText();
+        InfoDTO dto = new InfoDTO();
+        dto.setCommand(Info.SEND);
+        dto.setMessage(msg);
+        dto.setNickName(nickName);
+        sender.send(dto);
+        input.clear();
     }
 
-    // CLICK_REQ
+    // CLICK_REQ. 송신 스레드가 밀려 있으면 쌓인 클릭끼리 CLICK_BATCH로 묶여서 나감
     private void sendClickReq(int x, int y) {
-        try {
-            InfoDTO dto = new InfoDTO();
-            dto.setCommand(Info.CLICK_REQ);
-            dto.setX(x);
-            dto.setY(y);
-            dto.setClientSeq(++clientSeq);
-            writer.writeObject(dto);
-            writer.flush();
-        } catch (IOException e) {
-            e.printStackTrace();
+        if ( udp != null && udp.isReady() ) {
+            udp.sendClick(++clientSeq, x, y);
+            return;
         }
+        InfoDTO dto = new InfoDTO();
+        dto.setCommand(Info.CLICK_REQ);
+        dto.setX(x);
+        dto.setY(y);
+        dto.setClientSeq(++clientSeq);
+        dto.setClickAt(System.currentTimeMillis());     // 지연 보정용 (서버가 자기 시계로 변환)
+        sender.send(dto);
     }
 
     @Override
     public void run() {
-        InfoDTO dto;
-        try {
-            while ( (dto = (InfoDTO) reader.readObject()) != null ) {
-                if (dto.getCommand() == Info.EXIT) {
-                    Platform.runLater(() -> {
-                        output.appendText("서버에서 연결이 종료되었습니다.\n");
-                    });
-                    break;
-                } else if (dto.getCommand() == Info.SEND) {
-                    String msg = dto.getMessage();
-                    Platform.runLater(() -> {
-                        output.appendText(msg + "\n");
-                    });
-                } else if (dto.getCommand() == Info.LOBBY_UPDATE) {
-                    List<PlayerStatus> lobby = dto.getLobby();
-                    Platform.runLater(() -> {
-                        List<String> items = new ArrayList<>();
-                        for ( PlayerStatus p : lobby ) {
-                            String text = p.getNickname();
-                            // 만약 플레이어가 준비된 상태라면, 닉네임 옆에 준비완료! 띄우기
-                            if ( p.isReady() ) {
-                                text += "  ***준비완료!***";
-                            }
-                            items.add(text);
-                        }
-                        // 로비의 플레이어 상태가 변경될 때마다, 가져와서 리스트뷰 업데이트
-                        lobbyView.getItems().setAll(items);
-                    });
-                } else if (dto.getCommand() == Info.START_GAME) {
-                    int W = dto.getWidth();
-                    int H = dto.getHeight();
-                    int seconds = dto.getDurationSec();
-                    Platform.runLater(() -> {
-                        openGameWindow(W, H, seconds);
-                    });
-                    lastServerSeq = 0L;     // 새 게임 시작할때 서버seq 초기화
-                } else if (dto.getCommand() == Info.BOARD_SNAPSHOT) {
-                    CellColor[][] board = dto.getBoard();
-                    Platform.runLater(() -> {
-                        gameController.applySnapshot(board);
-                    });
-                } else if (dto.getCommand() == Info.BOARD_DIFF) {
-                    List<Coord> diff = dto.getDiff();
-                    Platform.runLater(() -> {
-                        gameController.applyDiff(diff);
-                    });
-                } else if (dto.getCommand() == Info.SCORE_UPDATE) {
-                    String player = dto.getPlayer();
-                    Integer score = dto.getScore();
-                    if ( player.equals(nickName) ) {
-                        Platform.runLater(() -> {
-                            gameController.updateMyScore(score);
-                        });
-                    }
-                } else if (dto.getCommand() == Info.CLICK_OK || dto.getCommand() == Info.CLICK_REJECT) {
-                    seqDetect(dto);
-                } else if (dto.getCommand() == Info.TIMER_SYNC) {
-                    Long endTime = dto.getEndsAtMillis();
-                    if ( endTime != null ) {
-                        Platform.runLater(() -> {
-                            gameController.syncEndsAt(endTime);
-                        });
+        if ( !connect() ) return;
+        while (true) {
+            try {
+                InfoDTO dto;
+                while ( (dto = (InfoDTO) reader.readObject()) != null ) {
+                    if ( dto.getCommand() == Info.COMPRESSED ) {
+                        if ( compression == null ) continue;
+                        dto = compression.unwrap(dto);
                     }
-                } else if (dto.getCommand() == Info.GAME_OVER) {
-                    List<PlayerScore> results = dto.getResults();
-                    Platform.runLater(() -> {
-                        gameController.closeWindow();
-                        StringBuilder sb = new StringBuilder();
-                        if ( results != null ) {
-                            int rank = 1;
-                            for ( PlayerScore player : results ) {
-                                sb.append(rank++)
-                                        .append(" 위  :  ")
-                                        .append(player.getNickname())
-                                        .append("  - ")
-                                        .append(player.getScore())
-                                        .append(" 점\n");
-                            }
-                        }
-                        // 알람창
-                        Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                        alert.setTitle("게임 종료");
-                        alert.setHeaderText("게임 순위");
-
-                        // TextArea로 내용 표시
-                        TextArea area = new TextArea(sb.toString());
-                        area.setEditable(false);
-                        area.setWrapText(true);
-
-                        // 내용으로 교체
-                        alert.getDialogPane().setContent(area);
-                        alert.getDialogPane().setMinHeight(Region.USE_PREF_SIZE);
-                        alert.setResizable(true);
-
-                        alert.showAndWait();
-                    });
+                    if ( !dispatch(dto) ) return;
                 }
+            } catch (IOException | ClassNotFoundException e) {
+                if ( closing ) return;
+                e.printStackTrace();
             }
-        } catch (IOException | ClassNotFoundException e) {
-            e.printStackTrace();
+            // 연결이 끊기면 세션 토큰으로 재접속해서 이어감
+            if ( closing || token == null || !reconnect() ) {
+                Platform.runLater(() -> {
+                    output.appendText("서버와 연결이 끊어졌습니다.\n");
+                });
+                return;
+            }
+        }
+    }
+
+    // 수신한 DTO 하나 처리. 연결을 끝내야 하면 false
+    private boolean dispatch(InfoDTO dto) {
+        if (dto.getCommand() == Info.EXIT) {
+            String reason = dto.getMessage();       // 입장/재개 거절이면 이유가 붙어 옴
+            Platform.runLater(() -> {
+                if ( reason != null ) {
+                    output.appendText(reason + "\n");
+                }
+                output.appendText("서버에서 연결이 종료되었습니다.\n");
+            });
+            return false;
+        } else if (dto.getCommand() == Info.PING) {    // 받은 pingAt, serverTime 그대로 돌려주고 내 수신/송신 시각을 붙임
+            long recvAt = System.currentTimeMillis();
+            if ( dto.getClockOffset() != null ) {
+                long offset = dto.getClockOffset();
+                clockOffset = offset;
+                if ( gameController != null ) {
+                    Platform.runLater(() -> gameController.setClockOffset(offset));
+                }
+            }
+            InfoDTO pong = new InfoDTO();
+            pong.setCommand(Info.PONG);
+            pong.setPingAt(dto.getPingAt());
+            pong.setServerTime(dto.getServerTime());
+            pong.setClientRecvAt(recvAt);
+            pong.setClientSendAt(System.currentTimeMillis());      // 송신 스레드가 실제로 쓸 때 다시 찍음
+            sender.send(pong);
+        } else if (dto.getCommand() == Info.SESSION) {
+            token = dto.getToken();
+            startCompression(dto.getCompression());
+            if ( USE_UDP ) {
+                startUdp();
+            }
+        } else if (dto.getCommand() == Info.CATCH_UP) {
+            applyCatchUp(dto);
+        } else if (dto.getCommand() == Info.SEND) {
+            String msg = dto.getMessage();
+            Platform.runLater(() -> {
+                output.appendText(msg + "\n");
+            });
+        } else if (dto.getCommand() == Info.CHAT_HISTORY) {    // 받은 기록을 채팅창 맨 위에 붙임
+            List<ChatLine> lines = dto.getChatLines();
+            if ( lines == null || lines.isEmpty() ) return true;
+            oldestChatSeq = lines.get(0).getSeq();
+            StringBuilder sb = new StringBuilder();
+            for ( ChatLine line : lines ) {
+                sb.append(line.getText()).append("\n");
+            }
+            Platform.runLater(() -> {
+                output.insertText(0, sb.toString());
+            });
+        } else if (dto.getCommand() == Info.LOBBY_UPDATE) {    // 로비 전체
+            lobby.clear();
+            for ( PlayerStatus p : dto.getLobby() ) {
+                lobby.put(p.getNickname(), p.isReady());
+            }
+            lobbyVersion = (dto.getLobbyVersion() != null) ? dto.getLobbyVersion() : -1L;
+            showLobby();
+        } else if (dto.getCommand() == Info.LOBBY_DELTA) {     // 직전 버전에서 바뀐 것만
+            long version = dto.getLobbyVersion();
+            if ( lobbyVersion < 0 || version <= lobbyVersion ) return true;    // 전체를 아직 못 받았거나 지난 델타
+            if ( version != lobbyVersion + 1 ) {                // 중간 델타 누락 -> 전체 다시 요청
+                lobbyVersion = -1L;
+                requestLobby();
+                return true;
+            }
+            for ( String nick : dto.getLobbyLeft() ) {
+                lobby.remove(nick);
+            }
+            for ( PlayerStatus p : dto.getLobby() ) {
+                lobby.put(p.getNickname(), p.isReady());
+            }
+            lobbyVersion = version;
+            showLobby();
+        } else if (dto.getCommand() == Info.START_GAME) {
+            int W = dto.getWidth();
+            int H = dto.getHeight();
+            int seconds = dto.getDurationSec();
+            long seed = dto.getSeed();
+            Platform.runLater(() -> {
+                openGameWindow(W, H, seconds, seed);
+            });
+            lastServerSeq = 0L;     // 새 게임 시작할때 서버seq 초기화
+            matchNo = dto.getMatchNo();
+            if ( udp != null ) udp.reset();
+        } else if (dto.getCommand() == Info.BOARD_SNAPSHOT) {
+            if (!acceptEvent(dto)) return true;
+            CellColor[][] board = dto.getBoard();
+            // UDP로 스냅샷보다 새 DIFF가 먼저 와 있었으면 스냅샷 위에 다시 적용
+            List<List<Coord>> newer = (udp != null && dto.getServerSeq() != null)
+                    ? udp.onSnapshot(dto.getServerSeq()) : List.of();
+            Integer generation = dto.getGeneration();
+            Platform.runLater(() -> {
+                gameController.applySnapshot(board, generation);
+                for ( List<Coord> d : newer ) {
+                    gameController.applyDiff(d);
+                }
+            });
+        } else if (dto.getCommand() == Info.BOARD_REGEN) {    // 스냅샷 대신 같은 시드로 직접 재생성
+            if (!acceptEvent(dto)) return true;
+            int generation = dto.getGeneration();
+            long hash = dto.getBoardHash();
+            List<List<Coord>> newer = (udp != null && dto.getServerSeq() != null)
+                    ? udp.onSnapshot(dto.getServerSeq()) : List.of();
+            Platform.runLater(() -> {
+                gameController.applyRegen(generation, hash);
+                for ( List<Coord> d : newer ) {
+                    gameController.applyDiff(d);
+                }
+            });
+        } else if (dto.getCommand() == Info.BOARD_DIFF) {
+            if (!acceptEvent(dto)) return true;
+            List<Coord> diff = dto.getDiff();
+            Platform.runLater(() -> {
+                gameController.applyDiff(diff);
+            });
+        } else if (dto.getCommand() == Info.SCORE_UPDATE) {
+            if (!acceptEvent(dto)) return true;
+            String player = dto.getPlayer();
+            Integer score = dto.getScore();
+            if ( player.equals(nickName) ) {
+                Platform.runLater(() -> {
+                    gameController.updateMyScore(score);
+                });
+            }
+        } else if (dto.getCommand() == Info.CLICK_OK || dto.getCommand() == Info.CLICK_REJECT) {
+            replyDetect(dto);
+        } else if (dto.getCommand() == Info.TIMER_SYNC) {
+            Long endTime = dto.getEndsAtMillis();
+            if ( endTime != null ) {
+                Platform.runLater(() -> {
+                    gameController.syncEndsAt(endTime);
+                });
+            }
+        } else if (dto.getCommand() == Info.GAME_OVER) {
+            if (!acceptEvent(dto)) return true;
+            List<PlayerScore> results = dto.getResults();
+            Platform.runLater(() -> {
+                gameController.closeWindow();
+                StringBuilder sb = new StringBuilder();
+                if ( results != null ) {
+                    int rank = 1;
+                    for ( PlayerScore player : results ) {
+                        sb.append(rank++)
+                                .append(" 위  :  ")
+                                .append(player.getNickname())
+                                .append("  - ")
+                                .append(player.getScore())
+                                .append(" 점\n");
+                    }
+                }
+                // 알람창
+                Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                alert.setTitle("게임 종료");
+                alert.setHeaderText("게임 순위");
+
+                // TextArea로 내용 표시
+                TextArea area = new TextArea(sb.toString());
+                area.setEditable(false);
+                area.setWrapText(true);
+
+                // 내용으로 교체
+                alert.getDialogPane().setContent(area);
+                alert.getDialogPane().setMinHeight(Region.USE_PREF_SIZE);
+                alert.setResizable(true);
+
+                alert.showAndWait();
+            });
         }
+        return true;
     }
 
-    private boolean seqDetect(InfoDTO dto) {
+    // 방송 이벤트 순번 검사. 지금 적용해도 되면 true
+    // 같은 serverSeq의 이벤트(BOARD_DIFF + SCORE_UPDATE)는 함께 통과하고, 중간 seq가 빠지면 재개 요청 후 보류
+    private boolean acceptEvent(InfoDTO dto) {
         Long seq = dto.getServerSeq();
         if (seq == null) return true;
-        if (seq <= lastServerSeq) return false;
+        if (catchingUp) {
+            pending.add(dto);
+            return false;
+        }
+        if (seq < lastServerSeq) return false;      // 이미 지난 이벤트
+        if (seq > lastServerSeq + 1) {              // 누락 감지
+            catchingUp = true;
+            pending.add(dto);
+            requestResume();
+            return false;
+        }
         lastServerSeq = seq;
         return true;
     }
 
-    private void openGameWindow(int W, int H , int seconds) {
+    // 서버가 보낸 빠진 이벤트(또는 스냅샷)를 순서대로 적용하고, 기다리던 이벤트를 이어서 처리
+    private void applyCatchUp(InfoDTO dto) {
+        catchingUp = false;
+        Integer match = dto.getMatchNo();
+        if ( match != null && !match.equals(matchNo) ) {    // 다른 판으로 따라잡음. 예전 판 seq 기준으로 이벤트를 건너뛰지 않게
+            matchNo = match;
+            lastServerSeq = 0L;
+        }
+        Long seed = dto.getSeed();
+        if ( SEED_BOARDS && seed != null && gameController != null ) {
+            Platform.runLater(() -> gameController.ensureLocalBoard(seed));     // 뒤따르는 BOARD_REGEN을 내 엔진으로 따라가도록
+        }
+        if (dto.getEvents() != null) {
+            for (InfoDTO e : dto.getEvents()) {
+                Long seq = e.getServerSeq();
+                if (seq != null) {
+                    if (seq < lastServerSeq) continue;
+                    lastServerSeq = seq;        // 스냅샷은 seq를 건너뛰므로 미리 맞춰둠
+                }
+                dispatch(e);
+            }
+        }
+        List<InfoDTO> held = new ArrayList<>(pending);
+        pending.clear();
+        for (InfoDTO e : held) {
+            dispatch(e);
+        }
+    }
+
+    // UDP 채널 시작 (이미 있으면 새 토큰으로 다시 HELLO). 실패하면 TCP만 사용
+    private void startUdp() {
+        try {
+            if ( udp == null ) {
+                udp = new DatagramClient(serverIP, PORT,
+                        this::replyDetect,
+                        diff -> Platform.runLater(() -> gameController.applyDiff(diff)),
+                        () -> requestResume(-1L));     // 빠진 DIFF를 끝내 못 받으면 스냅샷으로 재동기화
+                udp.start();
+            }
+            udp.bind(token);
+        } catch (IOException e) {
+            System.out.println("UDP 채널 사용 불가, TCP만 사용: " + e.getMessage());
+        }
+    }
+
+    // 현재 연결로 세션 재개(따라잡기) 요청
+    private void requestResume() {
+        requestResume(lastServerSeq);
+    }
+
+    // fromSeq 이후를 요청. 음수면 스냅샷으로 받음
+    private void requestResume(long fromSeq) {
+        InfoDTO dto = new InfoDTO();
+        dto.setCommand(Info.RESUME);
+        dto.setNickName(nickName);
+        dto.setToken(token);
+        dto.setServerSeq(fromSeq);
+        dto.setMatchNo(matchNo);
+        dto.setCompression(StreamCompression.offer());
+        dto.setSeedBoards(SEED_BOARDS);
+        sender.send(dto);
+    }
+
+    // 새 소켓으로 다시 붙어서 RESUME 전송. 몇 번 시도 후 실패하면 false
+    private boolean reconnect() {
+        for (int i = 1; i <= RECONNECT_TRIES && !closing; i++) {
+            try {
+                Thread.sleep(500L * i);
+                try { socket.close(); } catch (IOException ignored) { }     // 끊긴 예전 소켓 정리
+                dropCompression();
+                socket = new Socket(serverIP, PORT);
+                socket.setSoTimeout(IDLE_MILLIS);
+                sender.connect(socket.getOutputStream());      // 예전 연결로 보내려던 것은 버리고 RESUME부터
+                reader = new ObjectInputStream(socket.getInputStream());
+                catchingUp = true;          // CATCH_UP 올 때까지 방송 이벤트 보류
+                requestResume();
+                Platform.runLater(() -> {
+                    output.appendText("서버에 다시 연결되었습니다.\n");
+                });
+                return true;
+            } catch (IOException e) {
+                System.out.println("재접속 실패 (" + i + "/" + RECONNECT_TRIES + "): " + e.getMessage());
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // 로비 상태를 리스트뷰에 표시
+    private void showLobby() {
+        List<String> items = new ArrayList<>();
+        for ( Map.Entry<String,Boolean> p : lobby.entrySet() ) {
+            String text = p.getKey();
+            // 만약 플레이어가 준비된 상태라면, 닉네임 옆에 준비완료! 띄우기
+            if ( p.getValue() ) {
+                text += "  ***준비완료!***";
+            }
+            items.add(text);
+        }
+        // 로비의 플레이어 상태가 변경될 때마다, 가져와서 리스트뷰 업데이트
+        Platform.runLater(() -> {
+            lobbyView.getItems().setAll(items);
+        });
+    }
+
+    // 로비 전체를 다시 요청 (델타 버전이 건너뛰었을 때)
+    private void requestLobby() {
+        InfoDTO dto = new InfoDTO();
+        dto.setCommand(Info.LOBBY_UPDATE);
+        sender.send(dto);
+    }
+
+    // CLICK_OK/REJECT 중복, 역순 응답 걸러내기 (클릭 요청 순번 기준)
+    private synchronized boolean replyDetect(InfoDTO dto) {
+        Integer cs = dto.getClientSeq();
+        if (cs == null) return true;
+        if (cs <= lastReplyClientSeq) return false;
+        lastReplyClientSeq = cs;
+        return true;
+    }
+
+    private void openGameWindow(int W, int H , int seconds, long seed) {
+        if ( gameController != null ) {
+            gameController.closeWindow();       // 예전 판 GAME_OVER를 못 받고 다음 판으로 따라잡은 경우
+        }
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/serverclient/GameView.fxml"));
             Parent root = loader.load();
@@ -296,7 +592,12 @@ public class ChatClient extends Application implements Runnable {
             gameStage.setScene(new Scene(root, 900, 680));
 
             gameController.setClickSender(this::sendClickReq);
+            gameController.setClockOffset(clockOffset);
             gameController.init(W, H, seconds, gameStage);
+            gameController.setResync(() -> requestResume(-1L));     // 요약값이 다르면 스냅샷으로 재동기화
+            if ( SEED_BOARDS ) {
+                gameController.startLocalBoard(seed);
+            }
 
             gameStage.show();
 
@@ -1,27 +1,103 @@
 package com.serverclient;
 
+import java.io.Closeable;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 public class ChatHandler extends Thread {
 
     private ObjectInputStream reader;       // 클라이언트에서 객체(InfoDTO) 읽는 스트림
     private ObjectOutputStream writer;      // 클라이언트로 객체(InfoDTO) 보내는 스트림
-    private Socket socket;
+    private CountingOutputStream out;       // writer 아래에서 실제로 나간 바이트 수를 셈 (JFR)
+    private InputStream in;                 // reader 아래 소켓 스트림. 스트림 헤더 교환은 핸들러 스레드에서 (openStreams)
+    private Thread writerThread;            // 송신 스레드 (writeLoop)
+    private volatile StreamCompression compression;     // JOIN/RESUME에서 협상되면 생김
+    private boolean compressOut = false;                // 송신 스레드 전용. 방식을 알린 SESSION을 쓴 뒤부터 압축
+
+    // 시드 모드: 클라이언트가 시드로 보드를 직접 만들면 재생성 때 스냅샷 대신 BOARD_REGEN(세대 + 요약값)만 보냄
+    // -Dserverclient.seedBoards=false면 모든 연결에 스냅샷
+    private static final boolean SEED_BOARDS = Boolean.parseBoolean(System.getProperty("serverclient.seedBoards", "true"));
+    private volatile boolean seedBoards = false;
+    private volatile Long knownSeed;        // 이 연결에 보낸 판 시드 (START_GAME/CATCH_UP). 진행 중인 판의 것이어야 BOARD_REGEN을 그대로 보냄
+    private Closeable socket;               // TCP 소켓 또는 유닉스 도메인 소켓 채널 (메모리 연결이면 null)
     private List<ChatHandler> list;
     private ChatServer server;              // 서버 참조용(로비 방송/시작검사용)
 
     private String nickname;
 
     private int lastClientSeq = 0;          // 플레이어별 클릭 요청 클라이언트 시퀀스
+    private long seenClientSeqs = 0L;       // lastClientSeq 아래 64개 중 이미 받은 것 (i번 비트 = lastClientSeq - i)
+
+    private String token;                   // 세션 재개용 토큰 (JOIN 때 발급)
+
+    // 연결 상태 감시 (ChatServer의 하트비트/정리 작업이 확인)
+    private volatile long lastHeardMillis;                                  // 마지막으로 뭐든 받은 시각 (서버 시계)
+    private volatile long writingSinceMillis = 0L;                          // 쓰기 중이면 시작 시각, 아니면 0
+    private volatile long rttMicros = -1L;                                  // 최근 PING/PONG 왕복 시간 (지수 평균)
+
+    // 시계 동기화 (NTP 방식). PONG마다 (왕복, 시계 차이) 표본을 모으고
+    // 최근 CLOCK_SAMPLES개 중 왕복이 가장 짧았던 표본의 차이를 씀 (큐잉 지연이 적었던 표본일수록 정확)
+    private static final int CLOCK_SAMPLES = 8;
+    private final long[] sampleRtt = new long[CLOCK_SAMPLES];
+    private final long[] sampleOffset = new long[CLOCK_SAMPLES];
+    private int sampleCount = 0;
+    private volatile long clockOffsetMillis = 0L;                           // 클라이언트 시계 - 서버 시계
+    private volatile boolean clockSynced = false;
+
+    // 송신 레인. 전용 송신 스레드가 게임 레인을 항상 먼저 비우고, 채팅 레인은 게임 레인이 비었을 때만 묶어서 보냄
+    // 채팅이 몰려도 BOARD_DIFF/CLICK_OK가 채팅 뒤에 줄 서지 않게 하기 위함
+    private static final int CHAT_LANE_CAPACITY = 256;      // 넘치면 가장 오래된 채팅부터 버림
+    private static final int CHAT_BATCH = 16;               // 한 번에 쓰고 flush 하는 채팅 수
+    private final BlockingQueue<InfoDTO> gameLane = new LinkedBlockingQueue<>();
+    private final BlockingQueue<InfoDTO> chatLane = new ArrayBlockingQueue<>(CHAT_LANE_CAPACITY);
+    private final Object laneSignal = new Object();
+    private volatile boolean closed = false;
+    private volatile boolean finishing = false;             // 남은 송신을 다 보내고 닫기
+
+    // UDP 게임 채널 (HELLO로 연결되면 클릭 응답과 BOARD_DIFF를 UDP로 보냄)
+    private volatile DatagramServer udp;
+    private volatile SocketAddress udpAddress;
+    private long lastUdpDiffSeq = -1L;                      // 이 클라이언트에게 마지막으로 보낸 DIFF seq
+    private final ByteBuffer udpScratch = ByteBuffer.allocateDirect(DatagramCodec.MAX_PACKET);    // DIFF 인코딩용 (보내면 바로 재사용)
+    private static final int UDP_REPLY_CACHE = 32;
+    // 재전송된 CLICK_REQ에 같은 응답을 다시 보내기 위한 최근 응답 (clientSeq -> 패킷)
+    private final Map<Integer, ByteBuffer> udpReplies = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, ByteBuffer> e) {
+            return size() > UDP_REPLY_CACHE;
+        }
+    };
+
+    // 채팅 수신 속도 제한 (토큰 버킷): 초당 CHAT_RATE개, 최대 CHAT_BURST개까지 몰아서 허용
+    private static final double CHAT_RATE = 5.0;
+    private static final double CHAT_BURST = 10.0;
+    private double chatTokens = CHAT_BURST;
+    private long chatRefillMillis;
 
     public String getNickname() {
         return nickname;
     }
 
+    public String getToken() {
+        return token;
+    }
+
     private boolean ready = false;
 
     public boolean isReady() {
@@ -31,85 +107,553 @@ public class ChatHandler extends Thread {
         this.ready = ready;
     }
 
-    public ChatHandler(Socket socket, ChatServer server, List<ChatHandler> list) {
+    public ChatHandler(Socket socket, ChatServer server, List<ChatHandler> list) throws IOException {
         this.socket = socket;
         this.server = server;
         this.list = list;
-        writer = new ObjectOutputStream(socket.getOutputStream());
-        reader = new ObjectInputStream(socket.getInputStream());
+        this.lastHeardMillis = this.chatRefillMillis = server.millis();
+        socket.setSoTimeout((int) ChatServer.IDLE_MILLIS);       // 이 시간 동안 아무것도 안 오면 읽기 실패 (스트림 헤더 포함)
+        out = new CountingOutputStream(socket.getOutputStream());
+        in = socket.getInputStream();
+    }
+
+    // 유닉스 도메인 소켓 연결 (같은 호스트의 봇/보조 프로세스). 프로토콜은 TCP와 같음
+    // 채널에는 읽기 시간 제한이 없어서 응답 없는 연결은 하트비트 정리(evict -> close)가 채널을 닫아 읽기를 끝냄
+    // 스트림 헤더 교환도 TCP처럼 핸들러 스레드에서 (등록된 뒤라 헤더를 안 보내는 연결도 정리 대상)
+    public ChatHandler(SocketChannel channel, ChatServer server, List<ChatHandler> list) {
+        this.socket = channel;
+        this.server = server;
+        this.list = list;
+        this.lastHeardMillis = this.chatRefillMillis = server.millis();
+        out = new CountingOutputStream(ChannelStreams.output(channel));
+        in = ChannelStreams.input(channel);
+    }
+
+    // 소켓 없는 메모리 연결 (ChatServer.connectLocal, 시뮬레이션용)
+    // 스레드를 띄우지 않음. 받을 메시지는 deliver()로 넣고, 보낼 메시지는 drainOutbound()로 꺼냄
+    ChatHandler(ChatServer server, List<ChatHandler> list, String name) {
+        super(name);
+        this.server = server;
+        this.list = list;
+        this.lastHeardMillis = this.chatRefillMillis = server.millis();
     }
 
-    // 서버로 송신용
+    // 메모리 연결로 메시지 하나 받음. 연결이 끝났으면(EXIT) false
+    boolean deliver(InfoDTO dto) {
+        if ( closed || finishing ) return false;
+        lastHeardMillis = server.millis();
+        try {
+            return receive(dto);
+        } catch (RuntimeException e) {
+            log(ServerLog.Level.ERROR, "메시지 처리 실패", null, e);
+            return true;
+        }
+    }
+
+    // 메모리 연결에서 보낼 메시지를 송신 스레드와 같은 순서(게임 레인 먼저)로 꺼냄
+    void drainOutbound(List<InfoDTO> to) {
+        gameLane.drainTo(to);
+        chatLane.drainTo(to);
+    }
+
+    // EXIT 처리나 정리로 끝난 연결인지
+    boolean isFinished() {
+        return closed || finishing;
+    }
+
+    public long getLastHeardMillis() {
+        return lastHeardMillis;
+    }
+
+    // 지금 쓰기가 막혀 있는 시간 (쓰는 중이 아니면 0)
+    public long writeStalledMillis(long now) {
+        long since = writingSinceMillis;
+        return (since == 0L) ? 0L : now - since;
+    }
+
+    // 최근 왕복 시간(마이크로초). 아직 측정 전이면 -1
+    public long getRttMicros() {
+        return rttMicros;
+    }
+
+    // 추정한 시계 차이(클라이언트 - 서버, 밀리초). 아직 측정 전이면 0
+    public long getClockOffsetMillis() {
+        return clockOffsetMillis;
+    }
+
+    public boolean isClockSynced() {
+        return clockSynced;
+    }
+
+    // 하트비트 PING 전송. 지금까지 추정한 시계 차이를 실어서 클라이언트 타이머도 서버 시계에 맞추게 함
+    public void ping() {
+        InfoDTO dto = new InfoDTO();
+        dto.setCommand(Info.PING);
+        dto.setPingAt(System.nanoTime());
+        dto.setServerTime(server.millis());
+        if ( clockSynced ) {
+            dto.setClockOffset(clockOffsetMillis);
+        }
+        send(dto);
+    }
+
+    // PONG 처리: 왕복 시간 지수 평균 + 시계 차이 표본 추가
+    // t0 서버 송신, t1 클라 수신, t2 클라 송신, t3 서버 수신
+    // 왕복 = (t3 - t0) - (t2 - t1), 차이 = ((t1 - t0) + (t2 - t3)) / 2
+    private void onPong(InfoDTO dto) {
+        if ( dto.getPingAt() != null ) {
+            long sample = (System.nanoTime() - dto.getPingAt()) / 1000L;
+            rttMicros = (rttMicros < 0) ? sample : (rttMicros * 7 + sample) / 8;
+        }
+        Long t0 = dto.getServerTime(), t1 = dto.getClientRecvAt(), t2 = dto.getClientSendAt();
+        if ( t0 == null || t1 == null || t2 == null ) return;      // 예전 클라이언트
+        long t3 = server.millis();
+        long rtt = Math.max(0L, (t3 - t0) - (t2 - t1));
+        long offset = ((t1 - t0) + (t2 - t3)) / 2;
+
+        int i = sampleCount++ % CLOCK_SAMPLES;
+        sampleRtt[i] = rtt;
+        sampleOffset[i] = offset;
+        int best = 0;
+        for ( int k = 1; k < Math.min(sampleCount, CLOCK_SAMPLES); k++ ) {
+            if ( sampleRtt[k] < sampleRtt[best] ) best = k;
+        }
+        clockOffsetMillis = sampleOffset[best];
+        clockSynced = true;
+    }
+
+    // 클라이언트가 보낸 클릭 시각을 서버 시계로 변환
+    // 동기화 전이거나 시각이 없으면 지금. 조작 방지를 위해 [지금 - LAG_COMP_MILLIS, 지금] 범위로 자름
+    private long toServerClock(Long clickAt) {
+        long now = server.millis();
+        if ( clickAt == null || !clockSynced ) return now;
+        long t = clickAt - clockOffsetMillis;
+        return Math.max(now - ChatServer.LAG_COMP_MILLIS, Math.min(now, t));
+    }
+
+    // 서버로 송신용. 레인에 넣고 바로 반환 (실제 쓰기는 송신 스레드)
+    // 채팅(SEND, CHAT_HISTORY)은 채팅 레인, 나머지는 게임 레인
+    // 넘긴 dto는 송신 스레드가 직렬화할 때까지 바꾸면 안 됨
     public void send(InfoDTO dto) {
-        writer.writeObject(dto);
-        writer.flush();
+        if ( closed ) return;
+        dto = forClient(dto);
+        if ( udpAddress != null && DatagramCodec.carries(dto.getCommand()) ) {
+            sendUdp(dto);
+            return;
+        }
+        if ( dto.getCommand() == Info.START_GAME ) {
+            synchronized (udpReplies) {
+                lastUdpDiffSeq = -1L;       // 새 판은 DIFF 순서를 처음부터
+            }
+        }
+        if ( dto.getCommand() == Info.SEND || dto.getCommand() == Info.CHAT_HISTORY ) {
+            while ( !chatLane.offer(dto) ) {
+                chatLane.poll();        // 가득 차면 가장 오래된 채팅을 버림
+            }
+        } else {
+            gameLane.add(dto);
+        }
+        synchronized (laneSignal) {
+            laneSignal.notify();
+        }
+    }
+
+    // 시드 모드가 아니거나 진행 중인 판의 시드를 아직 못 받은 연결(판 도중 입장/재개)에는
+    // BOARD_REGEN 대신 붙어 있는 스냅샷을 보냄 (따라잡기 묶음 안의 것도)
+    private InfoDTO forClient(InfoDTO dto) {
+        if ( (dto.getCommand() == Info.START_GAME || dto.getCommand() == Info.CATCH_UP) && dto.getSeed() != null ) {
+            knownSeed = dto.getSeed();
+        }
+        Long live = server.matchSeed();
+        if ( seedBoards && live != null && live.equals(knownSeed) ) return dto;
+        if ( dto.getCommand() == Info.BOARD_REGEN ) return dto.getSnapshot();
+        if ( dto.getCommand() != Info.CATCH_UP || dto.getEvents() == null ) return dto;
+        boolean hasRegen = false;
+        for ( InfoDTO e : dto.getEvents() ) {
+            hasRegen |= e.getCommand() == Info.BOARD_REGEN;
+        }
+        if ( !hasRegen ) return dto;
+        List<InfoDTO> events = new ArrayList<>(dto.getEvents().size());
+        for ( InfoDTO e : dto.getEvents() ) {
+            events.add(e.getCommand() == Info.BOARD_REGEN ? e.getSnapshot() : e);
+        }
+        InfoDTO copy = new InfoDTO();
+        copy.setCommand(Info.CATCH_UP);
+        copy.setSeed(dto.getSeed());
+        copy.setServerSeq(dto.getServerSeq());
+        copy.setEvents(events);
+        return copy;
+    }
+
+    // UDP 주소 연결 (DatagramServer가 HELLO를 받으면 호출)
+    void bindUdp(DatagramServer udp, SocketAddress address) {
+        this.udp = udp;
+        this.udpAddress = address;
+    }
+
+    // 클릭 응답/DIFF를 UDP로. DIFF에는 직전에 보낸 DIFF의 seq를 붙여 클라이언트가 누락을 알 수 있게 함
+    // DIFF는 재사용 버퍼에 바로 인코딩해서 보냄 (채널이 보내면서 복사하므로). 응답은 재전송용으로 남겨야 해서 새로 만듦
+    private void sendUdp(InfoDTO dto) {
+        synchronized (udpReplies) {
+            if ( dto.getCommand() == Info.BOARD_DIFF ) {
+                udp.send(udpAddress, DatagramCodec.encode(udpScratch, dto, lastUdpDiffSeq));
+                lastUdpDiffSeq = dto.getServerSeq();
+                return;
+            }
+        }
+        ByteBuffer packet = DatagramCodec.event(dto, -1L);
+        synchronized (udpReplies) {
+            udpReplies.put(dto.getClientSeq(), packet);
+        }
+        udp.send(udpAddress, packet.duplicate());
+    }
+
+    // NACK 받은 DIFF 재전송 (순서 검사 없이)
+    void resendUdpDiff(InfoDTO diff) {
+        SocketAddress to = udpAddress;
+        if ( to != null ) {
+            udp.send(to, DatagramCodec.event(diff, -1L));
+        }
+    }
+
+    // UDP로 들어온 클릭. 이미 처리한 clientSeq면 (응답이 유실됐을 수 있으니) 저장해둔 응답을 다시 보냄
+    void onUdpClick(int cs, int x, int y, Long clickAt) {
+        if ( acceptClick(cs) ) {
+            server.enqueueClick(this.nickname, x, y, cs, toServerClock(clickAt));
+            return;
+        }
+        ByteBuffer cached;
+        synchronized (udpReplies) {
+            cached = udpReplies.get(cs);
+        }
+        if ( cached != null ) {
+            udp.send(udpAddress, cached.duplicate());
+        }
+    }
+
+    // 같은 요청 재전송/역순 방지. TCP 수신 스레드와 UDP 수신 스레드가 같이 씀
+    // UDP는 순서가 뒤바뀌거나 앞 요청만 유실될 수 있어서, 최근 64개 범위에서는 아직 안 받은 이전 seq도 받아줌
+    private synchronized boolean acceptClick(int cs) {
+        if ( cs > lastClientSeq ) {                     // 요청 성공 시, 클라이언트 seq 동기화
+            int shift = cs - lastClientSeq;
+            seenClientSeqs = (shift >= 64) ? 1L : (seenClientSeqs << shift) | 1L;
+            lastClientSeq = cs;
+            return true;
+        }
+        int back = lastClientSeq - cs;
+        if ( back >= 64 ) return false;                 // 너무 오래된 요청은 무시
+        long bit = 1L << back;
+        if ( (seenClientSeqs & bit) != 0 ) return false;    // 이미 받은 요청
+        seenClientSeqs |= bit;
+        return true;
+    }
+
+    // 송신 스레드. 게임 레인은 쌓인 걸 전부 쓰고 한 번 flush
+    // 채팅은 최대 CHAT_BATCH개씩 쓰되, 중간에 게임 메시지가 들어오면 바로 게임 레인으로 돌아감
+    // 쓰기가 막히면 ChatServer 정리 작업이 소켓을 닫아서 풀어줌
+    private void writeLoop() {
+        List<InfoDTO> batch = new ArrayList<>();
+        try {
+            while ( !closed ) {
+                batch.clear();
+                gameLane.drainTo(batch);
+                if ( batch.isEmpty() ) {
+                    InfoDTO chat;
+                    while ( batch.size() < CHAT_BATCH && gameLane.isEmpty() && (chat = chatLane.poll()) != null ) {
+                        batch.add(chat);
+                    }
+                }
+                if ( !batch.isEmpty() ) {
+                    ServerEvents.ConnectionWrite event = new ServerEvents.ConnectionWrite();
+                    event.begin();
+                    long before = out.count;
+                    writingSinceMillis = server.millis();
+                    for ( InfoDTO dto : batch ) {
+                        writer.writeObject(compressOut ? compression.wrap(dto) : dto);
+                        if ( !compressOut && dto.getCommand() == Info.SESSION && dto.getCompression() != null ) {
+                            compressOut = true;     // 클라이언트는 이 SESSION을 받은 뒤부터 COMPRESSED를 풀 수 있음
+                        }
+                    }
+                    writer.flush();
+                    writingSinceMillis = 0L;
+                    if ( event.shouldCommit() ) {       // 임계값(기본 10ms) 넘게 걸린 쓰기만
+                        event.player = nickname;
+                        event.messages = batch.size();
+                        event.bytes = out.count - before;
+                        event.gameBacklog = gameLane.size();
+                        event.chatBacklog = chatLane.size();
+                        event.commit();
+                    }
+                    continue;
+                }
+                if ( finishing ) break;
+                synchronized (laneSignal) {
+                    if ( gameLane.isEmpty() && chatLane.isEmpty() && !closed && !finishing ) {
+                        laneSignal.wait();
+                    }
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // 쓰기 실패한 연결은 버림. 읽기 스레드가 정리
+        } finally {
+            writingSinceMillis = 0L;
+            close();
+        }
+    }
+
+    // 지나간 바이트 수만 세는 스트림 (송신 스레드만 씀)
+    private static class CountingOutputStream extends FilterOutputStream {
+        long count = 0L;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    // 남은 송신을 다 보낸 뒤 연결을 닫음 (EXIT 응답용)
+    private void finish() {
+        finishing = true;
+        synchronized (laneSignal) {
+            laneSignal.notify();
+        }
+    }
+
+    // 연결 강제 종료 (재접속한 세션의 예전 연결 정리 등)
+    public void close() {
+        closed = true;
+        if ( udp != null ) {
+            udp.unbind(this);
+        }
+        synchronized (laneSignal) {
+            laneSignal.notify();
+        }
+        if ( socket == null ) return;      // 메모리 연결
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    // 입장/재개 거절. 이유를 실은 EXIT를 보낸 뒤 연결을 끝냄 (receive가 그대로 반환할 false)
+    // 이유를 SEND로 따로 보내면 채팅 레인이라 게임 레인의 EXIT보다 늦게 나가서 클라이언트가 못 봄
+    private boolean refuse(String message) {
+        InfoDTO bye = new InfoDTO();
+        bye.setCommand(Info.EXIT);
+        bye.setMessage(message);
+        send(bye);
+        finish();
+        list.remove(this);
+        return false;
+    }
+
+    // 채팅 토큰 하나 사용. 속도 제한에 걸리면 false
+    private boolean takeChatToken() {
+        long now = server.millis();
+        chatTokens = Math.min(CHAT_BURST, chatTokens + (now - chatRefillMillis) / 1e3 * CHAT_RATE);
+        chatRefillMillis = now;
+        if ( chatTokens < 1.0 ) return false;
+        chatTokens -= 1.0;
+        return true;
+    }
+
+    // 세션 토큰과 (협상됐으면) 압축 방식을 알려줌
+    private void sendSession() {
+        InfoDTO dto = new InfoDTO();
+        dto.setCommand(Info.SESSION);
+        dto.setToken(token);
+        if ( compression != null ) {
+            dto.setCompression(StreamCompression.MODE);
+        }
+        send(dto);
+    }
+
+    // JOIN/RESUME의 제안을 보고 압축 방식 결정. 이 연결에서 이미 정했으면 그대로 (같은 연결의 RESUME)
+    private void negotiateCompression(String offered) {
+        if ( compression == null && StreamCompression.choose(offered) != null ) {
+            compression = new StreamCompression();
+        }
+    }
+
+    // 압축 통계. 협상 안 된 연결이면 null
+    public StreamCompression getCompression() {
+        return compression;
+    }
+
+    // Object 스트림 헤더 교환. ObjectInputStream은 상대 헤더가 올 때까지 막히므로 접속 대기 스레드가 아니라 여기서
+    // 그동안에도 목록에 있어서 하트비트 정리 대상이고, TCP는 읽기 시간 제한도 걸림
+    private void openStreams() throws IOException {
+        writer = new ObjectOutputStream(out);
+        reader = new ObjectInputStream(in);
     }
 
     // 실행 스레드, 클라이언트에서 메시지를 계속 읽고 처리
     public void run(){
         InfoDTO dto;
-        String nickName;
         try {
+            if ( reader == null ) {
+                openStreams();
+            }
+            writerThread = new Thread(this::writeLoop, getName() + " 송신");
+            writerThread.setDaemon(true);
+            writerThread.start();
+
             while( true ) {
                 dto = (InfoDTO)reader.readObject();     // 클라이언트 메시지 수신
-                nickName = dto.getNickName();
-                // 사용자가 접속을 끊었을 경우, 프로그램을 끝내서는 안되고 남은 사용자들에게 퇴장메시지를 보내줘야 한다.
-                if(dto.getCommand() == Info.EXIT) {
-                    InfoDTO sendDto = new InfoDTO();
-
-                    // 나가려고 ext를 보낸 클라이언트에게 답변 보내기
-                    sendDto.setCommand(Info.EXIT);
-                    send(sendDto);
-
-                    // 연결 해제
-                    reader.close();
-                    writer.close();
-                    socket.close();
-
-                    // 남아있는 클라이언트에게 퇴장메시지 보내기
-                    list.remove(this);
-                    sendDto.setCommand(Info.SEND);
-                    sendDto.setMessage(nickName + "님 퇴장하셨습니다.");
-                    server.broadcast(sendDto);
-                    server.broadcastLobby();
-                    break;
-                } else if (dto.getCommand() == Info.JOIN) {     // 참가 시 행동
-                    // 모든 사용자에게 메시지 보내기
-                    InfoDTO sendDto = new InfoDTO();
-                    sendDto.setCommand(Info.SEND);
-                    sendDto.setMessage(nickName + "님 입장하셨습니다.");
-                    this.nickname = dto.getNickName();
-                    this.ready = false; // 입장 시 ready 초기화
-                    server.broadcast(sendDto);
-                    server.broadcastLobby();
-                } else if (dto.getCommand() == Info.SEND) {     // 메시지 송신 시 행동
-                    InfoDTO sendDto = new InfoDTO();
-                    sendDto.setCommand(Info.SEND);
-                    sendDto.setMessage("[" + nickName + "] " + dto.getMessage());
-                    server.broadcast(sendDto);
-                } else if (dto.getCommand() == Info.READY) {        // 준비 버튼 눌렀을 때 행동
-                    // 토글
-                    this.ready = (dto.getReady() != null) ? dto.getReady() : !this.ready;
-                    server.broadcastLobby();
-                    server.startGame();
-                } else if (dto.getCommand() == Info.CLICK_REQ) {    // 클릭했을 때 행동
-                    int cs = dto.getClientSeq();                    // 클라이언트 seq 넘버를 받아와서, 마지막 시퀀스번호랑 비교
-                    // 같은 요청 재전송/역순 방지
-                    if (cs <= lastClientSeq) {                      // 마지막 시퀀스번호보다 이전게 왔으면, 무시
-                        continue;
-                    }
-                    // 요청 성공 시, 클라이언트 seq 동기화
-                    lastClientSeq = cs;
-
-                    server.enqueueClick(this.nickname, dto.getX(), dto.getY(), cs);     // 요청 성공 시, 큐에 넣기
+                lastHeardMillis = server.millis();
+                if ( dto.getCommand() == Info.COMPRESSED ) {   // 압축된 메시지면 풀어서 원래 메시지로 처리
+                    if ( compression == null ) continue;        // 협상 안 한 연결의 COMPRESSED는 무시
+                    dto = compression.unwrap(dto);
                 }
+                if ( !receive(dto) ) break;
             } // while
+        } catch (SocketTimeoutException e) {
+            log(ServerLog.Level.INFO, "응답 없음, 연결 정리", null, null);
         } catch (IOException e) {
-            e.printStackTrace();
+            log(ServerLog.Level.WARN, "연결 오류", null, e);
         } catch (ClassNotFoundException e) {
-            e.printStackTrace();
+            log(ServerLog.Level.WARN, "알 수 없는 메시지", null, e);
         } catch (Exception e) {         // why?
+            log(ServerLog.Level.ERROR, "메시지 처리 실패", null, e);
+        } finally {
+            if ( compression != null ) {
+                log(ServerLog.Level.INFO, "압축 통계:", compression.summary(), null);
+            }
+            // 연결이 끊겨도 세션과 점수는 남겨서 같은 토큰으로 재개 가능
+            server.evict(this);
+            if ( compression != null ) {
+                closeCompression();
+            }
+        }
+    }
+
+    // 압축기(네이티브 Deflater/Inflater) 반납. 송신 스레드가 wrap 도중일 수 있으므로 끝나기를 기다린 뒤에
+    // 쓰기가 막혀서 WRITE_MILLIS 안에 안 끝나면 (정리 작업이 소켓을 닫아 곧 끝남) GC에 맡김
+    private void closeCompression() {
+        try {
+            if ( writerThread != null ) writerThread.join(ChatServer.WRITE_MILLIS);
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+        if ( writerThread == null || !writerThread.isAlive() ) {
+            compression.close();
+        }
+    }
+
+    // 받은 메시지 하나 처리 (압축은 풀린 상태). 연결을 끝내야 하면 false
+    private boolean receive(InfoDTO dto) {
+        String nickName = dto.getNickName();
+        if (dto.getCommand() == Info.PONG) {     // 왕복 시간, 시계 차이 갱신
+            onPong(dto);
+            return true;
+        }
+        // 사용자가 접속을 끊었을 경우, 프로그램을 끝내서는 안되고 남은 사용자들에게 퇴장메시지를 보내줘야 한다.
+        if(dto.getCommand() == Info.EXIT) {
+            InfoDTO bye = new InfoDTO();
+
+            // 나가려고 ext를 보낸 클라이언트에게 답변 보내기
+            bye.setCommand(Info.EXIT);
+            send(bye);
+
+            server.closeSession(token);
+
+            // 연결 해제 (송신 스레드가 EXIT까지 보낸 뒤 소켓을 닫음)
+            finish();
+
+            // 남아있는 클라이언트에게 퇴장메시지 보내기
+            list.remove(this);
+            server.broadcastChat(nickName + "님 퇴장하셨습니다.");
             server.broadcastLobby();
+            return false;
+        } else if (dto.getCommand() == Info.JOIN) {     // 참가 시 행동
+            if ( ChatServer.reservedNickname(dto.getNickName()) ) {
+                return refuse(ChatServer.BOT_PREFIX + "(으)로 시작하는 닉네임은 봇 전용입니다.");
+            }
+            this.nickname = dto.getNickName();
+            this.ready = false; // 입장 시 ready 초기화
+            this.token = server.openSession(nickname);
+            this.seedBoards = SEED_BOARDS && Boolean.TRUE.equals(dto.getSeedBoards());
+            negotiateCompression(dto.getCompression());
+            sendSession();
+            send(server.chatPage(null));                // 최근 채팅 기록 묶음
+            server.sendLobby(this);                     // 로비 전체 (이후로는 델타)
+            // 모든 사용자에게 메시지 보내기
+            server.broadcastChat(nickName + "님 입장하셨습니다.");
+            server.broadcastLobby();
+        } else if (dto.getCommand() == Info.RESUME) {   // 재접속 또는 seq 누락 감지 시 세션 재개
+            String known = server.resumeSession(dto.getToken());
+            if (known == null) {
+                // 모르는 토큰(만료, 다른 서버)은 새로 입장한 것으로 처리. 남의 연결을 끊거나 점수를 이어받지 못하게
+                // 닉네임을 다른 세션이 쓰고 있으면 거절
+                if ( dto.getNickName() == null || ChatServer.reservedNickname(dto.getNickName())
+                        || server.nicknameInUse(this, dto.getNickName()) ) {
+                    return refuse("세션이 만료되었고 닉네임 " + dto.getNickName() + "은(는) 이미 사용 중입니다.");
+                }
+                this.nickname = dto.getNickName();
+                this.token = server.openSession(nickname);
+            } else {
+                this.token = dto.getToken();
+                this.nickname = known;
+                server.dropStale(this, nickname);       // 토큰이 맞을 때만 예전 연결 정리
+            }
+            this.seedBoards = SEED_BOARDS && Boolean.TRUE.equals(dto.getSeedBoards());
+            negotiateCompression(dto.getCompression());
+            sendSession();
+
+            // 게임 중이면 빠진 이벤트(또는 스냅샷)로 따라잡기
+            long lastSeq = (dto.getServerSeq() != null) ? dto.getServerSeq() : -1L;
+            send(server.catchUp(nickname, lastSeq, dto.getMatchNo()));
+            server.sendLobby(this);
+            server.broadcastLobby();
+        } else if (dto.getCommand() == Info.SEND) {     // 메시지 송신 시 행동
+            if (!takeChatToken()) {                     // 너무 빠르면 버리고 본인에게만 알림
+                InfoDTO warn = new InfoDTO();
+                warn.setCommand(Info.SEND);
+                warn.setMessage("채팅을 너무 빨리 보내고 있습니다.");
+                send(warn);
+                return true;
+            }
+            server.broadcastChat("[" + nickName + "] " + dto.getMessage());
+        } else if (dto.getCommand() == Info.LOBBY_UPDATE) {     // 로비 델타 누락, 전체 다시 요청
+            server.sendLobby(this);
+        } else if (dto.getCommand() == Info.CHAT_HISTORY) {     // 이전 채팅 페이지 요청
+            send(server.chatPage(dto.getBeforeSeq()));
+        } else if (dto.getCommand() == Info.READY) {        // 준비 버튼 눌렀을 때 행동
+            // 토글
+            this.ready = (dto.getReady() != null) ? dto.getReady() : !this.ready;
+            server.broadcastLobby();
+            server.startGame();
+        } else if (dto.getCommand() == Info.CLICK_REQ) {    // 클릭했을 때 행동
+            int cs = dto.getClientSeq();                    // 클라이언트 seq 넘버를 받아와서, 마지막 시퀀스번호랑 비교
+            if (!acceptClick(cs)) {
+                return true;
+            }
+
+            // 요청 성공 시, 클릭 시각(서버 시계)과 함께 큐에 넣기
+            server.enqueueClick(this.nickname, dto.getX(), dto.getY(), cs, toServerClock(dto.getClickAt()));
+        } else if (dto.getCommand() == Info.CLICK_BATCH) {  // 묶여 온 클릭들, 순서대로 CLICK_REQ와 같게
+            if ( dto.getEvents() == null ) return true;
+            for ( InfoDTO click : dto.getEvents() ) {
+                if ( click.getClientSeq() == null || !acceptClick(click.getClientSeq()) ) continue;
+                server.enqueueClick(this.nickname, click.getX(), click.getY(), click.getClientSeq(), toServerClock(click.getClickAt()));
+            }
         }
+        return true;
+    }
+
+    // 이 연결(닉네임)과 진행 중인 판 번호를 붙인 로그
+    private void log(ServerLog.Level level, String msg, Object arg, Throwable error) {
+        ServerLog.log(level, nickname, server.liveMatch(), msg, arg, error);
     }
 }
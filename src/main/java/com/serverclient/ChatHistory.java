@@ -0,0 +1,121 @@
+package com.serverclient;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// 로비 채팅 기록
+// 최근 기록은 고정 크기 링 버퍼(락 없이 AtomicLong으로 자리 배정)에, 전체 기록은 추가 전용 파일에 남김
+// 파일은 고정 길이 레코드라 seq * RECORD_SIZE 위치에서 바로 읽을 수 있어서 메모리에 색인을 둘 필요가 없음
+// 메시지가 아무리 많이 지나가도 메모리는 링 버퍼 크기만큼만 씀
+public class ChatHistory {
+    private static final int MAX_TEXT_BYTES = 600;                  // 이보다 긴 메시지는 잘라서 저장
+    private static final int RECORD_SIZE = 8 + 8 + 2 + MAX_TEXT_BYTES;   // seq+1, 시각, 길이, 본문
+
+    private final AtomicReferenceArray<ChatLine> ring;
+    private final AtomicLong nextSeq;
+    private final FileChannel log;          // 파일을 못 열면 null (메모리 기록만 사용)
+    private final Clock clock;              // 줄마다 찍는 시각
+
+    public ChatHistory(int capacity, Path logFile, Clock clock) {
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.clock = clock;
+        FileChannel ch = null;
+        long start = 0L;
+        if ( logFile != null ) {
+            try {
+                ch = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                // 위치 지정 쓰기라 같은 파일을 두 서버가 쓰면 같은 seq 자리를 서로 덮어씀
+                if ( !RankingStore.tryLock(ch) ) throw new IOException(logFile + " 잠금 실패 (다른 서버가 사용 중)");
+                start = ch.size() / RECORD_SIZE;      // 재시작 시 이어서 번호 매김
+            } catch ( IOException e ) {
+                ServerLog.warn("채팅 기록 파일 사용 불가, 메모리 기록만 사용:", e.getMessage());
+                if ( ch != null ) {
+                    try { ch.close(); } catch ( IOException ignored ) { }
+                }
+                ch = null;
+                start = 0L;
+            }
+        }
+        this.log = ch;
+        this.nextSeq = new AtomicLong(start);
+    }
+
+    // 한 줄 추가. 자리 배정은 AtomicLong 하나로 끝나고, 파일 쓰기도 위치 지정 쓰기라 서로 기다리지 않음
+    public ChatLine append(String text) {
+        long seq = nextSeq.getAndIncrement();
+        ChatLine line = new ChatLine(seq, clock.millis(), text);
+        ring.set((int) (seq % ring.length()), line);
+        if ( log != null ) {
+            try {
+                log.write(encode(line), seq * RECORD_SIZE);
+            } catch ( IOException e ) {
+                ServerLog.warn("채팅 기록 저장 실패:", e.getMessage());
+            }
+        }
+        return line;
+    }
+
+    // 가장 최근 n줄 (오래된 것부터)
+    public List<ChatLine> recent(int n) {
+        return page(nextSeq.get(), n);
+    }
+
+    // beforeSeq 바로 앞의 n줄 (오래된 것부터). 링 버퍼에 없으면 파일에서 읽음
+    public List<ChatLine> page(long beforeSeq, int n) {
+        long end = Math.min(beforeSeq, nextSeq.get());
+        long from = Math.max(0L, end - n);
+        List<ChatLine> out = new ArrayList<>();
+        for ( long s = from; s < end; s++ ) {
+            ChatLine line = ring.get((int) (s % ring.length()));
+            if ( line == null || line.getSeq() != s ) {
+                line = readFromLog(s);
+            }
+            if ( line != null ) out.add(line);
+        }
+        return out;
+    }
+
+    private ChatLine readFromLog(long seq) {
+        if ( log == null ) return null;
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE);
+        try {
+            long pos = seq * RECORD_SIZE;
+            while ( buf.hasRemaining() ) {
+                if ( log.read(buf, pos + buf.position()) < 0 ) return null;
+            }
+        } catch ( IOException e ) {
+            return null;
+        }
+        buf.flip();
+        if ( buf.getLong() != seq + 1 ) return null;      // 아직 안 써졌거나 깨진 레코드
+        long time = buf.getLong();
+        int len = buf.getShort();
+        byte[] b = new byte[len];
+        buf.get(b);
+        return new ChatLine(seq, time, new String(b, StandardCharsets.UTF_8));
+    }
+
+    private static ByteBuffer encode(ChatLine line) {
+        byte[] b = line.getText().getBytes(StandardCharsets.UTF_8);
+        int len = Math.min(b.length, MAX_TEXT_BYTES);
+        while ( len < b.length && (b[len] & 0xC0) == 0x80 ) {
+            len--;      // 글자 중간(UTF-8 이어지는 바이트)에서 자르지 않게 앞 글자 경계까지
+        }
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE);
+        buf.putLong(line.getSeq() + 1);         // 0으로 채워진 빈 자리와 구분하려고 +1
+        buf.putLong(line.getTimeMillis());
+        buf.putShort((short) len);
+        buf.put(b, 0, len);
+        buf.position(0);
+        return buf;
+    }
+}
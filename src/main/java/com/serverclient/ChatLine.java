@@ -0,0 +1,30 @@
+package com.serverclient;
+
+import java.io.Serializable;
+
+// 채팅 기록 한 줄. seq는 서버 전체에서 0부터 1씩 증가
+public class ChatLine implements Serializable {
+    private long seq;
+    private long timeMillis;
+    private String text;
+
+    public ChatLine() {}
+
+    public ChatLine(long seq, long timeMillis, String text) {
+        this.seq = seq;
+        this.timeMillis = timeMillis;
+        this.text = text;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
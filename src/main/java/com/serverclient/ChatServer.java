@@ -1,29 +1,68 @@
 package com.serverclient;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.ConnectException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 public class ChatServer {
     private ServerSocket serverSocket;
-    private List<ChatHandler> list = new ArrayList<>();
+    // 여러 핸들러 스레드, 게임 루프, 하트비트가 동시에 돌기 때문에 순회 중 변경에 안전한 리스트 사용
+    private List<ChatHandler> list = new CopyOnWriteArrayList<>();
 
     private static final int PORT = 9500;
 
+    // 같은 호스트의 봇/보조 프로세스용 유닉스 도메인 소켓 경로 (-Dserverclient.unixSocket=/tmp/serverclient.sock). 없으면 TCP만
+    // 프로토콜은 TCP와 같고 루프백 TCP를 거치지 않음
+    private static final String UNIX_SOCKET = System.getProperty("serverclient.unixSocket");
+
     // 동시 클릭 순서 결정용 블로킹 큐
     // 1024개 크기 큐, true로 FIFO 순서로 스레드 접근
-    private BlockingQueue<ClickTask> queue = new ArrayBlockingQueue<>(1024, true);
+    private static final int QUEUE_CAPACITY = 1024;
+    private BlockingQueue<ClickTask> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY, true);
+    private final BlockingQueue<ClickTask> taskPool = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    // 게임 루프 전용 재사용 버퍼 (handleClick은 synchronized)
+    private final int[] clickBuf = new int[GameEngine.MAX_CHANGED];     // 엔진이 쓰는 바뀐 칸 (Coord.pack)
+    private final List<ClickTask> window = new ArrayList<>();           // 지연 보정 구간/병렬 묶음으로 모은 클릭
 
+    // 병렬 클릭 처리 (serverclient.parallelClicks = 작업 스레드 수, 0이면 끔)
+    // 쌓인 클릭을 최대 PARALLEL_BATCH개씩 꺼내서 행/열이 겹치지 않는 것끼리 동시에 적용. 결과와 serverSeq는 큐 순서 그대로
+    private static final int PARALLEL_CLICKS = Integer.getInteger("serverclient.parallelClicks", 0);
+    private static final int PARALLEL_BATCH = 256;
+    private final ParallelClicks parallel = (PARALLEL_CLICKS > 0) ? new ParallelClicks(PARALLEL_CLICKS) : null;
+    private final ParallelClicks.Commit commit = this::commitClick;
+
+    // 처리가 끝난 작업은 taskPool로 돌려서 다음 클릭에 재사용 (클릭마다 새로 만들지 않도록)
     static class ClickTask {
         String player;
         int x, y;
         int clientSeq;
-        ClickTask(String player, int x, int y, int clientSeq) {
+        long clickedAt;         // 클라이언트가 클릭한 시각 (서버 시계로 변환한 추정치)
+        long arrivedAt;         // 서버 큐에 들어온 시각
+        long enqueuedNanos;     // 큐 대기 시간 측정용 (JFR)
+        BoardView counted;      // 대기 수를 올려 둔 view (적용이 끝나면 release로 내림)
+        ClickTask set(String player, int x, int y, int clientSeq, long clickedAt, long arrivedAt) {
             this.player = player;
             this.x = x; this.y = y;
             this.clientSeq = clientSeq;
+            this.clickedAt = clickedAt;
+            this.arrivedAt = arrivedAt;
+            this.enqueuedNanos = System.nanoTime();
+            return this;
         }
     }
 
@@ -32,52 +71,647 @@ public class ChatServer {
 
     // 게임 엔진 서버관리
     private GameEngine engine;
+    private final BoardPool boards;                         // 새 판/다음 세대 보드를 뒤에서 미리 만들어 둠
     private HashMap<String,Integer> scores = new HashMap<>();
     private boolean running = false;
+    private int matchNo = 0;                    // 서버가 뜬 뒤 몇 번째 판인지 (로그용)
+    private volatile int liveMatch = 0;         // 진행 중인 판 번호, 없으면 0 (로그 문맥)
+    private volatile Long matchSeed;            // 진행 중인 판의 시드. 없거나 체크포인트에서 이어받은 판이면 null
+    private InfoDTO startEvent;                 // 진행 중인 판의 START_GAME (이 판 시작을 못 본 참가자의 따라잡기용). 이어받은 판이면 null
     private long endsAtMillis = 0L;
 
     private Thread gameLoop;
 
+    // 클릭 사전 검사 (핸들러 스레드, enqueueClick). 게임 루프가 공개하는 읽기 전용 보드 사본(view)으로
+    // 확실히 안 되는 클릭은 큐에 넣기 전에 거절해서 큐 자리와 게임 루프 시간을 쓰지 않게 함. 통과한 클릭은 예전처럼 게임 루프가 판정
+    // - 범위 밖: 항상 거절
+    // - 회색이 아닌 칸: 큐에 넣은 뒤 아직 적용이 안 끝난 클릭이 하나도 없을 때만 거절
+    //   그때 view는 엔진 보드와 같고 이 클릭보다 앞서 처리될 클릭이 없으므로 게임 루프 판정과 같음
+    //   대기 중인 클릭이 있으면 어느 것이든 이 칸을 회색으로 바꾸거나(같은 행/열) 보드를 새로 깔 수 있어서 게임 루프에 맡김
+    //   그래서 잘못된 클릭이 계속 몰려 큐가 비지 않는 동안에는 범위 밖만 걸러냄
+    //   지연 보정을 쓰면 나중에 온 클릭이 앞설 수 있으므로 하지 않음
+    static final class BoardView {
+        final int W, H;
+        final CellColor[] cells;                    // y * W + x. 게임 루프만 씀
+        final AtomicInteger pending = new AtomicInteger();     // 사전 검사를 통과해 큐에 넣은 뒤 아직 적용이 안 끝난 클릭 수 (view를 고친 뒤에 줄임)
+
+        BoardView(CellColor[][] board) {
+            H = board.length;
+            W = board[0].length;
+            cells = new CellColor[W * H];
+            copyFrom(board);
+        }
+
+        void copyFrom(CellColor[][] board) {
+            for ( int y = 0; y < H; y++ ) {
+                System.arraycopy(board[y], 0, cells, y * W, W);
+            }
+        }
+    }
+
+    private volatile BoardView view;                        // 게임 중이 아니면 null
+    private final LongAdder prechecked = new LongAdder();  // 사전 검사로 거절한 클릭 (판마다)
+
+    // 세션 재개용. 토큰 -> 닉네임 (JOIN 때 발급, EXIT 때 삭제)
+    private final Map<String,String> sessions = new ConcurrentHashMap<>();
+
+    // 한 판 동안의 최근 방송 이벤트. 재접속/누락 감지한 클라이언트에게 빠진 것만 다시 보냄
+    private static final int RING_CAPACITY = 256;
+    private EventRing recent;
+
+    // 로비 채팅 기록. 최근 HISTORY_CAPACITY줄은 메모리, 나머지는 파일에서 페이지 단위로 읽음
+    private static final int HISTORY_CAPACITY = 512;
+    private static final int HISTORY_PAGE = 50;         // 입장 시 묶음/이전 페이지 크기
+    private final ChatHistory chatHistory;
+
+    // 판을 넘어서 쌓이는 누적 순위 (ranking.results / ranking.players). 봇 점수는 넣지 않음
+    private final RankingStore rankings;
+
     // 서버에서 정해진 시간 이후 작업을 실행하는 예약 실행기
     // seconds 이후에 한꺼번에 서버에서 게임 종료를 선언하기 위해 필요
-    private final ScheduledExecutorService scheduler =
-            Executors.newSingleThreadScheduledExecutor();
+    private final ScheduledExecutorService scheduler;
+
+    // 시계/예약 실행기/저장소/난수 (기본은 실제 것, 시뮬레이션은 가상)
+    private final ServerEnv env;
+    private final Clock clock;
+
+    // 서버측 봇. 사람이 SEATS보다 적으면 남는 자리를 봇으로 채움 (0이면 봇 없음)
+    // 봇은 소켓/스레드 없이 scheduler 주기로 깨어나 공용 solver 풀에서 수를 고름
+    private static final int SEATS = Integer.getInteger("serverclient.seats", 0);
+    static final String BOT_PREFIX = "BOT-";    // 봇 닉네임 접두어. 사람은 이 이름으로 입장할 수 없음 (점수/순위가 봇 것과 섞이지 않게)
+
+    // 로비: 마지막으로 방송한 상태(닉네임 -> 준비)와 버전. 변경은 모아서 델타로, 새로 들어온 연결에는 전체를 보냄
+    static final long LOBBY_DEBOUNCE_MILLIS = Long.getLong("serverclient.lobbyDebounceMillis", 50L);
+    private final LinkedHashMap<String,Boolean> lobbyState = new LinkedHashMap<>();
+    private long lobbyVersion = 0L;
+    private boolean lobbyFlushScheduled = false;
+    private static final BotPlayer.Strength BOT_STRENGTH =
+            BotPlayer.Strength.valueOf(System.getProperty("serverclient.botStrength", "NORMAL"));
+    private final List<BotPlayer> bots = new ArrayList<>();
+    private final List<ScheduledFuture<?>> botTicks = new ArrayList<>();
+    private final MoveSolver solver = new MoveSolver();
+
+    // 하트비트/정리 설정 (밀리초)
+    // PING_MILLIS마다 PING을 보내고, IDLE_MILLIS 동안 아무것도 못 받거나 쓰기가 WRITE_MILLIS 이상 막히면 연결을 정리
+    static final long PING_MILLIS = Long.getLong("serverclient.pingMillis", 2000L);
+    static final long IDLE_MILLIS = Long.getLong("serverclient.idleMillis", 10000L);
+    static final long WRITE_MILLIS = Long.getLong("serverclient.writeMillis", 5000L);
+
+    // 지연 보정 (밀리초, 0이면 끔). 켜면 게임 루프가 첫 클릭 도착 후 이 시간 안에 들어온 클릭을 모아
+    // 클라이언트가 실제로 클릭한 시각(시계 차이 보정) 순으로 처리함. 거의 동시에 누른 같은 칸은 먼저 누른 쪽이 가져감
+    // 클릭 시각은 이 범위보다 더 이르게 주장할 수 없음 (ChatHandler.toServerClock)
+    static final long LAG_COMP_MILLIS = Long.getLong("serverclient.lagCompMillis", 0L);
+
+    // 진행 중인 판 체크포인트. CHECKPOINT_MILLIS마다 바뀐 게 있으면 저장하고, 재시작하면 불러와 이어서 진행
+    // 복원 후 seq는 크게 건너뛰어서 클라이언트가 가진 어떤 seq보다 커지게 함 (재개 시 스냅샷으로 맞춰짐)
+    static final long CHECKPOINT_MILLIS = Long.getLong("serverclient.checkpointMillis", 1000L);
+    private static final long RESTORE_SEQ_GAP = 100_000L;
+    private CheckpointStore checkpoints;
+    private ScheduledExecutorService checkpointer;     // 저장/지우기(map.force)는 이 스레드에서만 (예약 실행기를 막지 않도록)
+    private long checkpointedSeq = -1L;
+    // 마지막 체크포인트 뒤로 회색이 된 칸 (Coord.pack). 보드를 새로 깔았으면 boardReplaced -> 다음 체크포인트가 보드를 통째로 복사
+    private int[] clearedCells = new int[64];
+    private int clearedCount = 0;
+    private boolean boardReplaced = true;
+    private CellColor[][] checkpointBoard;              // 마지막 체크포인트의 보드. checkpointer 스레드만 만짐
+
+    private final int port;
 
     public ChatServer() {
+        this(PORT);
+    }
+
+    public ChatServer(int port) {
+        this(port, ServerEnv.standard(port));
+    }
+
+    public ChatServer(int port, ServerEnv env) {
+        this.port = port;
+        this.env = env;
+        this.clock = env.clock;
+        this.scheduler = env.scheduler;
+        this.boards = env.boards;
+        this.chatHistory = new ChatHistory(HISTORY_CAPACITY, env.chatLog, clock);
+        this.rankings = new RankingStore(env.ranking);
+        scheduler.scheduleAtFixedRate(this::heartbeat, PING_MILLIS, PING_MILLIS, TimeUnit.MILLISECONDS);
+        if ( env.checkpoint != null ) {
+            try {
+                checkpoints = new CheckpointStore(env.checkpoint);
+                checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "체크포인트");
+                    t.setDaemon(true);
+                    return t;
+                });
+                checkpointer.scheduleWithFixedDelay(this::checkpoint, CHECKPOINT_MILLIS, CHECKPOINT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch ( IOException e ) {
+                log(ServerLog.Level.WARN, "체크포인트 사용 불가:", e.getMessage(), null);
+            }
+        }
+    }
+
+    // 서버 시계 (밀리초). 핸들러도 이 시계를 씀
+    long millis() {
+        return clock.millis();
+    }
+
+    // checkpointer 스레드에서 실행. 락 안에서는 값 몇 개(세대, 난수 상태, 점수)와 지난번 뒤로 회색이 된 칸만 챙기고
+    // 지난번 보드에 그 칸을 반영하는 것과 직렬화/파일 쓰기는 락 밖에서 (보드를 새로 깐 뒤 첫 번째만 락 안에서 보드를 복사)
+    private void checkpoint() {
+        MatchCheckpoint cp;
+        CellColor[][] replaced = null;
+        int[] cleared;
+        synchronized ( this ) {
+            if ( !running || engine == null || serverSeq == checkpointedSeq ) return;
+            cp = new MatchCheckpoint(engine, scores, serverSeq, endsAtMillis, sessions, clock.millis());
+            if ( boardReplaced ) {
+                CellColor[][] b = engine.getBoard();
+                replaced = new CellColor[b.length][];
+                for ( int y = 0; y < b.length; y++ ) replaced[y] = b[y].clone();
+                boardReplaced = false;
+            }
+            cleared = Arrays.copyOf(clearedCells, clearedCount);
+            clearedCount = 0;
+            checkpointedSeq = serverSeq;
+        }
+        if ( replaced != null ) checkpointBoard = replaced;
+        for ( int p : cleared ) {
+            checkpointBoard[Coord.unpackY(p)][Coord.unpackX(p)] = CellColor.GRAY;
+        }
+        cp.board = checkpointBoard;
         try {
-            serverSocket = new ServerSocket (PORT);
-            System.out.println("서버 준비 완료");
+            if ( !checkpoints.save(cp) ) {
+                log(ServerLog.Level.WARN, "체크포인트가 너무 커서 저장하지 못함", null, null);
+            }
+        } catch ( IOException e ) {
+            log(ServerLog.Level.WARN, "체크포인트 저장 실패:", e.getMessage(), null);
+        }
+    }
+
+    // 락 안에서 부름. 체크포인트를 안 하면 쌓지 않음
+    private void noteCleared(int[] buf, int n) {
+        if ( checkpoints == null ) return;
+        if ( clearedCount + n > clearedCells.length ) {
+            clearedCells = Arrays.copyOf(clearedCells, Math.max(clearedCells.length * 2, clearedCount + n));
+        }
+        System.arraycopy(buf, 0, clearedCells, clearedCount, n);
+        clearedCount += n;
+    }
+
+    // 엔진이나 보드가 통째로 바뀜 (판 시작/복원/재생성/종료). 다음 체크포인트는 보드를 새로 복사
+    private void replaceCheckpointBoard() {
+        boardReplaced = true;
+        clearedCount = 0;
+    }
+
+    // 서버 시작 시 끝나지 않은 판이 있으면 이어서 진행
+    private synchronized void restore() {
+        if ( checkpoints == null ) return;
+        MatchCheckpoint cp = checkpoints.load();
+        if ( cp == null ) return;
+        long remain = cp.endsAtMillis - clock.millis();
+        if ( remain <= 0 ) {        // 이미 끝났어야 할 판
+            checkpointer.execute(checkpoints::clear);
+            return;
+        }
+        engine = cp.engine();
+        replaceCheckpointBoard();
+        matchSeed = null;           // 체크포인트에는 시드가 없음 -> 이 판은 모두 스냅샷으로 받음
+        startEvent = null;
+        view = new BoardView(engine.getBoard());
+        boards.prepareNext(engine);
+        scores.clear();
+        scores.putAll(cp.scores);
+        sessions.putAll(cp.sessions);
+        serverSeq = cp.serverSeq + RESTORE_SEQ_GAP;
+        endsAtMillis = cp.endsAtMillis;
+        recent = new EventRing(RING_CAPACITY);
+        running = true;
+        liveMatch = ++matchNo;
+        startGameLoop();
+        scheduler.schedule(this::endGame, remain, TimeUnit.MILLISECONDS);
+        log(ServerLog.Level.INFO, "체크포인트에서 게임 복원 (남은 시간 " + remain / 1000 + "초, 참가자 " + scores.size() + "명)", null, null);
+    }
+
+    // 죽은 연결을 정리하고 살아있는 연결에 PING
+    // 쓰기가 막힌 핸들러에는 PING을 보내지 않음 (예약 실행기 스레드까지 막히지 않도록)
+    private void heartbeat() {
+        long now = clock.millis();
+        for ( ChatHandler h : list ) {
+            if ( now - h.getLastHeardMillis() > IDLE_MILLIS || h.writeStalledMillis(now) > WRITE_MILLIS ) {
+                ServerLog.log(ServerLog.Level.INFO, h.getNickname(), liveMatch, "연결 끊김 감지, 정리", null, null);
+                evict(h);
+            } else if ( h.writeStalledMillis(now) == 0L ) {
+                h.ping();
+            }
+        }
+    }
+
+    // 핸들러를 목록에서 빼고 연결을 닫음. 게임 중이 아니면 점수도 정리 (게임 중이면 재접속을 위해 남김)
+    // 남은 사람이 모두 ready면 게임 시작
+    public void evict(ChatHandler h) {
+        if ( !list.remove(h) ) return;
+        h.close();
+        synchronized ( this ) {
+            if ( !running && h.getNickname() != null ) {
+                scores.remove(h.getNickname());
+            }
+        }
+        broadcastLobby();
+        startGame();
+    }
+
+    public RankingStore getRankings() {
+        return rankings;
+    }
+
+    // 연결별 최근 왕복 시간(마이크로초). 측정 전이면 -1
+    public Map<String,Long> rttMicros() {
+        Map<String,Long> out = new LinkedHashMap<>();
+        for ( ChatHandler h : list ) {
+            out.put(h.getNickname(), h.getRttMicros());
+        }
+        return out;
+    }
+
+    // 연결별 추정 시계 차이(클라이언트 - 서버, 밀리초). 측정 전인 연결은 빠짐
+    public Map<String,Long> clockOffsets() {
+        Map<String,Long> out = new LinkedHashMap<>();
+        for ( ChatHandler h : list ) {
+            if ( h.isClockSynced() ) {
+                out.put(h.getNickname(), h.getClockOffsetMillis());
+            }
+        }
+        return out;
+    }
+
+    // 연결별 압축 통계 (비율, 압축/해제 시간). 압축을 협상하지 않은 연결은 빠짐
+    public Map<String,String> compressionStats() {
+        Map<String,String> out = new LinkedHashMap<>();
+        for ( ChatHandler h : list ) {
+            StreamCompression c = h.getCompression();
+            if ( c != null ) {
+                out.put(h.getNickname(), c.summary());
+            }
+        }
+        return out;
+    }
+
+    // 미리 만든 보드 지표 (적중률, 다음 세대 준비 지연)
+    public BoardPool boardPool() {
+        return boards;
+    }
+
+    // 접속 대기 루프. 서버가 살아있는 동안 반환하지 않음
+    public void serve() {
+        try {
+            restore();
+            if ( Boolean.getBoolean("serverclient.udp") ) {     // 선택적 UDP 게임 채널 (같은 포트 번호)
+                new DatagramServer(this, port).start();
+            }
+            if ( UNIX_SOCKET != null ) {
+                startUnixListener(Path.of(UNIX_SOCKET));
+            }
+            serverSocket = new ServerSocket (port);
+            log(ServerLog.Level.INFO, "서버 준비 완료, 포트", port, null);
             while( true ) {
                 Socket socket = serverSocket.accept();      // 새로운 접속 대기
-                ChatHandler handler = new ChatHandler(socket, this, list);      // 접속하는 클라이언트마다 핸들러 생성
-                list.add(handler);      // 핸들러를 서버의 리스트에 등록 후 시작
-                handler.start();        // Thread 상속으로, 각 클라를 독립 스레드로 handler의 run() 메서드 실행
+                try {
+                    ChatHandler handler = new ChatHandler(socket, this, list);      // 접속하는 클라이언트마다 핸들러 생성
+                    list.add(handler);      // 핸들러를 서버의 리스트에 등록 후 시작
+                    handler.start();        // Thread 상속으로, 각 클라를 독립 스레드로 handler의 run() 메서드 실행 (스트림 헤더 교환도 거기서)
+                } catch( IOException e ) {      // 소켓 설정 실패는 해당 접속만 버림
+                    log(ServerLog.Level.WARN, "접속 초기화 실패:", socket.getRemoteSocketAddress(), e);
+                    try { socket.close(); } catch( IOException ignored ) { }
+                }
             }
         } catch( IOException e ) {
-            e.printStackTrace();
+            log(ServerLog.Level.ERROR, "접속 대기 중단", null, e);
+        }
+    }
+
+    // 유닉스 도메인 소켓 접속 대기 (별도 스레드). 접속마다 TCP와 같은 ChatHandler를 만듦
+    // 소켓 파일이 남아 있으면 먼저 접속해 봐서 거절될 때(죽은 서버가 남긴 파일)만 지우고 바인드
+    // 받는 서버가 있거나 일반 파일/디렉터리면 건드리지 않고 실패. 종료 시 지움
+    private void startUnixListener(Path path) throws IOException {
+        if ( Files.exists(path) && !Files.isRegularFile(path) && !Files.isDirectory(path) ) {
+            try ( SocketChannel probe = SocketChannel.open(UnixDomainSocketAddress.of(path)) ) {
+                throw new IOException("이미 다른 서버가 유닉스 소켓을 쓰는 중: " + path);
+            } catch( ConnectException e ) {
+                Files.delete(path);
+            }
         }
+        ServerSocketChannel unix = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        unix.bind(UnixDomainSocketAddress.of(path));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try { Files.deleteIfExists(path); } catch( IOException ignored ) { }
+        }, "유닉스 소켓 정리"));
+        log(ServerLog.Level.INFO, "유닉스 도메인 소켓 대기:", path, null);
+
+        Thread t = new Thread(() -> {
+            while( true ) {
+                SocketChannel ch;
+                try {
+                    ch = unix.accept();
+                } catch( IOException e ) {
+                    log(ServerLog.Level.ERROR, "유닉스 소켓 접속 대기 중단", null, e);
+                    return;
+                }
+                ChatHandler handler = new ChatHandler(ch, this, list);
+                list.add(handler);
+                handler.start();            // 스트림 헤더 교환은 핸들러 스레드에서
+            }
+        }, "유닉스 소켓 접속");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    // 판 번호를 붙인 서버 로그
+    private void log(ServerLog.Level level, String msg, Object arg, Throwable error) {
+        ServerLog.log(level, null, liveMatch, msg, arg, error);
     }
 
-    // 로비 방송용
+    // 진행 중인 판 번호 (없으면 0). 핸들러 로그 문맥용
+    int liveMatch() {
+        return liveMatch;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    // 라우터 부하 보고용: 현재 접속자 수(봇 제외)와 게임 진행 여부
+    public int playerCount() {
+        return list.size();
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    // 라우터 보고용: 지금 살아있는 세션 토큰 (RESUME을 이 백엔드로 돌려보내게 함)
+    public Set<String> sessionTokens() {
+        return new HashSet<>(sessions.keySet());
+    }
+
+    // 로비 방송 요청. LOBBY_DEBOUNCE_MILLIS 안에 들어온 변경(입장, 퇴장, 준비)은 모아서 한 번의 LOBBY_DELTA로 보냄
     public void broadcastLobby() {
-        InfoDTO dto = new InfoDTO();
-        dto.setCommand( Info.LOBBY_UPDATE );
+        synchronized (lobbyState) {
+            if ( lobbyFlushScheduled ) return;      // 이미 예약된 방송이 이번 변경까지 담아감
+            lobbyFlushScheduled = true;
+        }
+        if ( LOBBY_DEBOUNCE_MILLIS <= 0 ) {
+            flushLobby();
+        } else {
+            scheduler.schedule(this::flushLobby, LOBBY_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
 
-        List<PlayerStatus> playerStatus = new ArrayList<>();
-        for( ChatHandler h : list ) {
-            playerStatus.add(new PlayerStatus( h.getNickname(), h.isReady() ));
+    // 지금 로비와 마지막으로 방송한 로비를 비교해서 바뀐 것만 버전을 붙여 방송
+    // 예약 표시를 먼저 내리고 상태를 읽으므로, 읽은 뒤에 생긴 변경은 다음 방송이 가져감
+    private void flushLobby() {
+        fillSeatsWithBots();
+        synchronized (lobbyState) {
+            lobbyFlushScheduled = false;
+            Map<String,Boolean> now = new LinkedHashMap<>();
+            for ( ChatHandler h : list ) {
+                if ( h.getNickname() != null ) now.put(h.getNickname(), h.isReady());
+            }
+            for ( BotPlayer b : bots ) {
+                now.put(b.getNickname(), true);     // 봇은 항상 준비 상태
+            }
+
+            List<PlayerStatus> changed = new ArrayList<>();
+            List<String> left = new ArrayList<>();
+            for ( Map.Entry<String,Boolean> e : now.entrySet() ) {
+                if ( !e.getValue().equals(lobbyState.get(e.getKey())) ) {
+                    changed.add(new PlayerStatus(e.getKey(), e.getValue()));
+                }
+            }
+            for ( String nick : lobbyState.keySet() ) {
+                if ( !now.containsKey(nick) ) left.add(nick);
+            }
+            if ( changed.isEmpty() && left.isEmpty() ) return;
+
+            // 클라이언트와 같은 순서로 적용 (나간 사람 빼고, 바뀐 사람은 제자리, 새로 온 사람은 뒤에)
+            for ( String nick : left ) lobbyState.remove(nick);
+            for ( PlayerStatus p : changed ) lobbyState.put(p.getNickname(), p.isReady());
+
+            InfoDTO dto = new InfoDTO();
+            dto.setCommand(Info.LOBBY_DELTA);
+            dto.setLobbyVersion(++lobbyVersion);
+            dto.setLobby(changed);
+            dto.setLobbyLeft(left);
+            broadcast(dto);
         }
-        dto.setLobby(playerStatus);
-        broadcast(dto);
+    }
+
+    // 로비 전체를 한 연결에만 (입장/재개 직후, 클라이언트가 버전 누락을 감지했을 때)
+    // 방송과 같은 잠금 안에서 보내므로 이 연결에는 전체 -> 다음 버전 델타 순서가 지켜짐
+    public void sendLobby(ChatHandler h) {
+        synchronized (lobbyState) {
+            List<PlayerStatus> all = new ArrayList<>(lobbyState.size());
+            for ( Map.Entry<String,Boolean> e : lobbyState.entrySet() ) {
+                all.add(new PlayerStatus(e.getKey(), e.getValue()));
+            }
+            InfoDTO dto = new InfoDTO();
+            dto.setCommand(Info.LOBBY_UPDATE);
+            dto.setLobbyVersion(lobbyVersion);
+            dto.setLobby(all);
+            h.send(dto);
+        }
+    }
+
+    // 빈 자리 수에 맞춰 봇을 늘리거나 줄임. 게임 중에는 인원을 바꾸지 않음
+    private synchronized void fillSeatsWithBots() {
+        if ( running ) return;
+        int wanted = Math.max(0, SEATS - list.size());
+        while ( bots.size() > wanted ) {
+            bots.remove(bots.size() - 1);
+        }
+        while ( bots.size() < wanted ) {
+            int no = bots.size() + 1;
+            bots.add(new BotPlayer(BOT_PREFIX + no, BOT_STRENGTH, env.seeds.getAsLong()));
+        }
+    }
+
+    // 봇 탐색용 현재 보드 복사본 (게임 중이 아니면 null)
+    public synchronized GameEngine snapshotEngine() {
+        if ( !running || engine == null ) return null;
+        return engine.copy();
     }
 
     // 전체 브로드캐스트 (ObjectOutputStream 사용)
     public void broadcast(InfoDTO dto) {
+        ServerEvents.Broadcast event = new ServerEvents.Broadcast();
+        event.begin();
+        int recipients = 0;
         for( ChatHandler h : list ) {
             h.send(dto);
+            recipients++;
+        }
+        if ( event.shouldCommit() ) {       // 녹화 중일 때만 크기 계산
+            event.command = String.valueOf(dto.getCommand());
+            event.serverSeq = (dto.getServerSeq() != null) ? dto.getServerSeq() : -1L;
+            event.recipients = recipients;
+            event.messageBytes = wireSize(dto);
+            event.totalBytes = (long) event.messageBytes * recipients;
+            event.commit();
+        }
+    }
+
+    // 연결 스트림에 dto 하나를 쓸 때의 대략적인 바이트 수
+    // 연결 스트림은 클래스 설명을 처음 한 번만 쓰므로, 빈 InfoDTO를 먼저 써서 설명을 빼고 잼
+    private static int wireSize(InfoDTO dto) {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            ObjectOutputStream oos = new ObjectOutputStream(bos);
+            oos.writeObject(new InfoDTO());
+            oos.flush();
+            int before = bos.size();
+            oos.writeObject(dto);
+            oos.flush();
+            return bos.size() - before;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    // 채팅 방송. 기록에 남긴 뒤 전체에 전송
+    public void broadcastChat(String text) {
+        chatHistory.append(text);
+        InfoDTO dto = new InfoDTO();
+        dto.setCommand(Info.SEND);
+        dto.setMessage(text);
+        broadcast(dto);
+    }
+
+    // 채팅 기록 한 페이지. beforeSeq가 null이면 최근 기록
+    public InfoDTO chatPage(Long beforeSeq) {
+        InfoDTO dto = new InfoDTO();
+        dto.setCommand(Info.CHAT_HISTORY);
+        dto.setChatLines( (beforeSeq == null)
+                ? chatHistory.recent(HISTORY_PAGE)
+                : chatHistory.page(beforeSeq, HISTORY_PAGE) );
+        return dto;
+    }
+
+    // 판 상태를 바꾸는 방송 이벤트(serverSeq 있음)는 링 버퍼에도 기록
+    private synchronized void broadcastEvent(InfoDTO dto) {
+        if ( recent != null ) {
+            recent.add(dto);
+        }
+        broadcast(dto);
+    }
+
+    // JOIN 시 세션 토큰 발급
+    public String openSession(String nickname) {
+        String token = env.tokens.get();
+        sessions.put(token, nickname);
+        return token;
+    }
+
+    // 토큰으로 닉네임 찾기 (모르는 토큰이면 null)
+    public String resumeSession(String token) {
+        return (token != null) ? sessions.get(token) : null;
+    }
+
+    // UDP HELLO의 토큰으로 핸들러 찾기
+    public ChatHandler handlerByToken(String token) {
+        for ( ChatHandler h : list ) {
+            if ( token != null && token.equals(h.getToken()) ) return h;
+        }
+        return null;
+    }
+
+    // UDP로 빠진 BOARD_DIFF 재전송 (링 버퍼에서 밀려났으면 클라이언트가 TCP로 재개 요청함)
+    public synchronized void resendDiff(ChatHandler h, long seq) {
+        if ( recent == null ) return;
+        List<InfoDTO> events = recent.get(seq);
+        if ( events == null ) return;
+        for ( InfoDTO e : events ) {
+            if ( e.getCommand() == Info.BOARD_DIFF ) {
+                h.resendUdpDiff(e);
+            }
         }
     }
 
+    public void closeSession(String token) {
+        if ( token != null ) sessions.remove(token);
+    }
+
+    // 닉네임을 다른 세션이나 다른 연결이 쓰고 있는지 (모르는 토큰으로 RESUME할 때)
+    public boolean nicknameInUse(ChatHandler current, String nickname) {
+        if ( sessions.containsValue(nickname) ) return true;
+        for ( ChatHandler h : list ) {
+            if ( h != current && nickname.equals(h.getNickname()) ) return true;
+        }
+        return false;
+    }
+
+    // 봇용으로 예약된 닉네임인지 (대소문자 무시)
+    public static boolean reservedNickname(String nickname) {
+        return nickname != null && nickname.regionMatches(true, 0, BOT_PREFIX, 0, BOT_PREFIX.length());
+    }
+
+    // 같은 닉네임으로 남아있는 예전 연결 정리 (재접속 시 끊긴 쪽이 아직 목록에 있을 수 있음)
+    public void dropStale(ChatHandler current, String nickname) {
+        for ( ChatHandler h : new ArrayList<>(list) ) {
+            if ( h != current && nickname.equals(h.getNickname()) ) {
+                list.remove(h);
+                h.close();
+            }
+        }
+    }
+
+    // 재개 요청한 클라이언트에게 보낼 따라잡기 묶음. 게임 중이 아니면 빈 묶음
+    // 같은 판이고 lastSeq 이후가 링 버퍼에 다 남아있으면 빠진 이벤트만, 아니면 현재 보드 스냅샷 + 모두의 점수
+    // serverSeq는 판마다 0부터라 다른 판(lastMatch)의 seq로는 링 버퍼를 쓸 수 없음. 이 판 시작을 못 본 참가자에게는 START_GAME부터
+    public synchronized InfoDTO catchUp(String nickname, long lastSeq, Integer lastMatch) {
+        InfoDTO dto = new InfoDTO();
+        dto.setCommand(Info.CATCH_UP);
+        if ( !running || engine == null ) {
+            dto.setEvents(new ArrayList<>());
+            return dto;
+        }
+
+        boolean sameMatch = lastMatch != null && lastMatch == liveMatch;
+        List<InfoDTO> events;
+        if ( sameMatch && recent != null && recent.covers(lastSeq, serverSeq) ) {
+            events = recent.since(lastSeq, serverSeq);
+        } else {
+            events = new ArrayList<>();
+            if ( !sameMatch && startEvent != null && scores.containsKey(nickname) ) {
+                events.add(startEvent);
+            }
+            events.add(snapshotEvent(serverSeq));
+
+            for ( var e : scores.entrySet() ) {
+                InfoDTO up = new InfoDTO();
+                up.setCommand(Info.SCORE_UPDATE);
+                up.setServerSeq(serverSeq);
+                up.setPlayer(e.getKey());
+                up.setScore(e.getValue());
+                events.add(up);
+            }
+        }
+
+        InfoDTO t = new InfoDTO();
+        t.setCommand(Info.TIMER_SYNC);
+        t.setEndsAtMillis(endsAtMillis);
+        events.add(t);
+
+        dto.setMatchNo(liveMatch);
+        dto.setSeed(matchSeed);     // 시드가 있으면 클라이언트가 자기 보드를 만들어 BOARD_REGEN을 따라갈 수 있음
+        dto.setServerSeq(serverSeq);
+        dto.setEvents(events);
+        return dto;
+    }
+
+    // 진행 중인 판의 시드 (핸들러가 BOARD_REGEN을 그대로 보내도 되는지 판단)
+    Long matchSeed() {
+        return matchSeed;
+    }
+
     // 모두 ready인지 검사
     public boolean allReady() {
         if( list.isEmpty() ) {
@@ -103,21 +737,32 @@ public class ChatServer {
 
     // synchronized를 통해 중복 불가능하게 게임 스타트
     public synchronized void startGame() {
-        if (!allReady()) return;
+        if (running || !allReady()) return;
 
         final int W = 25, H = 25;
         final int seconds = 60;
-        final long seed = System.currentTimeMillis();   // 현재 시간을 기준으로 rnd 시드생성
 
-        engine = new GameEngine(W, H, seed);
+        BoardPool.Ready board = boards.take(W, H);      // 미리 만들어 둔 판 (시드와 첫 세대). 없으면 여기서 생성
+        final long seed = board.seed;
+        matchSeed = seed;
+        engine = board.engine;
+        replaceCheckpointBoard();
+        view = new BoardView(engine.getBoard());
+        boards.prepareNext(engine);
         scores.clear();
         // 각 클라이언트의 점수를 0으로 설정
         for ( ChatHandler h : list ) {
             scores.put(h.getNickname(), 0);
         }
+        for ( BotPlayer b : bots ) {
+            scores.put(b.getNickname(), 0);
+        }
 
         running = true;
-        endsAtMillis = System.currentTimeMillis() + seconds * 1000L;    // 현재시각 밀리초 기준으로 종료시각 설정
+        liveMatch = ++matchNo;
+        log(ServerLog.Level.INFO, "게임 시작, 참가자", scores.size(), null);
+        recent = new EventRing(RING_CAPACITY);
+        endsAtMillis = clock.millis() + seconds * 1000L;    // 현재시각 밀리초 기준으로 종료시각 설정
 
         // START_GAME
         InfoDTO start = new InfoDTO();
@@ -126,15 +771,13 @@ public class ChatServer {
         start.setDurationSec(seconds);
         start.setWidth(W);
         start.setHeight(H);
+        start.setMatchNo(liveMatch);
+        startEvent = start;
         broadcast(start);
 
-        // BOARD_SNAPSHOT
-        // 게임 시작시 모두 같은 보드로 시작하도록 스냅샷 방송
-        InfoDTO snap = new InfoDTO();
-        snap.setCommand(Info.BOARD_SNAPSHOT);
-        snap.setServerSeq(++serverSeq);
-        snap.setBoard(copyBoard(engine.getBoard()));
-        broadcast(snap);
+        // BOARD_REGEN (첫 보드)
+        // 시드 모드 클라이언트는 START_GAME의 시드로 같은 보드를 만들고 요약값만 확인, 나머지는 스냅샷을 받음
+        broadcastEvent(regenEvent());
 
         // 타이머 싱크
         InfoDTO t = new InfoDTO();
@@ -145,6 +788,13 @@ public class ChatServer {
         // 클릭을 블로킹 큐에 넣고 하나씩 꺼내 처리하는 루프
         startGameLoop();
 
+        // 봇 주기 시작
+        for ( BotPlayer b : bots ) {
+            long period = b.getStrength().getThinkMillis();
+            botTicks.add(scheduler.scheduleWithFixedDelay(() -> b.tick(this, solver),
+                    period, period, TimeUnit.MILLISECONDS));
+        }
+
         // 종료 예약
         // schedule(Runnable command, long delay, TimeUnit unit);
         scheduler.schedule(this::endGame, seconds, TimeUnit.SECONDS);       // endGame 메서드 지정 seconds 이후에 호출하기
@@ -152,16 +802,26 @@ public class ChatServer {
 
     // 클릭을 블로킹 큐에 넣고 하나씩 꺼내 처리하는 루프
     private void startGameLoop() {
+        if ( !env.clickThread ) return;                             // 시뮬레이션은 runQueuedClicks()로 직접 처리
         if ( gameLoop != null && gameLoop.isAlive() ) return;       // 이미 실행중이면 새로 루프를 만들지 않음
         gameLoop = new Thread(() -> {
             while (true) {
                 try {
                     ClickTask task = queue.take();      // 큐에 뭔가가 들어오면 클릭 이벤트 FIFO로 꺼냄
-                    handleClick(task);                  // 클릭 이벤트 처리
+                    if ( LAG_COMP_MILLIS > 0 ) {
+                        handleWindow(task);             // 보정 구간만큼 모아서 클릭 시각 순으로 처리
+                    } else if ( parallel != null ) {
+                        window.clear();                 // 쌓여 있는 클릭을 한꺼번에 꺼내 겹치지 않는 것끼리 병렬 처리
+                        window.add(task);
+                        queue.drainTo(window, PARALLEL_BATCH - 1);
+                        handleBatch(window);
+                    } else {
+                        handleClick(task);              // 클릭 이벤트 처리
+                    }
                 } catch (InterruptedException ie) {     // 스레드 중단 시 루프 종료
                     return;
-                } catch (Exception ex) {                // 에러 로그 추적
-                    ex.printStackTrace();
+                } catch (Exception ex) {                // 에러 로그 추적 (같은 에러가 반복되면 묶어서)
+                    log(ServerLog.Level.ERROR, "클릭 처리 실패", null, ex);
                 }
             }
         }, "게임 루프");
@@ -169,6 +829,86 @@ public class ChatServer {
         gameLoop.start();
     }
 
+    // 게임 루프 스레드 없이 (ServerEnv.clickThread가 false) 지금 큐에 쌓인 클릭을 모두 처리. 처리한 수를 반환
+    // 게임 루프와 같은 순서 규칙 (지연 보정이면 클릭 시각 순, 아니면 도착 순). 보정 구간을 기다리지는 않음
+    int runQueuedClicks() {
+        window.clear();
+        queue.drainTo(window);
+        int n = window.size();
+        if ( n == 0 ) return 0;
+        if ( LAG_COMP_MILLIS > 0 ) {
+            window.sort(Comparator.comparingLong(c -> c.clickedAt));
+        }
+        handleBatch(window);
+        return n;
+    }
+
+    // 메모리 연결 하나를 붙임 (시뮬레이션용). 소켓 없이 ChatHandler.deliver/drainOutbound로 주고받음
+    ChatHandler connectLocal(String name) {
+        ChatHandler h = new ChatHandler(this, list, name);
+        list.add(h);
+        return h;
+    }
+
+    // first 도착 후 LAG_COMP_MILLIS 안에 들어온 클릭을 모아 클릭 시각 순으로 처리 (같은 시각이면 도착 순)
+    private void handleWindow(ClickTask first) throws InterruptedException {
+        window.clear();
+        window.add(first);
+        long deadline = first.arrivedAt + LAG_COMP_MILLIS;
+        long wait;
+        while ( (wait = deadline - clock.millis()) > 0 ) {
+            ClickTask more = queue.poll(wait, TimeUnit.MILLISECONDS);
+            if ( more == null ) break;
+            window.add(more);
+        }
+        window.sort(Comparator.comparingLong(c -> c.clickedAt));
+        handleBatch(window);
+    }
+
+    // 모은 클릭들을 순서대로 처리. 병렬 모드면 ParallelClicks가 겹치지 않는 것끼리 동시에 적용 (커밋 순서는 그대로)
+    private synchronized void handleBatch(List<ClickTask> batch) {
+        for ( int i = 0; i < batch.size(); i++ ) {
+            traceDequeue(batch.get(i), batch.size());
+        }
+        try {
+            if ( parallel == null || batch.size() == 1 || engine == null ) {
+                for ( int i = 0; i < batch.size(); i++ ) {
+                    applyClick(batch.get(i));
+                }
+            } else {
+                parallel.process(engine, batch, commit);
+            }
+        } finally {
+            for ( int i = 0; i < batch.size(); i++ ) {
+                release(batch.get(i));          // 풀로 돌리기 전에 (돌린 뒤에는 다른 스레드가 다시 씀)
+                taskPool.offer(batch.get(i));
+            }
+            batch.clear();
+        }
+    }
+
+    // 현재 보드 스냅샷 이벤트. 세대 번호를 같이 보내서 시드 모드 클라이언트가 이후 재생성을 이어서 맞출 수 있게 함
+    private InfoDTO snapshotEvent(long seq) {
+        InfoDTO snap = new InfoDTO();
+        snap.setCommand(Info.BOARD_SNAPSHOT);
+        snap.setServerSeq(seq);
+        snap.setGeneration(engine.getGeneration());
+        snap.setBoard(copyBoard(engine.getBoard()));
+        return snap;
+    }
+
+    // 보드를 새로 깐 직후의 재생성 알림. 같은 seq의 스냅샷을 붙여 두고 핸들러가 연결별로 골라 보냄 (ChatHandler.forClient)
+    private InfoDTO regenEvent() {
+        long seq = ++serverSeq;
+        InfoDTO regen = new InfoDTO();
+        regen.setCommand(Info.BOARD_REGEN);
+        regen.setServerSeq(seq);
+        regen.setGeneration(engine.getGeneration());
+        regen.setBoardHash(engine.boardHash());
+        regen.setSnapshot(snapshotEvent(seq));
+        return regen;
+    }
+
     // 원본 보드는 서버에서 관리하고 각 클라이언트로 복사본 보내기용
     private CellColor[][] copyBoard(CellColor[][] src) {
         int H = src.length;
@@ -184,9 +924,31 @@ public class ChatServer {
 
     // 핸들러에서 블로킹 큐로 투입
     public void enqueueClick(String player, int x, int y, int clientSeq) {
-        ClickTask t = new ClickTask(player, x, y, clientSeq);
-        // 큐에 원소 추가
-        if ( !queue.offer(t) ) {
+        enqueueClick(player, x, y, clientSeq, clock.millis());
+    }
+
+    // clickedAt: 서버 시계 기준 클릭 시각 (지연 보정 순서에 사용)
+    public void enqueueClick(String player, int x, int y, int clientSeq, long clickedAt) {
+        if ( !precheck(player, x, y, clientSeq) ) return;
+        ClickTask t = taskPool.poll();
+        if ( t == null ) t = new ClickTask();
+        t.set(player, x, y, clientSeq, clickedAt, clock.millis());
+        // 큐에 원소 추가 (게임 루프가 적용을 끝내기 전에 줄이지 않도록 먼저 셈)
+        count(t);
+        boolean accepted = queue.offer(t);
+        ServerEvents.ClickEnqueue event = new ServerEvents.ClickEnqueue();
+        if ( event.isEnabled() ) {
+            event.player = player;
+            event.x = x;
+            event.y = y;
+            event.clientSeq = clientSeq;
+            event.queueDepth = queue.size();
+            event.accepted = accepted;
+            event.commit();
+        }
+        if ( !accepted ) {
+            release(t);
+            taskPool.offer(t);
             // 원소 추가 실패시 동작
             InfoDTO rej = new InfoDTO();
             rej.setCommand(Info.CLICK_REJECT);
@@ -196,15 +958,121 @@ public class ChatServer {
         }
     }
 
+    // 클릭 사전 검사. 통과하면 true, 거절했으면 CLICK_REJECT를 보내고 false
+    // 대기 수를 먼저 읽고 칸을 읽음 (대기 수가 0이면 적용된 클릭은 모두 view에 반영된 상태)
+    private boolean precheck(String player, int x, int y, int clientSeq) {
+        BoardView v = view;
+        if ( v == null ) return true;               // 게임 중이 아니면 게임 루프가 판정
+        int code;
+        if ( x < 0 || y < 0 || x >= v.W || y >= v.H ) {
+            code = GameEngine.OUT_OF_BOUNDS;
+        } else if ( LAG_COMP_MILLIS == 0 && v.pending.get() == 0 && v.cells[y * v.W + x] != CellColor.GRAY ) {
+            code = GameEngine.NOT_GRAY;
+        } else {
+            return true;
+        }
+        prechecked.increment();
+        InfoDTO rej = new InfoDTO();
+        rej.setCommand(Info.CLICK_REJECT);
+        rej.setClientSeq(clientSeq);
+        rej.setReason(GameEngine.reason(code));
+        sendTo(player, rej);
+        return false;
+    }
+
+    // 적용된 클릭을 view에 반영 (게임 루프). 바뀐 칸은 회색이 되고, 보드를 새로 깔았으면 통째로 복사
+    private void publish(int[] changed, int n, boolean regenerated) {
+        BoardView v = view;
+        if ( v == null ) return;
+        if ( regenerated ) {
+            v.copyFrom(engine.getBoard());
+        } else {
+            for ( int i = 0; i < n; i++ ) {
+                v.cells[Coord.unpackY(changed[i]) * v.W + Coord.unpackX(changed[i])] = CellColor.GRAY;
+            }
+        }
+    }
+
+    // 사전 검사를 통과해 큐에 넣는 클릭은 모두 대기 수에 셈 (회색이 아닌 칸이라도 앞선 클릭 뒤에는 성공할 수 있음)
+    private void count(ClickTask t) {
+        BoardView v = view;
+        if ( v == null ) return;
+        v.pending.incrementAndGet();
+        t.counted = v;
+    }
+
+    // 적용이 끝났거나 버린 클릭의 대기 수 내림 (적용 결과를 view에 반영한 뒤에)
+    private static void release(ClickTask t) {
+        BoardView v = t.counted;
+        if ( v == null ) return;
+        v.pending.decrementAndGet();
+        t.counted = null;
+    }
+
     // 블로킹 큐 순서대로 처리
     private synchronized void handleClick(ClickTask t) {
-        // 클릭을 서버에서 처리할 때 서버seq 증가
-        long sSeq = ++serverSeq;
+        traceDequeue(t, 1);
+        try {
+            applyClick(t);
+        } finally {
+            release(t);
+            taskPool.offer(t);      // 처리 끝난 작업 재사용
+        }
+    }
+
+    // 큐에서 꺼낸 클릭의 대기 시간 기록 (JFR)
+    private static void traceDequeue(ClickTask t, int batchSize) {
+        ServerEvents.ClickDequeue event = new ServerEvents.ClickDequeue();
+        if ( event.isEnabled() ) {
+            event.player = t.player;
+            event.clientSeq = t.clientSeq;
+            event.queueWait = System.nanoTime() - t.enqueuedNanos;
+            event.batchSize = batchSize;
+            event.commit();
+        }
+    }
+
+    // 엔진은 바뀐 칸을 clickBuf에 바로 씀
+    private void applyClick(ClickTask t) {
+        if ( engine == null ) {     // 판이 끝난 뒤에 처리되는 클릭 (GAME_OVER를 받기 전에 누름). 엔진이 없으니 거절만
+            InfoDTO rej = new InfoDTO();
+            rej.setCommand(Info.CLICK_REJECT);
+            rej.setClientSeq(t.clientSeq);
+            rej.setReason("게임 중이 아님");
+            sendTo(t.player, rej);
+            return;
+        }
+        ServerEvents.ClickProcess event = new ServerEvents.ClickProcess();
+        event.begin();
+        int gen = engine.getGeneration();
+        int n = engine.tryClickInto(t.x, t.y, clickBuf);
+        boolean regenerated = engine.getGeneration() != gen;
+        commitClick(t, n, clickBuf, regenerated);
+        if ( event.shouldCommit() ) {
+            event.player = t.player;
+            event.clientSeq = t.clientSeq;
+            event.changed = n;
+            event.regenerated = regenerated;
+            event.commit();
+        }
+    }
+
+    // 엔진에 적용된 클릭 결과를 이벤트로. 이벤트에는 buf 복사본 하나를 CLICK_OK와 BOARD_DIFF가 같이 씀
+    // regenerated: 이 클릭 뒤에 엔진이 보드를 새로 깔았음
+    private void commitClick(ClickTask t, int n, int[] buf, boolean regenerated) {
+        if ( n > 0 ) {
+            publish(buf, n, regenerated);
+            if ( regenerated ) {
+                replaceCheckpointBoard();
+            } else {
+                noteCleared(buf, n);
+            }
+            // 판이 바뀌는 클릭만 서버seq 증가 (클라이언트가 방송 seq 누락을 감지할 수 있도록)
+            long sSeq = ++serverSeq;
+            int[] changed = Arrays.copyOf(buf, n);
 
-        ClickResult res = engine.tryClick(t.x, t.y);
-        if ( res.success ) {
             // 요청 성공 시, 점수 누적
-            int newScore = scores.getOrDefault(t.player, 0) + res.changed.size();
+            int newScore = scores.getOrDefault(t.player, 0) + n;
             scores.put(t.player, newScore);
 
             // 클릭이 성공했다고 seq넘버와 함께 클릭한 플레이어에게 전송
@@ -213,16 +1081,16 @@ public class ChatServer {
             ok.setCommand(Info.CLICK_OK);
             ok.setClientSeq(t.clientSeq);
             ok.setServerSeq(sSeq);
-            ok.setDiff(res.changed);
-            ok.setScore(res.changed.size());
+            ok.setPackedDiff(changed);
+            ok.setScore(n);
             sendTo(t.player, ok);
 
             // 판이 바뀌었으므로, 모든 플레이어에게 보드 변경 방송
             InfoDTO diff = new InfoDTO();
             diff.setCommand(Info.BOARD_DIFF);
             diff.setServerSeq(sSeq);
-            diff.setDiff(res.changed);
-            broadcast(diff);
+            diff.setPackedDiff(changed);
+            broadcastEvent(diff);
 
             // 순위표에서 표시할 플레이어별 점수 클라이언트에게 전송
             InfoDTO up = new InfoDTO();
@@ -230,23 +1098,20 @@ public class ChatServer {
             up.setServerSeq(sSeq);
             up.setPlayer(t.player);
             up.setScore(newScore);
-            broadcast(up);
-
-            // 클릭 불가능한 상황엔, 보드 재생성 및 스냅샷 재전송
-            if ( !engine.hasAnyClick() ) {
-                engine.regenerateBoard();
-                InfoDTO snap = new InfoDTO();
-                snap.setCommand(Info.BOARD_SNAPSHOT);
-                snap.setServerSeq(++serverSeq);
-                snap.setBoard(copyBoard(engine.getBoard()));
-                broadcast(snap);
+            broadcastEvent(up);
+
+            // 클릭 불가능해서 엔진이 보드를 새로 깔았으면 재생성 알림 (시드 모드가 아닌 클라이언트는 스냅샷)
+            if ( regenerated ) {
+                boards.regenerated(engine);
+                boards.prepareNext(engine);
+                broadcastEvent(regenEvent());
             }
         } else {    // 클릭 요청 실패시
             InfoDTO rej = new InfoDTO();
             rej.setCommand(Info.CLICK_REJECT);
             rej.setClientSeq(t.clientSeq);
-            rej.setServerSeq(sSeq);
-            rej.setReason(res.reason);
+            rej.setServerSeq(serverSeq);     // 거절은 판을 바꾸지 않으므로 현재 seq 그대로
+            rej.setReason(GameEngine.reason(n));
             sendTo(t.player, rej);
         }
     }
@@ -255,6 +1120,18 @@ public class ChatServer {
     private synchronized void endGame() {
         if ( !running ) return;
         running = false;
+        log(ServerLog.Level.INFO, "게임 종료, 참가자", scores.size(), null);
+        log(ServerLog.Level.INFO, "판 종료 지표", boards.summary(), null);
+        log(ServerLog.Level.INFO, "사전 검사로 거절한 클릭", prechecked.sumThenReset(), null);
+        liveMatch = 0;
+        matchSeed = null;
+        startEvent = null;
+
+        // 봇 주기 정지
+        for ( ScheduledFuture<?> f : botTicks ) {
+            f.cancel(false);
+        }
+        botTicks.clear();
 
         // 결과 집계
         List<PlayerScore> results = new ArrayList<>();
@@ -268,12 +1145,31 @@ public class ChatServer {
         over.setCommand(Info.GAME_OVER);
         over.setResults(results);       // 점수 내림차순으로 정렬된 이름과 스코어 전송
         over.setServerSeq(++serverSeq);
-        broadcast(over);
+        broadcastEvent(over);
+
+        // 누적 순위 반영 (파일 쓰기는 순위 저장소 스레드가 따로)
+        Map<String,Integer> humans = new HashMap<>(scores);
+        for ( BotPlayer b : bots ) {
+            humans.remove(b.getNickname());
+        }
+        rankings.record(humans, clock.millis());
 
         // 종료 후 초기화
         engine = null;
+        view = null;
+        recent = null;
+        checkpointedSeq = -1L;
+        replaceCheckpointBoard();
+        if ( checkpoints != null ) {
+            checkpointer.execute(checkpoints::clear);      // 앞서 맡긴 저장보다 뒤에 실행됨
+        }
         endsAtMillis = 0L;
-        queue.clear();
+        List<ClickTask> left = new ArrayList<>();
+        queue.drainTo(left);        // 처리 못 한 클릭은 버림
+        for ( ClickTask t : left ) {
+            release(t);
+            taskPool.offer(t);
+        }
         serverSeq = 0L;      // 시퀀스 리셋
         scores.clear();      // 점수 초기화
 
@@ -286,7 +1182,17 @@ public class ChatServer {
     }
 
 
+    // 사용법: ChatServer [포트] [라우터호스트:제어포트]
+    // 라우터를 지정하면 그 라우터에 백엔드로 등록하고 부하를 보고함
     public static void main(String[] args) {
-        new ChatServer();
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : PORT;
+        ChatServer server = new ChatServer(port);
+        if ( args.length > 1 ) {
+            String[] hp = args[1].split(":");
+            String advertiseHost = System.getProperty("serverclient.advertiseHost", "127.0.0.1");
+            new BackendReporter(server, hp[0], Integer.parseInt(hp[1]), advertiseHost).start();
+        }
+        server.serve();
+        System.exit(1);         // serve()는 접속 대기가 실패했을 때만 반환 (포트나 유닉스 소켓을 이미 다른 서버가 씀 등)
     }
 }
@@ -0,0 +1,94 @@
+package com.serverclient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// 체크포인트 파일 (메모리 매핑)
+// 슬롯 두 개를 번갈아 쓰고, 각 슬롯에 [매직][세대][길이][CRC][본문]을 남김
+// 쓰는 도중 죽어도 다른 슬롯이 온전하므로, 읽을 때는 CRC가 맞는 슬롯 중 세대가 큰 쪽을 고름
+// save()/clear()는 체크포인트 전용 스레드에서만 부름 (map.force가 디스크를 기다리는 동안 다른 일을 막지 않도록)
+public class CheckpointStore {
+    private static final int MAGIC = 0x434B5054;        // "CKPT"
+    private static final int HEADER = 4 + 8 + 4 + 8;
+    private static final int SLOT_SIZE = 1 << 20;       // 슬롯당 1MB
+
+    private final MappedByteBuffer map;
+    private long generation;
+
+    public CheckpointStore(Path file) throws IOException {
+        try ( FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE) ) {
+            this.map = ch.map(FileChannel.MapMode.READ_WRITE, 0, 2L * SLOT_SIZE);
+        }
+        this.generation = Math.max(generationAt(0), generationAt(1));
+    }
+
+    // 다음 슬롯에 저장. 본문이 슬롯보다 크면 저장하지 않고 false
+    public boolean save(MatchCheckpoint cp) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try ( ObjectOutputStream oos = new ObjectOutputStream(bos) ) {
+            oos.writeObject(cp);
+        }
+        byte[] body = bos.toByteArray();
+        if ( HEADER + body.length > SLOT_SIZE ) return false;
+
+        long gen = generation + 1;
+        int base = (int) (gen % 2) * SLOT_SIZE;
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        map.putInt(base, 0);                    // 쓰는 동안은 무효 표시
+        map.put(base + HEADER, body);
+        map.putLong(base + 4, gen);
+        map.putInt(base + 12, body.length);
+        map.putLong(base + 16, crc.getValue());
+        map.putInt(base, MAGIC);
+        map.force();
+        generation = gen;
+        return true;
+    }
+
+    // 가장 최근의 온전한 체크포인트 (없으면 null)
+    public MatchCheckpoint load() {
+        int first = (generationAt(0) >= generationAt(1)) ? 0 : 1;
+        MatchCheckpoint cp = read(first);
+        return (cp != null) ? cp : read(1 - first);
+    }
+
+    // 판이 끝나면 두 슬롯 모두 무효화 (재시작 때 끝난 판을 되살리지 않도록)
+    public void clear() {
+        map.putInt(0, 0);
+        map.putInt(SLOT_SIZE, 0);
+        map.force();
+    }
+
+    private long generationAt(int slot) {
+        int base = slot * SLOT_SIZE;
+        return (map.getInt(base) == MAGIC) ? map.getLong(base + 4) : -1L;
+    }
+
+    private MatchCheckpoint read(int slot) {
+        int base = slot * SLOT_SIZE;
+        if ( map.getInt(base) != MAGIC ) return null;
+        int len = map.getInt(base + 12);
+        if ( len <= 0 || HEADER + len > SLOT_SIZE ) return null;
+        byte[] body = new byte[len];
+        map.get(base + HEADER, body);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if ( crc.getValue() != map.getLong(base + 16) ) return null;
+        try ( ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(body)) ) {
+            return (MatchCheckpoint) ois.readObject();
+        } catch ( IOException | ClassNotFoundException e ) {
+            return null;
+        }
+    }
+}
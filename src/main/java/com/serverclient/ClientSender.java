@@ -0,0 +1,160 @@
+package com.serverclient;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// 클라이언트 송신 전용 스레드
+// UI 스레드/수신 스레드는 send()로 큐에 넣고 바로 돌아감. 소켓 쓰기와 flush는 이 스레드만 함 (네트워크가 멈춰도 UI는 안 멈춤)
+// 쌓인 메시지는 한 번에 꺼내서 쓰고 flush는 한 번만. 그중 연달아 있는 CLICK_REQ는 CLICK_BATCH 하나로 묶음
+// (서버 쪽은 묶음 안의 클릭을 순서대로 CLICK_REQ처럼 처리)
+// 압축 문맥도 여기서 관리 (wrap은 이 스레드에서만)
+public class ClientSender extends Thread {
+    private static final int MAX_CLICK_BATCH = 32;          // CLICK_BATCH 하나에 넣는 최대 클릭 수
+
+    // 큐에 넣을 때의 연결 세대를 같이 넣음. 큐에서 꺼낸 뒤 쓰기 전에 연결이 바뀌었으면 그 메시지는 버림
+    private static class Outgoing {
+        final int generation;
+        final InfoDTO dto;
+        Outgoing(int generation, InfoDTO dto) {
+            this.generation = generation;
+            this.dto = dto;
+        }
+    }
+
+    private final BlockingQueue<Outgoing> queue = new LinkedBlockingQueue<>();
+    private final Object streamLock = new Object();         // 쓰는 중에는 연결 교체 안 되게
+    private ObjectOutputStream writer;                      // streamLock 아래에서만 바꿈
+    private volatile int generation = 0;                    // connect()마다 하나씩 증가 (streamLock 아래에서)
+    private StreamCompression compression;                  // 서버가 SESSION으로 수락하면 생김. 연결 교체 시 버림
+    private volatile boolean finishing = false;             // 남은 걸 다 보내고 소켓을 닫기
+    private volatile Runnable onFinish;
+
+    // 통계
+    private volatile long batches = 0, messages = 0, clickBatches = 0, batchedClicks = 0;
+
+    public ClientSender() {
+        super("클라이언트 송신");
+        setDaemon(true);
+    }
+
+    // 새 연결로 교체. 예전 연결로 보내려고 쌓여 있던 것과 압축 문맥은 버림 (재접속 후에는 RESUME부터 다시)
+    // 송신 스레드가 이미 꺼내 간 묶음은 세대가 달라서 write()에서 버려짐
+    public void connect(OutputStream out) throws IOException {
+        ObjectOutputStream next = new ObjectOutputStream(out);
+        synchronized (streamLock) {
+            generation++;
+            queue.clear();
+            dropCompression();
+            writer = next;
+        }
+    }
+
+    // 보낼 메시지를 큐에 넣고 바로 반환. 넘긴 dto는 이후에 바꾸지 말 것
+    public void send(InfoDTO dto) {
+        if ( finishing ) return;
+        queue.add(new Outgoing(generation, dto));
+    }
+
+    // SESSION에 압축 방식이 있으면 그때부터 사용. 이 연결에서 이미 쓰고 있으면 그대로
+    public void startCompression(String mode) {
+        synchronized (streamLock) {
+            if ( compression == null && StreamCompression.MODE.equals(mode) ) {
+                compression = new StreamCompression();
+            }
+        }
+    }
+
+    // 남은 메시지(EXIT 등)를 보낸 뒤 onFinish(소켓 닫기)를 이 스레드에서 실행
+    public void finish(Runnable onFinish) {
+        this.onFinish = onFinish;
+        finishing = true;
+        interrupt();                // 큐가 비어서 기다리는 중이면 깨움
+    }
+
+    public String summary() {
+        return String.format("송신 %d회 flush, 메시지 %d건, 클릭 묶음 %d건 (클릭 %d개)",
+                batches, messages, clickBatches, batchedClicks);
+    }
+
+    @Override
+    public void run() {
+        List<Outgoing> batch = new ArrayList<>();
+        while ( true ) {
+            batch.clear();
+            try {
+                if ( !finishing ) {
+                    batch.add(queue.take());
+                }
+            } catch (InterruptedException e) {
+                // finish()가 깨움
+            }
+            queue.drainTo(batch);
+            if ( !batch.isEmpty() ) {
+                write(batch);
+            }
+            if ( finishing && queue.isEmpty() ) break;
+        }
+        synchronized (streamLock) {
+            dropCompression();
+        }
+        ServerLog.log(ServerLog.Level.DEBUG, null, 0, "클라이언트 송신 종료:", summary(), null);
+        Runnable r = onFinish;
+        if ( r != null ) r.run();
+    }
+
+    // 쌓인 것을 쓰고 flush 한 번. 쓰기에 실패하면 이번 묶음은 버림 (수신 스레드가 끊김을 알아채고 재접속)
+    // 꺼낸 뒤에 연결이 바뀌었으면 예전 연결 몫은 새 연결에 쓰지 않음 (RESUME보다 먼저 나가면 안 됨)
+    private void write(List<Outgoing> queued) {
+        synchronized (streamLock) {
+            List<InfoDTO> batch = new ArrayList<>(queued.size());
+            for ( Outgoing o : queued ) {
+                if ( o.generation == generation ) batch.add(o.dto);
+            }
+            if ( batch.isEmpty() ) return;
+            try {
+                for ( int i = 0; i < batch.size(); i++ ) {
+                    InfoDTO dto = batch.get(i);
+                    if ( dto.getCommand() == Info.CLICK_REQ ) {
+                        int end = i + 1;
+                        while ( end < batch.size() && end - i < MAX_CLICK_BATCH && batch.get(end).getCommand() == Info.CLICK_REQ ) {
+                            end++;
+                        }
+                        if ( end - i > 1 ) {
+                            InfoDTO clicks = new InfoDTO();
+                            clicks.setCommand(Info.CLICK_BATCH);
+                            clicks.setEvents(new ArrayList<>(batch.subList(i, end)));
+                            clickBatches++;
+                            batchedClicks += end - i;
+                            dto = clicks;
+                            i = end - 1;
+                        }
+                    } else if ( dto.getCommand() == Info.PONG ) {
+                        dto.setClientSendAt(System.currentTimeMillis());    // 큐에서 기다린 시간은 시계 추정에서 빠지게
+                    }
+                    writer.writeObject(compression != null ? compression.wrap(dto) : dto);
+                    messages++;
+                }
+                writer.flush();
+                batches++;
+            } catch (IOException e) {
+                if ( !finishing ) {
+                    ServerLog.log(ServerLog.Level.DEBUG, null, 0, "송신 실패, 이번 묶음 버림:", e.getMessage(), null);
+                }
+            }
+        }
+    }
+
+    // 예전 압축 문맥을 버림 (통계는 DEBUG 로그). streamLock 아래에서 부를 것
+    private void dropCompression() {
+        if ( compression != null ) {
+            ServerLog.log(ServerLog.Level.DEBUG, null, 0, "송신 압축:", compression.summary(), null);
+            compression.close();
+            compression = null;
+        }
+    }
+}
@@ -9,4 +9,18 @@ public class Coord implements Serializable {
         this.x = x;
         this.y = y;
     }
+
+    // 좌표 하나를 int 하나로 (상위 16비트 x, 하위 16비트 y). 클릭 결과 버퍼/패킷에서 객체 없이 쓰기 위함
+    // 빅엔디언으로 쓰면 [x short][y short]와 같은 바이트
+    public static int pack(int x, int y) {
+        return (x << 16) | (y & 0xFFFF);
+    }
+
+    public static int unpackX(int packed) {
+        return packed >> 16;
+    }
+
+    public static int unpackY(int packed) {
+        return (short) packed;
+    }
 }
@@ -0,0 +1,211 @@
+package com.serverclient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+// 선택적 UDP 게임 채널 (클라이언트쪽)
+// - HELLO(세션 토큰)를 ACK 받을 때까지 반복. ACK 전에는 isReady()가 false라 클릭은 TCP로 감
+// - CLICK_REQ는 응답이 올 때까지 RTO마다 재전송 (서버는 같은 clientSeq에 저장해둔 응답을 다시 보냄)
+// - BOARD_DIFF의 "이전 DIFF seq"를 받은 적이 없으면 NACK로 그 하나만 재요청. 끝내 못 받으면 onGiveUp (TCP 스냅샷 재동기화)
+// - TCP 스냅샷보다 오래된 DIFF는 버리고, 스냅샷 뒤에 먼저 도착해 있던 DIFF는 onSnapshot에서 돌려줘서 다시 적용
+// 콜백은 이 스레드에서 불리므로 UI 반영은 호출자가 Platform.runLater로 넘길 것
+public class DatagramClient extends Thread {
+    private static final long RTO_MILLIS = 150;
+    private static final int MAX_TRIES = 5;
+    private static final int KEEP_DIFFS = 256;
+
+    private final DatagramChannel channel;
+    private final Selector selector;
+    private final Random lossRng = new Random();
+
+    private final Consumer<InfoDTO> onReply;
+    private final Consumer<List<Coord>> onDiff;
+    private final Runnable onGiveUp;
+
+    private volatile String token;
+    private volatile boolean ready = false;
+    private long lastHelloAt = 0L;
+
+    // 응답 대기 중인 클릭 (clientSeq -> 재전송 상태)
+    private static class Pending {
+        final ByteBuffer packet;
+        long sentAt;
+        int tries = 1;
+        Pending(ByteBuffer packet, long sentAt) {
+            this.packet = packet;
+            this.sentAt = sentAt;
+        }
+    }
+    private final Map<Integer, Pending> unacked = new LinkedHashMap<>();
+    private final Map<Long, Pending> missing = new LinkedHashMap<>();       // NACK 보낸 DIFF seq
+
+    private final TreeMap<Long, List<Coord>> recentDiffs = new TreeMap<>();  // 받은 DIFF (스냅샷 뒤 재적용/누락 판단용)
+    private long snapshotSeq = -1L;
+
+    public DatagramClient(String host, int port, Consumer<InfoDTO> onReply,
+                          Consumer<List<Coord>> onDiff, Runnable onGiveUp) throws IOException {
+        super("UDP 게임 채널");
+        this.channel = DatagramChannel.open();
+        this.channel.connect(new InetSocketAddress(host, port));
+        this.channel.configureBlocking(false);
+        this.selector = Selector.open();
+        this.channel.register(selector, SelectionKey.OP_READ);
+        this.onReply = onReply;
+        this.onDiff = onDiff;
+        this.onGiveUp = onGiveUp;
+        setDaemon(true);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // 세션 토큰이 (재)발급되면 다시 HELLO
+    public synchronized void bind(String token) {
+        this.token = token;
+        this.ready = false;
+        this.lastHelloAt = 0L;
+        selector.wakeup();
+    }
+
+    public synchronized void sendClick(int clientSeq, int x, int y) {
+        ByteBuffer p = DatagramCodec.clickReq(clientSeq, x, y, System.currentTimeMillis());
+        unacked.put(clientSeq, new Pending(p, System.currentTimeMillis()));
+        send(p);
+    }
+
+    // 새 판 시작: 순서 상태 초기화
+    public synchronized void reset() {
+        recentDiffs.clear();
+        missing.clear();
+        snapshotSeq = -1L;
+    }
+
+    // TCP로 seq 스냅샷이 적용됨. 그보다 새 DIFF가 이미 와 있었다면 다시 적용할 목록을 돌려줌
+    public synchronized List<List<Coord>> onSnapshot(long seq) {
+        snapshotSeq = seq;
+        missing.keySet().removeIf(s -> s <= seq);
+        return new ArrayList<>(recentDiffs.tailMap(seq, false).values());
+    }
+
+    @Override
+    public void run() {
+        ByteBuffer buf = ByteBuffer.allocate(DatagramCodec.MAX_PACKET);
+        while ( channel.isOpen() ) {
+            try {
+                selector.select(RTO_MILLIS / 2);
+                selector.selectedKeys().clear();
+                buf.clear();
+                while ( channel.receive(buf) != null ) {
+                    buf.flip();
+                    if ( buf.hasRemaining() ) handle(buf);
+                    buf.clear();
+                }
+            } catch ( PortUnreachableException e ) {
+                // 서버 UDP가 아직 안 떠 있음. HELLO 재전송으로 계속 시도
+            } catch ( IOException e ) {
+                if ( channel.isOpen() ) e.printStackTrace();
+                return;
+            } catch ( RuntimeException e ) {        // 깨진 패킷은 무시
+                System.out.println("잘못된 UDP 패킷: " + e);
+            }
+            retransmit(System.currentTimeMillis());
+        }
+    }
+
+    // 받은 패킷 하나 처리 (수신 스레드, 테스트는 직접 부름)
+    void handle(ByteBuffer b) {
+        byte type = b.get();
+        if ( type == DatagramCodec.HELLO_ACK ) {
+            ready = true;
+        } else if ( type == DatagramCodec.CLICK_OK || type == DatagramCodec.CLICK_REJ ) {
+            InfoDTO reply = DatagramCodec.decodeReply(type, b);
+            synchronized ( this ) {
+                if ( unacked.remove(reply.getClientSeq()) == null ) return;     // 중복 응답
+            }
+            onReply.accept(reply);
+        } else if ( type == DatagramCodec.DIFF ) {
+            long seq = b.getLong();
+            long prev = b.getLong();
+            List<Coord> diff = DatagramCodec.getCoords(b);
+            synchronized ( this ) {
+                if ( seq <= snapshotSeq || recentDiffs.containsKey(seq) ) return;  // 지난 판 상태이거나 중복
+                recentDiffs.put(seq, diff);
+                if ( recentDiffs.size() > KEEP_DIFFS ) recentDiffs.pollFirstEntry();
+                missing.remove(seq);
+                // 직전 DIFF를 못 받았으면 그것만 재요청 (재전송분은 prev가 -1)
+                if ( prev > snapshotSeq && !recentDiffs.containsKey(prev) && !missing.containsKey(prev) ) {
+                    ByteBuffer p = DatagramCodec.nack(prev);
+                    missing.put(prev, new Pending(p, System.currentTimeMillis()));
+                    send(p);
+                }
+            }
+            onDiff.accept(diff);
+        }
+    }
+
+    // 응답 없는 HELLO/클릭/NACK 재전송, 끝내 못 받은 DIFF는 포기 (수신 스레드, 테스트는 시각을 정해서 부름)
+    void retransmit(long now) {
+        boolean giveUp = false;
+        synchronized ( this ) {
+            if ( !ready && token != null && now - lastHelloAt >= RTO_MILLIS ) {
+                lastHelloAt = now;
+                send(DatagramCodec.hello(token));
+            }
+            for ( Iterator<Pending> it = unacked.values().iterator(); it.hasNext(); ) {
+                Pending p = it.next();
+                if ( now - p.sentAt < RTO_MILLIS ) continue;
+                if ( p.tries >= MAX_TRIES ) {       // 응답 포기. 보드 상태는 BOARD_DIFF/스냅샷으로 맞춰짐
+                    it.remove();
+                    continue;
+                }
+                p.tries++;
+                p.sentAt = now;
+                send(p.packet);
+            }
+            for ( Iterator<Pending> it = missing.values().iterator(); it.hasNext(); ) {
+                Pending p = it.next();
+                if ( now - p.sentAt < RTO_MILLIS ) continue;
+                if ( p.tries >= MAX_TRIES ) {       // 서버 버퍼에서 밀려났을 수 있음. TCP로 재동기화
+                    it.remove();
+                    giveUp = true;
+                    continue;
+                }
+                p.tries++;
+                p.sentAt = now;
+                send(p.packet);
+            }
+        }
+        if ( giveUp ) onGiveUp.run();
+    }
+
+    private void send(ByteBuffer packet) {
+        if ( DatagramServer.LOSS > 0 && lossRng.nextDouble() < DatagramServer.LOSS ) return;
+        try {
+            channel.write(packet.duplicate());
+        } catch ( IOException e ) {
+            // 연결형 UDP에서 상대가 아직 없으면 ICMP 오류가 올 수 있음. 재전송으로 처리
+        }
+    }
+
+    public void close() {
+        try {
+            channel.close();
+            selector.close();
+        } catch ( IOException ignored ) {
+        }
+    }
+}
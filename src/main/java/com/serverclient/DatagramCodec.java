@@ -0,0 +1,142 @@
+package com.serverclient;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// UDP 게임 이벤트용 바이너리 형식. 자바 직렬화 없이 필요한 필드만 담음
+//   HELLO      [1][토큰 UTF]                         클라 -> 서버, UDP 주소를 세션에 연결
+//   HELLO_ACK  [2]                                  서버 -> 클라
+//   CLICK_REQ  [3][clientSeq int][x short][y short][클릭 시각 long] 클라 -> 서버 (시각은 클라이언트 벽시계)
+//   CLICK_OK   [4][clientSeq int][serverSeq long][score int][좌표들]
+//   CLICK_REJ  [5][clientSeq int][serverSeq long][사유 UTF]
+//   DIFF       [6][serverSeq long][이전 DIFF seq long][좌표들]   이전 seq가 -1이면 검사하지 않음(재전송분)
+//   NACK       [7][serverSeq long]                  클라 -> 서버, 빠진 DIFF 한 개 재요청
+// 좌표들 = [개수 byte]([x short][y short])*
+final class DatagramCodec {
+    static final byte HELLO = 1, HELLO_ACK = 2, CLICK_REQ = 3, CLICK_OK = 4, CLICK_REJ = 5, DIFF = 6, NACK = 7;
+    static final int MAX_PACKET = 512;
+
+    private DatagramCodec() {}
+
+    // UDP로 보낼 수 있는 서버 이벤트인지
+    static boolean carries(Info command) {
+        return command == Info.CLICK_OK || command == Info.CLICK_REJECT || command == Info.BOARD_DIFF;
+    }
+
+    static ByteBuffer hello(String token) {
+        ByteBuffer b = ByteBuffer.allocate(MAX_PACKET);
+        b.put(HELLO);
+        putString(b, token);
+        return b.flip();
+    }
+
+    static ByteBuffer helloAck() {
+        return ByteBuffer.allocate(1).put(HELLO_ACK).flip();
+    }
+
+    static ByteBuffer clickReq(int clientSeq, int x, int y, long clickAt) {
+        return ByteBuffer.allocate(17).put(CLICK_REQ).putInt(clientSeq).putShort((short) x).putShort((short) y)
+                .putLong(clickAt).flip();
+    }
+
+    static ByteBuffer nack(long serverSeq) {
+        return ByteBuffer.allocate(9).put(NACK).putLong(serverSeq).flip();
+    }
+
+    // CLICK_OK / CLICK_REJECT / BOARD_DIFF 인코딩. DIFF의 prevSeq는 호출자가 지정
+    static ByteBuffer event(InfoDTO dto, long prevSeq) {
+        return encode(ByteBuffer.allocate(MAX_PACKET), dto, prevSeq);
+    }
+
+    // event와 같지만 호출자 버퍼(MAX_PACKET 이상)에 씀. 버퍼를 비우고 쓴 뒤 flip해서 반환
+    static ByteBuffer encode(ByteBuffer b, InfoDTO dto, long prevSeq) {
+        b.clear();
+        if ( dto.getCommand() == Info.CLICK_OK ) {
+            b.put(CLICK_OK).putInt(dto.getClientSeq()).putLong(dto.getServerSeq()).putInt(dto.getScore());
+            putCoords(b, dto);
+        } else if ( dto.getCommand() == Info.CLICK_REJECT ) {
+            long seq = (dto.getServerSeq() != null) ? dto.getServerSeq() : -1L;     // 큐 포화 거절은 seq 없음
+            b.put(CLICK_REJ).putInt(dto.getClientSeq()).putLong(seq);
+            putString(b, dto.getReason());
+        } else {
+            int[] packed = dto.getPackedDiff();
+            if ( packed != null ) {
+                return encodeDiff(b, dto.getServerSeq(), prevSeq, packed, packed.length);
+            }
+            b.put(DIFF).putLong(dto.getServerSeq()).putLong(prevSeq);
+            putCoords(b, dto);
+        }
+        return b.flip();
+    }
+
+    // 엔진 결과 버퍼(Coord.pack)에서 바로 DIFF 패킷으로. 객체를 거치지 않음
+    static ByteBuffer encodeDiff(ByteBuffer b, long serverSeq, long prevSeq, int[] packed, int n) {
+        b.clear();
+        b.put(DIFF).putLong(serverSeq).putLong(prevSeq).put((byte) n);
+        for ( int i = 0; i < n; i++ ) {
+            b.putInt(packed[i]);
+        }
+        return b.flip();
+    }
+
+    // 클릭 응답 디코딩 (CLICK_OK/REJ). DIFF는 이전 seq가 필요해서 받는 쪽에서 직접 읽음
+    static InfoDTO decodeReply(byte type, ByteBuffer b) {
+        InfoDTO dto = new InfoDTO();
+        if ( type == CLICK_OK ) {
+            dto.setCommand(Info.CLICK_OK);
+            dto.setClientSeq(b.getInt());
+            dto.setServerSeq(b.getLong());
+            dto.setScore(b.getInt());
+            dto.setDiff(getCoords(b));
+        } else if ( type == CLICK_REJ ) {
+            dto.setCommand(Info.CLICK_REJECT);
+            dto.setClientSeq(b.getInt());
+            dto.setServerSeq(b.getLong());
+            dto.setReason(getString(b));
+        } else {
+            return null;
+        }
+        return dto;
+    }
+
+    static void putString(ByteBuffer b, String s) {
+        byte[] bytes = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+        int len = Math.min(bytes.length, b.remaining() - 2);
+        b.putShort((short) len).put(bytes, 0, len);
+    }
+
+    static String getString(ByteBuffer b) {
+        byte[] bytes = new byte[b.getShort()];
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // 서버 이벤트는 packedDiff가 있으므로 그대로 int로 씀 (Coord.pack = [x short][y short])
+    private static void putCoords(ByteBuffer b, InfoDTO dto) {
+        int[] packed = dto.getPackedDiff();
+        if ( packed != null ) {
+            b.put((byte) packed.length);
+            for ( int p : packed ) {
+                b.putInt(p);
+            }
+            return;
+        }
+        List<Coord> coords = dto.getDiff();
+        int n = (coords == null) ? 0 : coords.size();
+        b.put((byte) n);
+        for ( int i = 0; i < n; i++ ) {
+            b.putShort((short) coords.get(i).x).putShort((short) coords.get(i).y);
+        }
+    }
+
+    static List<Coord> getCoords(ByteBuffer b) {
+        int n = b.get();
+        List<Coord> out = new ArrayList<>(n);
+        for ( int i = 0; i < n; i++ ) {
+            out.add(new Coord(b.getShort(), b.getShort()));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,81 @@
+package com.serverclient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 선택적 UDP 게임 채널 (서버쪽)
+// CLICK_REQ를 받고 CLICK_OK/CLICK_REJECT/BOARD_DIFF를 보냄. 로비/채팅/스냅샷은 계속 TCP
+// 클라이언트가 HELLO로 세션 토큰을 보내면 그 주소를 해당 ChatHandler에 연결하고, 이후 위 이벤트는 ChatHandler.send()에서 UDP로 빠짐
+// serverclient.udpLoss(0~1)를 주면 보내는 패킷을 그 확률로 버려서 손실 상황을 흉내냄
+public class DatagramServer extends Thread {
+    static final double LOSS = Double.parseDouble(System.getProperty("serverclient.udpLoss", "0"));
+
+    private final ChatServer server;
+    private final DatagramChannel channel;
+    private final Map<SocketAddress, ChatHandler> byAddress = new ConcurrentHashMap<>();
+    private final Random lossRng = new Random();
+
+    public DatagramServer(ChatServer server, int port) throws IOException {
+        super("UDP 수신");
+        this.server = server;
+        this.channel = DatagramChannel.open().bind(new InetSocketAddress(port));
+        setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+        ByteBuffer buf = ByteBuffer.allocate(DatagramCodec.MAX_PACKET);
+        while ( channel.isOpen() ) {
+            try {
+                buf.clear();
+                SocketAddress from = channel.receive(buf);
+                buf.flip();
+                if ( !buf.hasRemaining() ) continue;
+                byte type = buf.get();
+                if ( type == DatagramCodec.HELLO ) {
+                    ChatHandler h = server.handlerByToken(DatagramCodec.getString(buf));
+                    if ( h == null ) continue;
+                    byAddress.values().remove(h);       // 주소가 바뀐 경우 예전 주소 정리
+                    byAddress.put(from, h);
+                    h.bindUdp(this, from);
+                    send(from, DatagramCodec.helloAck());
+                } else {
+                    ChatHandler h = byAddress.get(from);
+                    if ( h == null ) continue;
+                    if ( type == DatagramCodec.CLICK_REQ ) {
+                        int cs = buf.getInt();
+                        short x = buf.getShort(), y = buf.getShort();
+                        Long clickAt = (buf.remaining() >= 8) ? buf.getLong() : null;
+                        h.onUdpClick(cs, x, y, clickAt);
+                    } else if ( type == DatagramCodec.NACK ) {
+                        server.resendDiff(h, buf.getLong());
+                    }
+                }
+            } catch ( IOException e ) {
+                if ( channel.isOpen() ) ServerLog.error("UDP 수신 실패", e);
+            } catch ( RuntimeException e ) {    // 깨진 패킷은 무시
+                ServerLog.warn("잘못된 UDP 패킷:", e);
+            }
+        }
+    }
+
+    // 여러 스레드(게임 루프 등)에서 불림. DatagramChannel.send는 스레드 안전
+    void send(SocketAddress to, ByteBuffer packet) {
+        if ( LOSS > 0 && lossRng.nextDouble() < LOSS ) return;
+        try {
+            channel.send(packet, to);
+        } catch ( IOException e ) {
+            ServerLog.warn("UDP 전송 실패:", e.getMessage());
+        }
+    }
+
+    void unbind(ChatHandler h) {
+        byAddress.values().remove(h);
+    }
+}
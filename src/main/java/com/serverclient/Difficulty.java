@@ -0,0 +1,19 @@
+package com.serverclient;
+
+import java.io.Serializable;
+
+// 보드 생성 난이도. 무작위로 깔 때 회색 칸이 나올 확률을 정한다.
+// 회색 칸이 적을수록 클릭 후보가 줄어들어 어려워짐
+public enum Difficulty implements Serializable {
+    EASY(0.30), NORMAL(0.20), HARD(0.12);
+
+    private final double grayRatio;
+
+    Difficulty(double grayRatio) {
+        this.grayRatio = grayRatio;
+    }
+
+    public double getGrayRatio() {
+        return grayRatio;
+    }
+}
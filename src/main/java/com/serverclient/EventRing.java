@@ -0,0 +1,57 @@
+package com.serverclient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 한 판 동안의 최근 방송 이벤트를 serverSeq 기준으로 담아두는 고정 크기 링 버퍼
+// 재접속하거나 순번 누락을 감지한 클라이언트에게 빠진 이벤트만 다시 보내기 위함
+// 같은 serverSeq를 가진 이벤트(BOARD_DIFF + SCORE_UPDATE)는 한 칸에 같이 담김
+// 서버 락(ChatServer의 synchronized) 안에서만 사용
+public class EventRing {
+    private final long[] seqs;
+    private final List<List<InfoDTO>> slots;
+
+    public EventRing(int capacity) {
+        this.seqs = new long[capacity];
+        this.slots = new ArrayList<>(capacity);
+        for ( int i = 0; i < capacity; i++ ) {
+            seqs[i] = -1;
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    public void add(InfoDTO dto) {
+        long seq = dto.getServerSeq();
+        int i = (int) (seq % seqs.length);
+        if ( seqs[i] != seq ) {     // 오래된 칸 덮어쓰기
+            seqs[i] = seq;
+            slots.get(i).clear();
+        }
+        slots.get(i).add(dto);
+    }
+
+    // 해당 seq의 이벤트들 (버퍼에서 밀려났으면 null)
+    public List<InfoDTO> get(long seq) {
+        if ( seq < 0 ) return null;
+        int i = (int) (seq % seqs.length);
+        return (seqs[i] == seq) ? slots.get(i) : null;
+    }
+
+    // lastSeq 다음부터 currentSeq까지가 전부 버퍼에 남아있는지
+    public boolean covers(long lastSeq, long currentSeq) {
+        if ( lastSeq < 0 || lastSeq > currentSeq ) return false;
+        for ( long s = lastSeq + 1; s <= currentSeq; s++ ) {
+            if ( seqs[(int) (s % seqs.length)] != s ) return false;
+        }
+        return true;
+    }
+
+    // lastSeq 이후의 이벤트를 순서대로. covers()로 먼저 확인할 것
+    public List<InfoDTO> since(long lastSeq, long currentSeq) {
+        List<InfoDTO> out = new ArrayList<>();
+        for ( long s = lastSeq + 1; s <= currentSeq; s++ ) {
+            out.addAll(slots.get((int) (s % seqs.length)));
+        }
+        return out;
+    }
+}
@@ -22,6 +22,12 @@ public class GameController {
     private int W, H;
     private Timeline timer;     // 1초마다 줄어드는 타이머용
     private long endsAtMillis = 0L;
+    private long clockOffset = 0L;      // 내 시계 - 서버 시계 (서버가 PING으로 알려줌)
+
+    // 시드 모드: 서버와 같은 엔진을 시드로 돌려서 재생성된 보드를 직접 만듦 (BOARD_REGEN)
+    private GameEngine localEngine;
+    private long seed;
+    private Runnable resync;            // 요약값이 서버와 다르면 스냅샷 요청
 
     private Stage myStage;
 
@@ -33,6 +39,22 @@ public class GameController {
         this.clickSender = sender;
     }
 
+    public void setResync(Runnable resync) {
+        this.resync = resync;
+    }
+
+    // START_GAME의 시드로 서버와 같은 첫 보드를 만들어 둠 (init 뒤에 호출)
+    public void startLocalBoard(long seed) {
+        this.seed = seed;
+        this.localEngine = new GameEngine(W, H, seed);
+    }
+
+    // 따라잡기로 받은 진행 중인 판의 시드. 엔진이 없거나 다른 판의 것이면 새로 만듦
+    public void ensureLocalBoard(long seed) {
+        if ( localEngine != null && this.seed == seed ) return;
+        startLocalBoard(seed);
+    }
+
     // 게임 시작용
     public void init(int W, int H, int seconds, Stage stage) {
         this.W = W;
@@ -64,7 +86,7 @@ public class GameController {
         // 1초마다 줄어드는 타임라인으로 타이머 생성
         timer = new Timeline(new KeyFrame(Duration.seconds(1), e -> {
             int remain;
-            long leftMs = endsAtMillis - System.currentTimeMillis();    // 서버가 설정한 종료시간에서, 현재 시간을 빼 남은 시간 결정
+            long leftMs = endsAtMillis - (System.currentTimeMillis() - clockOffset);    // 서버가 설정한 종료시간에서, 현재 서버 시간을 빼 남은 시간 결정
             remain = (int)(leftMs / 1000);      // 밀리초를 초로 변환
             timerLabel.setText("남은 시간 : " + remain);    // 현재 남은 시간 1초마다 갱신
             if ( remain <= 0 ) {
@@ -85,8 +107,38 @@ public class GameController {
     }
 
     // 보드 전체를 서버에서 받아 UI에 갱신하는 메서드
-    public void applySnapshot(CellColor[][] board) {
+    // 세대 번호가 있으면 내 엔진도 그 세대로 맞춤 (이미 지난 세대면 시드로 처음부터 다시 만듦)
+    public void applySnapshot(CellColor[][] board, Integer generation) {
         if ( board == null ) return;
+        if ( localEngine != null && generation != null ) {
+            if ( generation < localEngine.getGeneration() ) {
+                localEngine = new GameEngine(W, H, seed);
+            }
+            localEngine.loadBoard(board, generation);
+        }
+        paint(board);
+    }
+
+    // 서버가 generation번째로 보드를 새로 깔았음. 내 엔진으로 같은 세대까지 재생성하고 요약값이 맞으면 그대로 표시
+    // 엔진이 없거나 요약값이 다르면 스냅샷을 요청
+    public void applyRegen(int generation, long boardHash) {
+        if ( localEngine != null && generation < localEngine.getGeneration() ) {
+            localEngine = new GameEngine(W, H, seed);
+        }
+        if ( localEngine != null ) {
+            while ( localEngine.getGeneration() < generation ) {
+                localEngine.regenerateBoard();
+            }
+            if ( localEngine.boardHash() == boardHash ) {
+                paint(localEngine.getBoard());
+                return;
+            }
+            System.out.println("보드 요약값 불일치 (세대 " + generation + "), 스냅샷 요청");
+        }
+        if ( resync != null ) resync.run();
+    }
+
+    private void paint(CellColor[][] board) {
         for ( int y = 0; y < H; y++ ) {
             for ( int x = 0; x < W; x++ ) {
                 rects[y][x].setFill(map(board[y][x]));
@@ -100,6 +152,7 @@ public class GameController {
         for ( Coord c : diff ) {
             if ( c.y >= 0 && c.y < H && c.x >= 0 && c.x < W ) {
                 rects[c.y][c.x].setFill(map(CellColor.GRAY));
+                if ( localEngine != null ) localEngine.markGray(c.x, c.y);
             }
         }
     }
@@ -109,11 +162,16 @@ public class GameController {
         scoreLabel.setText("Score: " + score);
     }
 
-    // 서버에서 뿌린 종료시간 클라이언트 동기화용
+    // 서버에서 뿌린 종료시간 클라이언트 동기화용 (서버 시계 기준)
     public void syncEndsAt(long endsAtMillis) {
         this.endsAtMillis = endsAtMillis;
     }
 
+    // 서버 시계와의 차이. 종료시간을 내 시계로 비교할 때 보정
+    public void setClockOffset(long clockOffset) {
+        this.clockOffset = clockOffset;
+    }
+
     // 각 색깔 ENUM 에 실제 색 매칭
     private Color map(CellColor c) {
         return switch (c) {
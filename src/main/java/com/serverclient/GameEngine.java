@@ -5,39 +5,282 @@ import java.util.*;
 
 public class GameEngine implements Serializable {
     private int W, H;
-    private Random rng;
+    private StateRandom rng;
     private CellColor[][] board;
 
+    // 행/열별 유색 칸 위치 색인. 회색이 아닌 칸만 비트가 켜져 있음
+    // rowColored[y]의 x번 비트, colColored[x]의 y번 비트
+    // 한 방향으로 처음 만나는 유색 칸을 nextSetBit/previousSetBit로 바로 찾기 위함
+    private BitSet[] rowColored;
+    private BitSet[] colColored;
+
     public CellColor[][] getBoard() {
         return board;
     }
 
+    public int getGeneration() {
+        return generation;
+    }
+
+    // 보드 생성 설정
+    public static final double DEFAULT_MOVE_DENSITY = 0.02;     // 전체 칸 대비 보장할 유효 수 비율
+    private double moveDensity;
+    private Difficulty difficulty;
+
+    // 보드를 새로 깐 횟수
+    private int generation = 0;
+
+    // JFR 이벤트 기록 여부. 탐색용 복사본(copy)은 봇이 수천 번씩 두므로 기록하지 않음
+    private boolean traced = true;
+
+    // 다른 스레드(BoardPool)가 미리 만들어 둔 다음 세대. 막혔을 때 새로 깔지 않고 바꿔 끼움 (체크포인트에는 안 넣음)
+    private transient volatile GameEngine prepared;
+    private transient boolean usedPrepared = false;     // 마지막 재생성이 미리 만든 보드였는지
+
+    // tryClickInto 실패 코드 (성공이면 바뀐 칸 수 1~MAX_CHANGED)
+    public static final int OUT_OF_BOUNDS = -1, NOT_GRAY = -2, NO_MATCH = -3;
+    public static final int MAX_CHANGED = 4;        // 한 번에 바뀌는 칸은 4방향 하나씩이 최대
+
+    // 같은 개수면 이 순서로 사라질 색을 고름
+    private static final CellColor[] PRIORITY = { CellColor.RED, CellColor.BLUE, CellColor.GREEN, CellColor.YELLOW };
+
+    // 동(+1,0), 서(-1,0), 북(0,-1), 남(0,+1) 방향
+    private static final int[] DX = { +1, -1, 0, 0 };
+    private static final int[] DY = { 0, 0, -1, +1 };
+
     public GameEngine(int W, int H, long seed) {
+        this(W, H, seed, DEFAULT_MOVE_DENSITY, Difficulty.NORMAL);
+    }
+
+    public GameEngine(int W, int H, long seed, double moveDensity, Difficulty difficulty) {
+        // 회색 칸 하나와 양옆 유색 칸 두 개가 들어갈 자리가 없으면 유효 수를 만들 수 없음
+        if ( W < 1 || H < 1 || (W < 3 && H < 3 && (W < 2 || H < 2)) ) {
+            throw new IllegalArgumentException("보드가 너무 작음: " + W + "x" + H);
+        }
         this.W = W;
         this.H = H;
         this.board = new CellColor[H][W];
-        this.rng = new Random(seed);
+        this.rowColored = new BitSet[H];
+        this.colColored = new BitSet[W];
+        for ( int y = 0; y < H; y++ ) rowColored[y] = new BitSet(W);
+        for ( int x = 0; x < W; x++ ) colColored[x] = new BitSet(H);
+        this.rng = new StateRandom(seed);
+        this.moveDensity = Math.max(0.0, moveDensity);
+        this.difficulty = (difficulty != null) ? difficulty : Difficulty.NORMAL;
         regenerateBoard();
     }
 
-    // 보드를 새로 깔고, 유효한 수(클릭 가능한 회색 칸)가 생길 때까지 반복해서 만든다
+    // 탐색용 복사본. 보드와 색인만 깊은 복사하고 난수는 새로 둠 (복사본에서의 재생성은 원본과 무관)
+    private GameEngine(GameEngine src) {
+        this.W = src.W;
+        this.H = src.H;
+        this.board = new CellColor[H][];
+        this.rowColored = new BitSet[H];
+        this.colColored = new BitSet[W];
+        for ( int y = 0; y < H; y++ ) {
+            board[y] = src.board[y].clone();
+            rowColored[y] = (BitSet) src.rowColored[y].clone();
+        }
+        for ( int x = 0; x < W; x++ ) colColored[x] = (BitSet) src.colColored[x].clone();
+        this.rng = new StateRandom(0L);
+        this.moveDensity = src.moveDensity;
+        this.difficulty = src.difficulty;
+        this.generation = src.generation;
+    }
+
+    // 다음 세대용 빈 엔진. 크기/설정/세대/난수 상태만 가져오고 보드는 아직 안 깔림
+    private GameEngine(GameEngine src, StateRandom rng) {
+        this.W = src.W;
+        this.H = src.H;
+        this.board = new CellColor[H][W];
+        this.rowColored = new BitSet[H];
+        this.colColored = new BitSet[W];
+        for ( int y = 0; y < H; y++ ) rowColored[y] = new BitSet(W);
+        for ( int x = 0; x < W; x++ ) colColored[x] = new BitSet(H);
+        this.rng = rng;
+        this.moveDensity = src.moveDensity;
+        this.difficulty = src.difficulty;
+        this.generation = src.generation;
+    }
+
+    public GameEngine copy() {
+        GameEngine g = new GameEngine(this);
+        g.traced = false;
+        return g;
+    }
+
+    // 다음 세대를 미리 만들 준비. 지금 난수 상태를 복제한 빈 엔진을 돌려주고, 받은 쪽이 regenerateBoard()로 보드를 깖
+    // 같은 난수 상태에서 깔기 때문에 여기서 직접 재생성한 것과 같은 보드가 나옴 (시드로 따라 만드는 클라이언트와도 같음)
+    // 난수를 건드리는 재생성과 동시에 부르면 안 됨 (서버는 서버 락 안에서 부름). 보드 생성은 락 밖에서 해도 됨
+    public GameEngine forkNext() {
+        return new GameEngine(this, StateRandom.ofState(rng.state()));
+    }
+
+    // forkNext로 만들어 다 깐 다음 세대를 넘겨둠. 세대가 안 맞게 되면(그 사이 직접 재생성했으면) 쓰지 않고 버려짐
+    public void offerNext(GameEngine next) {
+        prepared = next;
+    }
+
+    // 마지막 재생성이 미리 만든 보드를 바꿔 끼운 것이었는지
+    public boolean usedPrepared() {
+        return usedPrepared;
+    }
+
+    // 체크포인트에서 되살림. 보드와 난수 상태를 그대로 넣으므로 이후 재생성 결과도 저장 당시 엔진과 같음
+    GameEngine(int W, int H, double moveDensity, Difficulty difficulty, int generation, long rngState, CellColor[][] board) {
+        this.W = W;
+        this.H = H;
+        this.board = new CellColor[H][W];
+        this.rowColored = new BitSet[H];
+        this.colColored = new BitSet[W];
+        for ( int y = 0; y < H; y++ ) rowColored[y] = new BitSet(W);
+        for ( int x = 0; x < W; x++ ) colColored[x] = new BitSet(H);
+        this.rng = StateRandom.ofState(rngState);
+        this.moveDensity = moveDensity;
+        this.difficulty = difficulty;
+        this.generation = generation;
+        for ( int y = 0; y < H; y++ ) {
+            for ( int x = 0; x < W; x++ ) {
+                setCell(x, y, board[y][x]);
+            }
+        }
+    }
+
+    // 체크포인트가 락 안에서 챙기는 값들 (보드는 따로)
+    double moveDensity() {
+        return moveDensity;
+    }
+
+    Difficulty difficulty() {
+        return difficulty;
+    }
+
+    long rngState() {
+        return rng.state();
+    }
+
+    // java.util.Random과 같은 수열을 내는 48비트 선형 합동 생성기. 상태를 long 하나로 꺼내고 넣을 수 있음
+    // 다음 세대 준비와 체크포인트가 난수를 직렬화로 복제하지 않고 상태값만 옮기기 위함
+    // 엔진과 마찬가지로 한 스레드(서버는 서버 락 안)에서만 씀
+    static final class StateRandom extends Random {
+        private static final long MULTIPLIER = 0x5DEECE66DL, ADDEND = 0xBL, MASK = (1L << 48) - 1;
+        private long state;
+
+        StateRandom(long seed) {
+            super(seed);        // Random 생성자가 아래 setSeed를 부름
+        }
+
+        static StateRandom ofState(long state) {
+            StateRandom r = new StateRandom(0L);
+            r.state = state;
+            return r;
+        }
+
+        @Override
+        public void setSeed(long seed) {
+            state = (seed ^ MULTIPLIER) & MASK;
+        }
+
+        @Override
+        protected int next(int bits) {
+            state = (state * MULTIPLIER + ADDEND) & MASK;
+            return (int) (state >>> (48 - bits));
+        }
+
+        long state() {
+            return state;
+        }
+    }
+
+    public int getWidth() {
+        return W;
+    }
+
+    public int getHeight() {
+        return H;
+    }
+
+    // 보드를 한 번에 깔고, 유효한 수를 직접 심어서 최소 개수를 보장한다 (다시 뽑지 않음)
+    // 1) 난이도 비율대로 무작위로 채움
+    // 2) 회색 칸 하나 + 바로 붙은 두 칸을 같은 색으로 심고, 세 칸을 예약해서 이후에 덮어쓰지 않음
+    //    붙어있는 칸이 그 방향의 첫 유색 칸이므로 다른 칸이 어떻게 깔려도 이 수는 항상 유효함
     public void regenerateBoard(){
-        do {
-            for ( int y = 0; y < H; y++ ){
-                for ( int x = 0; x < W; x++ ){
-                    board[y][x] = randomColor();
+        ServerEvents.BoardRegenerate event = new ServerEvents.BoardRegenerate();
+        event.begin();
+        generation++;
+        for ( int y = 0; y < H; y++ ){
+            for ( int x = 0; x < W; x++ ){
+                setCell(x, y, randomColor());
+            }
+        }
+
+        int target = Math.max(1, (int) Math.round(W * H * moveDensity));
+        boolean[][] reserved = new boolean[H][W];
+        int planted = 0;
+        int attempts = target * 8;
+        for ( int i = 0; i < attempts && planted < target; i++ ) {
+            int x = rng.nextInt(W);
+            int y = rng.nextInt(H);
+            int d1 = rng.nextInt(4);
+            int d2 = (d1 + 1 + rng.nextInt(3)) % 4;     // d1과 다른 방향
+            if ( plantMove(x, y, d1, d2, reserved) ) planted++;
+        }
+
+        // 보드가 작거나 운이 나빠 하나도 못 심었으면 앞에서부터 자리를 찾아 하나는 반드시 심음
+        for ( int y = 0; y < H && planted == 0; y++ ) {
+            for ( int x = 0; x < W && planted == 0; x++ ) {
+                for ( int d1 = 0; d1 < 4 && planted == 0; d1++ ) {
+                    for ( int d2 = d1 + 1; d2 < 4 && planted == 0; d2++ ) {
+                        if ( plantMove(x, y, d1, d2, reserved) ) planted++;
+                    }
                 }
             }
-        } while ( !hasAnyClick() ); // 유효 수 없으면 다시 생성
+        }
+
+        if ( traced && event.shouldCommit() ) {
+            event.width = W;
+            event.height = H;
+            event.planted = planted;
+            event.commit();
+        }
+    }
+
+    // (x,y)를 회색으로, d1/d2 방향으로 붙은 두 칸을 같은 색으로 설정. 자리가 없으면 false
+    private boolean plantMove(int x, int y, int d1, int d2, boolean[][] reserved) {
+        int ax = x + DX[d1], ay = y + DY[d1];
+        int bx = x + DX[d2], by = y + DY[d2];
+        if ( !inBounds(ax, ay) || !inBounds(bx, by) ) return false;
+        if ( reserved[y][x] || reserved[ay][ax] || reserved[by][bx] ) return false;
+
+        CellColor c = randomNonGray();
+        setCell(x, y, CellColor.GRAY);
+        setCell(ax, ay, c);
+        setCell(bx, by, c);
+        reserved[y][x] = true;
+        reserved[ay][ax] = true;
+        reserved[by][bx] = true;
+        return true;
+    }
+
+    // 칸 색을 바꿀 때는 항상 여기를 거쳐서 행/열 색인도 같이 갱신
+    private void setCell(int x, int y, CellColor c) {
+        board[y][x] = c;
+        boolean colored = c != CellColor.GRAY;
+        rowColored[y].set(x, colored);
+        colColored[x].set(y, colored);
     }
 
-    // 랜덤 컬러 생성용
+    // 랜덤 컬러 생성용 (난이도의 회색 비율을 따르고, 나머지는 4색 균등)
     private CellColor randomColor(){
-        int r = rng.nextInt(5);
-        if ( r == 0 ) return CellColor.GRAY;
-        if ( r == 1 ) return CellColor.RED;
-        if ( r == 2 ) return CellColor.BLUE;
-        if ( r == 3 ) return CellColor.GREEN;
+        if ( rng.nextDouble() < difficulty.getGrayRatio() ) return CellColor.GRAY;
+        return randomNonGray();
+    }
+
+    private CellColor randomNonGray(){
+        int r = rng.nextInt(4);
+        if ( r == 0 ) return CellColor.RED;
+        if ( r == 1 ) return CellColor.BLUE;
+        if ( r == 2 ) return CellColor.GREEN;
         return CellColor.YELLOW;
     }
 
@@ -51,117 +294,226 @@ public class GameEngine implements Serializable {
         return false;
     }
 
-    // 처음 만난 유색 칸 좌표랑 색 저장
-    private static class FirstHit {
-        int x, y;
-        CellColor color;
-        FirstHit(int x, int y, CellColor c) {
-            this.x = x;
-            this.y = y;
-            this.color = c;
-        }
-    }
-
     // (x,y)가 회색일 때, 4방향의 회색이 아닌 색 중 같은 색이 2개 이상인지 검사
     private boolean canClick(int x, int y){
-        FirstHit e = firstNonGray(x,y, +1, 0);
-        FirstHit w = firstNonGray(x,y, -1, 0);
-        FirstHit n = firstNonGray(x,y, 0, -1);
-        FirstHit s = firstNonGray(x,y, 0, +1);
+        return gainAt(x, y) > 0;
+    }
 
-        // 4방향 결과를 배열로 모으고, 색 개수를 카운트
-        FirstHit[] hits = new FirstHit[]{ e, w, n, s };
+    // 현재 보드에서 가능한 모든 수와 각 수의 점수. 해법 탐색/봇용
+    public List<Move> validMoves(){
+        List<Move> moves = new ArrayList<>();
+        for ( int y = 0; y < H; y++ ){
+            for ( int x = 0; x < W; x++ ){
+                if ( board[y][x] != CellColor.GRAY ) continue;
+                int gain = gainAt(x, y);
+                if ( gain > 0 ) moves.add(new Move(x, y, gain));
+            }
+        }
+        return moves;
+    }
 
-        int countRed = 0, countBlue = 0, countGreen = 0, countYellow = 0;
+    // (x,y)를 눌렀을 때 회색으로 바뀔 칸 수 (유효하지 않으면 0). tryClick과 같은 색 우선순위를 따름
+    private int gainAt(int x, int y){
+        long tally = tally(firstHit(x, y, +1, 0), firstHit(x, y, -1, 0),
+                           firstHit(x, y, 0, -1), firstHit(x, y, 0, +1));
+        CellColor target = targetColor(tally);
+        return (target == null) ? 0 : countOf(tally, target);
+    }
 
-        for ( int i = 0; i < hits.length; i++ ) {
-            FirstHit h = hits[i];
-            if ( h == null ) continue;
-            if ( h.color == CellColor.RED ) countRed++;
-            else if ( h.color == CellColor.BLUE ) countBlue++;
-            else if ( h.color == CellColor.GREEN ) countGreen++;
-            else if ( h.color == CellColor.YELLOW ) countYellow++;
-        }
+    // 4방향 첫 유색 칸들의 색 개수. 색 ordinal마다 8비트씩 한 long에 묶어서 셈 (배열/객체 없이)
+    private long tally(int e, int w, int n, int s){
+        return colorBit(e) + colorBit(w) + colorBit(n) + colorBit(s);
+    }
 
-        // 같은 색이 2개 이상 존재하면 true
-        if ( countRed >= 2 ) return true;
-        if ( countBlue >= 2 ) return true;
-        if ( countGreen >= 2 ) return true;
-        if ( countYellow >= 2 ) return true;
+    private long colorBit(int hit){
+        return (hit < 0) ? 0L : 1L << (8 * colorAt(hit).ordinal());
+    }
 
-        return false;
+    private static int countOf(long tally, CellColor c){
+        return (int) (tally >>> (8 * c.ordinal())) & 0xFF;
     }
 
-    // 4방향으로 나아가며 처음 만나는 유색 칸을 찾아서 좌표/색을 반환 (없으면 null)
-    private FirstHit firstNonGray(int x, int y, int dx, int dy){
-        int cx = x + dx, cy = y + dy;
-        while ( inBounds(cx,cy) ){
-            CellColor c = board[cy][cx];
-            if ( c != CellColor.GRAY ) {
-                return new FirstHit(cx, cy, c);
-            }
-            cx += dx; cy += dy;
+    // 같은 색이 2개 이상인 색 중 우선순위가 가장 높은 색 (없으면 null)
+    private static CellColor targetColor(long tally){
+        for ( CellColor c : PRIORITY ) {
+            if ( countOf(tally, c) >= 2 ) return c;
         }
         return null;
     }
 
+    private CellColor colorAt(int packed){
+        return board[Coord.unpackY(packed)][Coord.unpackX(packed)];
+    }
+
+    // 한 방향으로 처음 만나는 유색 칸 좌표 (Coord.pack, 없으면 -1)
+    // 칸을 하나씩 걷지 않고 행/열 색인에서 가장 가까운 켜진 비트를 찾음
+    private int firstHit(int x, int y, int dx, int dy){
+        int cx = x, cy = y;
+        if ( dx > 0 ) {
+            cx = rowColored[y].nextSetBit(x + 1);
+        } else if ( dx < 0 ) {
+            cx = (x > 0) ? rowColored[y].previousSetBit(x - 1) : -1;
+        } else if ( dy > 0 ) {
+            cy = colColored[x].nextSetBit(y + 1);
+        } else if ( dy < 0 ) {
+            cy = (y > 0) ? colColored[x].previousSetBit(y - 1) : -1;
+        }
+        if ( !inBounds(cx, cy) ) return -1;
+        return Coord.pack(cx, cy);
+    }
+
     private boolean inBounds(int x, int y){
         return x >= 0 && x < W && y >= 0 && y < H;
     }
 
     // 누르는 칸은 회색. 클릭한 칸 쪽으로 뻗어나가서 같은 색 개수 2개 이상이면 해당 색을 회색으로 변경
     public ClickResult tryClick(int x, int y) {
-        if ( !inBounds(x, y) ) {
-            return ClickResult.fail("범위 밖 클릭!");
+        int[] out = new int[MAX_CHANGED];
+        int n = tryClickInto(x, y, out);
+        if ( n < 0 ) {
+            return ClickResult.fail(reason(n));
         }
-        if ( board[y][x] != CellColor.GRAY ) {
-            return ClickResult.fail("회색 칸이 아님!");
+        List<Coord> changed = new ArrayList<>(n);
+        for ( int i = 0; i < n; i++ ) {
+            changed.add(new Coord(Coord.unpackX(out[i]), Coord.unpackY(out[i])));
         }
+        return ClickResult.ok(changed);
+    }
 
-        FirstHit e = firstNonGray(x, y, +1, 0);
-        FirstHit w = firstNonGray(x, y, -1, 0);
-        FirstHit n = firstNonGray(x, y, 0, -1);
-        FirstHit s = firstNonGray(x, y, 0, +1);
+    // tryClick과 같지만 결과를 객체로 만들지 않음. 게임 루프의 클릭 처리용
+    // 회색으로 바뀐 칸을 Coord.pack 값으로 out[0..n)에 쓰고 n을 반환. 실패면 음수 코드 (reason으로 사유)
+    // out은 MAX_CHANGED칸 이상. 보드 재생성이 없는 한 할당하지 않음
+    public int tryClickInto(int x, int y, int[] out) {
+        ServerEvents.EngineClick event = new ServerEvents.EngineClick();
+        event.begin();
+        int n = applyClickInto(x, y, out);
+        if ( n > 0 ) {
+            regenerateIfStuck();
+        }
+        if ( traced && event.shouldCommit() ) {
+            event.x = x;
+            event.y = y;
+            event.result = n;
+            event.commit();
+        }
+        return n;
+    }
 
-        FirstHit[] hits = new FirstHit[]{e, w, n, s};
+    // 보드 내용 요약값 (FNV-1a 64비트). 클라이언트가 시드로 직접 만든 보드가 서버와 같은지 확인용
+    public long boardHash() {
+        long h = 0xcbf29ce484222325L;
+        h = (h ^ W) * 0x100000001b3L;
+        h = (h ^ H) * 0x100000001b3L;
+        for ( int y = 0; y < H; y++ ) {
+            for ( int x = 0; x < W; x++ ) {
+                h = (h ^ board[y][x].ordinal()) * 0x100000001b3L;
+            }
+        }
+        return h;
+    }
 
-        int countRed = 0, countBlue = 0, countGreen = 0, countYellow = 0;
-        for ( int i = 0; i < hits.length; i++ ) {
-            FirstHit h = hits[i];
-            if ( h == null ) continue;
-            if ( h.color == CellColor.RED ) countRed++;
-            else if ( h.color == CellColor.BLUE ) countBlue++;
-            else if ( h.color == CellColor.GREEN ) countGreen++;
-            else if ( h.color == CellColor.YELLOW ) countYellow++;
+    // 서버가 보낸 스냅샷으로 덮어씀 (클라이언트 쪽 보드용)
+    // generation까지 먼저 재생성해서 난수 상태를 맞추므로 이후 재생성 결과도 서버와 같음. 이미 지난 세대로는 못 돌아감
+    public void loadBoard(CellColor[][] src, int generation) {
+        while ( this.generation < generation ) {
+            regenerateBoard();
         }
+        for ( int y = 0; y < H; y++ ) {
+            for ( int x = 0; x < W; x++ ) {
+                setCell(x, y, src[y][x]);
+            }
+        }
+    }
 
-        // 사라지게 할 색상 결정
-        CellColor targetColor = null;
-        if ( countRed >= 2 ) targetColor = CellColor.RED;
-        else if ( countBlue >= 2 ) targetColor = CellColor.BLUE;
-        else if ( countGreen >= 2 ) targetColor = CellColor.GREEN;
-        else if ( countYellow >= 2 ) targetColor = CellColor.YELLOW;
+    // 서버가 알려준 변경 칸을 회색으로 (클라이언트 쪽 보드용, 규칙 검사 없음)
+    public void markGray(int x, int y) {
+        if ( inBounds(x, y) ) {
+            setCell(x, y, CellColor.GRAY);
+        }
+    }
 
-        if ( targetColor == null ) {
-            return ClickResult.fail("색 부족!");
+    // 더 이상 유효한 클릭이 없으면 보드를 새로 깐다. 새로 깔았으면 true
+    // 바로 다음 세대가 미리 만들어져 있으면 보드/색인/난수를 통째로 바꿔 끼우기만 함 (결과는 직접 깐 것과 같음)
+    public boolean regenerateIfStuck() {
+        if ( hasAnyClick() ) return false;
+        GameEngine next = prepared;
+        prepared = null;
+        usedPrepared = next != null && next.generation == generation + 1;
+        if ( usedPrepared ) {
+            board = next.board;
+            rowColored = next.rowColored;
+            colColored = next.colColored;
+            rng = next.rng;
+            generation = next.generation;
+        } else {
+            regenerateBoard();
         }
+        return true;
+    }
 
-        // 사라지게 할 색상으로 처음 걸린 블록들만 회색으로 바꿈
-        List<Coord> changed = new ArrayList<>();
-        for ( int i = 0; i < hits.length; i++ ) {
-            FirstHit h = hits[i];
-            if ( h == null ) continue;
-            if ( h.color == targetColor ) {
-                board[h.y][h.x] = CellColor.GRAY;
-                changed.add(new Coord(h.x, h.y));
-            }
+    // 재생성 검사 없이 클릭만 적용 (ParallelClicks가 묶음 단위로 검사)
+    // 읽고 쓰는 범위는 footprint의 행/열 안쪽뿐이라, 범위가 겹치지 않는 클릭끼리는 동시에 불러도 됨
+    int applyClickInto(int x, int y, int[] out) {
+        if ( !inBounds(x, y) ) {
+            return OUT_OF_BOUNDS;
+        }
+        if ( board[y][x] != CellColor.GRAY ) {
+            return NOT_GRAY;
         }
 
-        // 더 이상 유효한 클릭이 없으면 보드를 새로 깐다
-        if ( !hasAnyClick() ) {
-            regenerateBoard();
+        int e = firstHit(x, y, +1, 0);
+        int w = firstHit(x, y, -1, 0);
+        int nh = firstHit(x, y, 0, -1);
+        int s = firstHit(x, y, 0, +1);
+
+        // 사라지게 할 색상 결정
+        CellColor targetColor = targetColor(tally(e, w, nh, s));
+        if ( targetColor == null ) {
+            return NO_MATCH;
         }
 
-        return ClickResult.ok(changed);
+        // 사라지게 할 색상으로 처음 걸린 블록들만 회색으로 바꿈 (방향마다 다른 칸이라 서로 영향 없음)
+        int n = 0;
+        n = clearIf(e, targetColor, out, n);
+        n = clearIf(w, targetColor, out, n);
+        n = clearIf(nh, targetColor, out, n);
+        n = clearIf(s, targetColor, out, n);
+        return n;
+    }
+
+    // (x,y) 클릭이 읽거나 바꿀 수 있는 행과 열. rows[0..3), cols[0..3)에 쓰고 없는 자리는 -1
+    // 클릭은 자기 행/열에서 처음 만나는 유색 칸까지만 보고, 바꾸는 칸도 그 칸들뿐이므로
+    // 행 = 자기 행 + 남/북 첫 칸의 행, 열 = 자기 열 + 동/서 첫 칸의 열 (바뀌는 칸의 행/열 색인까지 포함)
+    // 두 클릭의 행도 열도 겹치지 않으면 어느 순서로 처리해도 결과가 같음
+    void footprint(int x, int y, int[] rows, int[] cols) {
+        rows[0] = rows[1] = rows[2] = -1;
+        cols[0] = cols[1] = cols[2] = -1;
+        if ( !inBounds(x, y) ) return;          // 범위 밖 클릭은 아무것도 안 봄
+        rows[0] = y;
+        cols[0] = x;
+        if ( board[y][x] != CellColor.GRAY ) return;    // 자기 칸만 보고 거절
+        int e = firstHit(x, y, +1, 0), w = firstHit(x, y, -1, 0);
+        int n = firstHit(x, y, 0, -1), s = firstHit(x, y, 0, +1);
+        if ( e >= 0 ) cols[1] = Coord.unpackX(e);
+        if ( w >= 0 ) cols[2] = Coord.unpackX(w);
+        if ( n >= 0 ) rows[1] = Coord.unpackY(n);
+        if ( s >= 0 ) rows[2] = Coord.unpackY(s);
+    }
+
+    private int clearIf(int hit, CellColor target, int[] out, int n){
+        if ( hit < 0 || colorAt(hit) != target ) return n;
+        setCell(Coord.unpackX(hit), Coord.unpackY(hit), CellColor.GRAY);
+        out[n] = hit;
+        return n + 1;
+    }
+
+    // tryClickInto 실패 코드의 사유
+    public static String reason(int code) {
+        return switch (code) {
+            case OUT_OF_BOUNDS -> "범위 밖 클릭!";
+            case NOT_GRAY -> "회색 칸이 아님!";
+            case NO_MATCH -> "색 부족!";
+            default -> null;
+        };
     }
-}
\ No newline at end of file
+}
@@ -1,18 +1,34 @@
 package com.serverclient;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 
 enum Info {
     JOIN, EXIT, SEND,
     READY,
-    LOBBY_UPDATE,
+    // 로비: LOBBY_UPDATE는 전체(입장 시, 또는 클라이언트가 요청), LOBBY_DELTA는 직전 버전에서 바뀐 것만
+    LOBBY_UPDATE, LOBBY_DELTA,
     START_GAME,
     // 게임 조작
     CLICK_REQ, CLICK_OK, CLICK_REJECT,
+    // 클라이언트 송신 스레드가 밀려 있던 CLICK_REQ 여러 개를 묶은 것 (events). 서버는 하나씩 CLICK_REQ처럼 처리
+    CLICK_BATCH,
     BOARD_SNAPSHOT, BOARD_DIFF, SCORE_UPDATE, TIMER_SYNC,
+    // 보드 재생성 알림 (세대 번호 + 요약값). 시드로 같은 엔진을 돌리는 클라이언트가 직접 재생성하고 요약값으로 확인
+    BOARD_REGEN,
     // 게임 마무리
-    GAME_OVER
+    GAME_OVER,
+    // 세션 재개: 서버가 토큰 발급(SESSION), 클라이언트가 토큰+마지막 seq로 재개 요청(RESUME),
+    // 서버가 빠진 이벤트 묶음 또는 스냅샷으로 응답(CATCH_UP)
+    SESSION, RESUME, CATCH_UP,
+    // 연결 확인: 서버가 PING, 클라이언트가 같은 pingAt을 담아 PONG
+    // PING/PONG에 양쪽 벽시계 시각도 실어서 서버가 클라이언트별 시계 차이를 추정 (NTP 방식)
+    PING, PONG,
+    // 채팅 기록: 입장 시 최근 기록 묶음, 클라이언트가 beforeSeq로 이전 페이지 요청
+    CHAT_HISTORY,
+    // 압축된 메시지 한 통 (payload). JOIN/RESUME의 compression 제안을 서버가 SESSION으로 수락한 연결에서만
+    COMPRESSED
 }
 
 public class InfoDTO implements Serializable {
@@ -24,13 +40,16 @@ public class InfoDTO implements Serializable {
     private Boolean ready;
 
     // 로비 상태 브로드캐스트용
-    private List<PlayerStatus> lobby;   // PlayerStatus(nickname, ready)
+    private List<PlayerStatus> lobby;   // PlayerStatus(nickname, ready). LOBBY_DELTA면 새로 왔거나 준비가 바뀐 사람만
+    private List<String> lobbyLeft;     // LOBBY_DELTA: 나간 사람
+    private Long lobbyVersion;          // 로비 버전. 델타는 직전 버전 + 1
 
     // START_GAME
     private Long seed;                  // 같은 시드로 같은 보드 생성
     private Integer durationSec;        // 게임 시작시 초기시간 지정
     private Integer width;
     private Integer height;
+    private Integer matchNo;            // START_GAME/CATCH_UP: 판 번호. RESUME: 마지막으로 본 판 (다르면 스냅샷으로 따라잡기)
 
     // CLICK 관련
     private Integer x;
@@ -41,7 +60,11 @@ public class InfoDTO implements Serializable {
 
     // 점수 정리
     private CellColor[][] board;    // 스냅샷용
+    private Integer generation;     // BOARD_REGEN/BOARD_SNAPSHOT: 몇 번째로 깐 보드인지 (GameEngine.getGeneration)
+    private Long boardHash;         // BOARD_REGEN: GameEngine.boardHash
+    private transient InfoDTO snapshot;     // BOARD_REGEN: 시드 모드가 아닌 클라이언트에게 대신 보낼 스냅샷 (서버 안에서만)
     private List<Coord> diff;       // 변경 좌표 리스트
+    private int[] packedDiff;       // 서버가 보내는 변경 좌표 (Coord.pack). 받는 쪽 getDiff()가 풀어줌
     private String player;          // 점수 변경 플레이어
     private Integer score;          // 점수 변경량
 
@@ -51,6 +74,31 @@ public class InfoDTO implements Serializable {
     // 종료 결과
     private List<PlayerScore> results;
 
+    // 세션 재개
+    private String token;               // JOIN 시 발급받는 세션 토큰
+    private List<InfoDTO> events;       // CATCH_UP으로 몰아서 보내는 이벤트들, CLICK_BATCH의 클릭들
+
+    // 하트비트
+    private Long pingAt;                // PING 보낸 시각(서버 nanoTime), PONG에 그대로 돌려받아 RTT 계산
+
+    // 시계 동기화 (모두 각자의 벽시계 밀리초)
+    private Long serverTime;            // PING 보낸 서버 시각, PONG에 그대로 돌려받음
+    private Long clientRecvAt;          // 클라이언트가 PING 받은 시각
+    private Long clientSendAt;          // 클라이언트가 PONG 보낸 시각
+    private Long clockOffset;           // 서버가 추정한 (클라이언트 시계 - 서버 시계). PING에 실어 보냄
+    private Long clickAt;               // 클라이언트가 클릭한 시각 (CLICK_REQ)
+
+    // 채팅 기록
+    private List<ChatLine> chatLines;   // 오래된 것부터
+    private Long beforeSeq;             // 이 seq 이전 페이지 요청 (null이면 최근)
+
+    // 시드 모드: JOIN/RESUME에서 클라이언트가 보드를 시드로 직접 만들 수 있다고 알림 (BOARD_REGEN을 받음)
+    private Boolean seedBoards;
+
+    // 압축 협상 (StreamCompression)
+    private String compression;         // JOIN/RESUME: 클라이언트가 지원하는 방식, SESSION: 서버가 고른 방식
+    private byte[] payload;             // COMPRESSED: 압축된 메시지
+
     public String getNickName(){
         return nickName;
     }
@@ -123,6 +171,14 @@ public class InfoDTO implements Serializable {
         this.height = height;
     }
 
+    public Integer getMatchNo() {
+        return matchNo;
+    }
+
+    public void setMatchNo(Integer matchNo) {
+        this.matchNo = matchNo;
+    }
+
     public Integer getX() {
         return x;
     }
@@ -172,9 +228,25 @@ public class InfoDTO implements Serializable {
     }
 
     public List<Coord> getDiff() {
+        if ( diff == null && packedDiff != null ) {
+            List<Coord> out = new ArrayList<>(packedDiff.length);
+            for ( int p : packedDiff ) {
+                out.add(new Coord(Coord.unpackX(p), Coord.unpackY(p)));
+            }
+            diff = out;
+        }
         return diff;
     }
 
+    public int[] getPackedDiff() {
+        return packedDiff;
+    }
+
+    // 여러 이벤트(CLICK_OK, BOARD_DIFF)가 같은 배열을 공유하므로 넘긴 뒤 바꾸면 안 됨
+    public void setPackedDiff(int[] packedDiff) {
+        this.packedDiff = packedDiff;
+    }
+
     public void setDiff(List<Coord> diff) {
         this.diff = diff;
     }
@@ -210,4 +282,148 @@ public class InfoDTO implements Serializable {
     public void setResults(List<PlayerScore> results) {
         this.results = results;
     }
-}
\ No newline at end of file
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public List<ChatLine> getChatLines() {
+        return chatLines;
+    }
+
+    public void setChatLines(List<ChatLine> chatLines) {
+        this.chatLines = chatLines;
+    }
+
+    public Long getBeforeSeq() {
+        return beforeSeq;
+    }
+
+    public void setBeforeSeq(Long beforeSeq) {
+        this.beforeSeq = beforeSeq;
+    }
+
+    public Long getPingAt() {
+        return pingAt;
+    }
+
+    public void setPingAt(Long pingAt) {
+        this.pingAt = pingAt;
+    }
+
+    public Long getServerTime() {
+        return serverTime;
+    }
+
+    public void setServerTime(Long serverTime) {
+        this.serverTime = serverTime;
+    }
+
+    public Long getClientRecvAt() {
+        return clientRecvAt;
+    }
+
+    public void setClientRecvAt(Long clientRecvAt) {
+        this.clientRecvAt = clientRecvAt;
+    }
+
+    public Long getClientSendAt() {
+        return clientSendAt;
+    }
+
+    public void setClientSendAt(Long clientSendAt) {
+        this.clientSendAt = clientSendAt;
+    }
+
+    public Long getClockOffset() {
+        return clockOffset;
+    }
+
+    public void setClockOffset(Long clockOffset) {
+        this.clockOffset = clockOffset;
+    }
+
+    public Long getClickAt() {
+        return clickAt;
+    }
+
+    public void setClickAt(Long clickAt) {
+        this.clickAt = clickAt;
+    }
+
+    public List<InfoDTO> getEvents() {
+        return events;
+    }
+
+    public void setEvents(List<InfoDTO> events) {
+        this.events = events;
+    }
+
+    public String getCompression() {
+        return compression;
+    }
+
+    public void setCompression(String compression) {
+        this.compression = compression;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+
+    public Integer getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(Integer generation) {
+        this.generation = generation;
+    }
+
+    public Long getBoardHash() {
+        return boardHash;
+    }
+
+    public void setBoardHash(Long boardHash) {
+        this.boardHash = boardHash;
+    }
+
+    public InfoDTO getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(InfoDTO snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public Boolean getSeedBoards() {
+        return seedBoards;
+    }
+
+    public void setSeedBoards(Boolean seedBoards) {
+        this.seedBoards = seedBoards;
+    }
+
+    public List<String> getLobbyLeft() {
+        return lobbyLeft;
+    }
+
+    public void setLobbyLeft(List<String> lobbyLeft) {
+        this.lobbyLeft = lobbyLeft;
+    }
+
+    public Long getLobbyVersion() {
+        return lobbyVersion;
+    }
+
+    public void setLobbyVersion(Long lobbyVersion) {
+        this.lobbyVersion = lobbyVersion;
+    }
+}
@@ -0,0 +1,322 @@
+package com.serverclient;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamConstants;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 앞단 라우터 프로세스
+// 클라이언트는 기존처럼 9500번에 접속하고, 라우터가 살아있는 게임 서버(백엔드) 중 하나를 골라
+// 그 연결을 통째로 중계한다. 한 번 붙은 연결은 끊길 때까지 같은 백엔드에 고정되므로 게임 도중 서버가 바뀌지 않음
+// 새 접속은 한 백엔드 로비를 MATCH_SIZE명까지 채운 뒤 다음 백엔드로 보냄 (여럿이 들어와도 한 판에 모이게)
+// RESUME은 그 토큰을 발급한 백엔드로 보냄. 첫 메시지(JOIN/RESUME)만 읽어 보고 읽은 바이트는 그대로 백엔드에 넘김
+// 클라이언트는 서버의 Object 스트림 헤더를 받은 뒤에야 JOIN을 보내므로, 헤더는 라우터가 먼저 보내고 백엔드 헤더는 버림
+// 백엔드는 제어 포트로 BackendReporter 프로토콜(HELLO/LOAD/SESSION/END)을 보내 상태를 알림
+// -Dserverclient.matchSize=한 판 인원 (기본 4)
+public class LobbyRouter {
+    private static final int CLIENT_PORT = 9500;
+    private static final int CONTROL_PORT = 9600;
+    private static final long DEAD_MILLIS = BackendReporter.REPORT_MILLIS * 3;     // 보고가 이만큼 없으면 죽은 걸로 봄
+    static final int MATCH_SIZE = Integer.getInteger("serverclient.matchSize", 4);
+    private static final int FIRST_MESSAGE_MILLIS = 5000;      // 첫 메시지를 이 시간 안에 안 보내면 끊음
+    private static final byte[] STREAM_HEADER = {
+            (byte) (ObjectStreamConstants.STREAM_MAGIC >> 8), (byte) ObjectStreamConstants.STREAM_MAGIC,
+            (byte) (ObjectStreamConstants.STREAM_VERSION >> 8), (byte) ObjectStreamConstants.STREAM_VERSION };
+    // 첫 메시지는 라우터가 직접 역직렬화하므로 프로토콜 클래스만, 크기도 제한
+    private static final ObjectInputFilter FIRST_MESSAGE_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=20;maxrefs=10000;maxbytes=1048576;com.serverclient.*;java.base/*;!*");
+
+    // 라우터가 알고 있는 백엔드 상태
+    static class Backend {
+        final String host;
+        final int port;
+        int players;            // 마지막 보고 + 그 뒤 라우터가 보낸 접속 수
+        boolean running;        // 게임 진행 중이면 새 접속은 가급적 다른 곳으로
+        long lastSeen;
+
+        Backend(String host, int port) {
+            this.host = host;
+            this.port = port;
+        }
+
+        boolean alive(long now) {
+            return now - lastSeen <= DEAD_MILLIS;
+        }
+
+        @Override
+        public String toString() {
+            return host + ":" + port;
+        }
+    }
+
+    private final List<Backend> backends = new ArrayList<>();
+    private final Map<String, Backend> sessions = new HashMap<>();     // 세션 토큰 -> 발급한 백엔드
+    private final int clientPort;
+    private final int controlPort;
+
+    public LobbyRouter(int clientPort, int controlPort) {
+        this.clientPort = clientPort;
+        this.controlPort = controlPort;
+    }
+
+    public void serve() throws IOException {
+        Thread control = new Thread(this::acceptBackends, "라우터 제어");
+        control.setDaemon(true);
+        control.start();
+
+        try ( ServerSocket ss = new ServerSocket(clientPort) ) {
+            ServerLog.info("라우터 준비 완료 (클라이언트 " + clientPort + ", 제어 " + controlPort + ")");
+            while ( true ) {
+                Socket client = ss.accept();
+                // 첫 메시지를 기다리는 동안 다른 접속을 막지 않게 연결마다 스레드에서 고름
+                Thread t = new Thread(() -> route(client), "라우터 접속");
+                t.setDaemon(true);
+                t.start();
+            }
+        }
+    }
+
+    private void route(Socket client) {
+        Backend b;
+        byte[] head;
+        try {
+            client.setSoTimeout(FIRST_MESSAGE_MILLIS);
+            client.getOutputStream().write(STREAM_HEADER);
+            client.getOutputStream().flush();
+            RecordingInputStream rec = new RecordingInputStream(client.getInputStream());
+            String token = null;
+            try {
+                ObjectInputStream in = new ObjectInputStream(rec);
+                in.setObjectInputFilter(FIRST_MESSAGE_FILTER);
+                Object first = in.readObject();
+                if ( first instanceof InfoDTO dto && dto.getCommand() == Info.RESUME ) {
+                    token = dto.getToken();
+                }
+            } catch ( ClassNotFoundException | RuntimeException e ) {
+                // 모르는 첫 메시지는 백엔드가 판단하게 그대로 넘김
+            }
+            client.setSoTimeout(0);
+            head = rec.recorded();
+            b = pick(token);
+        } catch ( IOException e ) {
+            close(client);
+            return;
+        }
+        if ( b == null ) {
+            ServerLog.warn("사용 가능한 백엔드 없음, 접속 거절:", client.getRemoteSocketAddress());
+            close(client);
+            return;
+        }
+        Socket upstream = null;
+        try {
+            upstream = new Socket(b.host, b.port);
+            upstream.setSoTimeout(FIRST_MESSAGE_MILLIS);
+            upstream.getOutputStream().write(head);
+            upstream.getOutputStream().flush();
+            byte[] header = new byte[STREAM_HEADER.length];
+            new DataInputStream(upstream.getInputStream()).readFully(header);
+            if ( !Arrays.equals(header, STREAM_HEADER) ) {
+                throw new IOException("백엔드 스트림 헤더가 다름");
+            }
+            upstream.setSoTimeout(0);
+            pipe(client, upstream, "라우터 " + b + " ->");
+            pipe(upstream, client, "라우터 " + b + " <-");
+        } catch ( IOException e ) {
+            ServerLog.warn("백엔드 연결 실패:", b + " " + e.getMessage());
+            synchronized ( this ) {
+                b.lastSeen = 0;     // 다음 보고 전까지 제외
+            }
+            if ( upstream != null ) close(upstream);
+            close(client);
+        }
+    }
+
+    // RESUME이면 토큰을 발급한 백엔드 (살아 있을 때). 아니면 새 접속 자리 고르기
+    synchronized Backend pick(String token) {
+        Backend home = (token != null) ? sessions.get(token) : null;
+        if ( home != null && home.alive(System.currentTimeMillis()) ) {
+            return home;
+        }
+        return pick();
+    }
+
+    // 게임 중이 아닌 백엔드 중 아직 MATCH_SIZE가 안 찬 곳에서 가장 많이 모인 곳을 먼저 채움
+    // 다 찼으면 (또는 전부 게임 중이면) 예전처럼 게임 중이 아닌 곳을 먼저, 그 안에서 인원이 적은 곳
+    synchronized Backend pick() {
+        long now = System.currentTimeMillis();
+        Backend best = null;
+        for ( Backend b : backends ) {
+            if ( !b.alive(now) || b.running || b.players >= MATCH_SIZE ) continue;
+            if ( best == null || b.players > best.players ) {
+                best = b;
+            }
+        }
+        if ( best == null ) {
+            for ( Backend b : backends ) {
+                if ( !b.alive(now) ) continue;
+                if ( best == null
+                        || (best.running && !b.running)
+                        || (best.running == b.running && b.players < best.players) ) {
+                    best = b;
+                }
+            }
+        }
+        if ( best != null ) best.players++;     // 다음 보고 전에 같은 곳으로 몰리지 않게 미리 반영
+        return best;
+    }
+
+    // 백엔드 보고 수신. 백엔드마다 스레드 하나
+    private void acceptBackends() {
+        try ( ServerSocket ss = new ServerSocket(controlPort) ) {
+            while ( true ) {
+                Socket s = ss.accept();
+                Thread t = new Thread(() -> readReports(s), "백엔드 보고 수신");
+                t.setDaemon(true);
+                t.start();
+            }
+        } catch ( IOException e ) {
+            ServerLog.error("백엔드 보고 대기 중단", e);
+        }
+    }
+
+    private void readReports(Socket s) {
+        Backend me = null;
+        try ( s; BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8)) ) {
+            String line;
+            while ( (line = in.readLine()) != null ) {
+                String[] p = line.trim().split(" ");
+                if ( p[0].equals("HELLO") && p.length == 3 ) {
+                    me = register(p[1], Integer.parseInt(p[2]));
+                } else if ( p[0].equals("LOAD") && p.length == 3 && me != null ) {
+                    synchronized ( this ) {
+                        me.players = Integer.parseInt(p[1]);
+                        me.running = p[2].equals("1");
+                        me.lastSeen = System.currentTimeMillis();
+                    }
+                } else if ( p[0].equals("SESSION") && p.length == 2 && me != null ) {
+                    synchronized ( this ) {
+                        sessions.put(p[1], me);
+                    }
+                } else if ( p[0].equals("END") && p.length == 2 && me != null ) {
+                    synchronized ( this ) {
+                        sessions.remove(p[1], me);
+                    }
+                }
+            }
+        } catch ( IOException | NumberFormatException e ) {
+            ServerLog.warn("백엔드 보고 오류:", e.getMessage());
+        }
+        if ( me != null ) {
+            final Backend gone = me;
+            synchronized ( this ) {
+                gone.lastSeen = 0;        // 보고 연결이 끊기면 바로 제외. 다시 붙으면 세션도 처음부터 다시 보고함
+                sessions.values().removeIf(b -> b == gone);
+            }
+            ServerLog.info("백엔드 이탈:", me);
+        }
+    }
+
+    private synchronized Backend register(String host, int port) {
+        for ( Backend b : backends ) {
+            if ( b.host.equals(host) && b.port == port ) {
+                b.lastSeen = System.currentTimeMillis();
+                return b;
+            }
+        }
+        Backend b = new Backend(host, port);
+        b.lastSeen = System.currentTimeMillis();
+        backends.add(b);
+        ServerLog.info("백엔드 등록:", b);
+        return b;
+    }
+
+    private static void close(Socket s) {
+        try { s.close(); } catch ( IOException ignored ) { }
+    }
+
+    // 읽은 바이트를 모두 기록해 두는 스트림 (첫 메시지를 읽어 본 뒤 그대로 백엔드에 넘기려고)
+    private static final class RecordingInputStream extends FilterInputStream {
+        private final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        RecordingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if ( b >= 0 ) copy.write(b);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if ( n > 0 ) copy.write(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            return 0L;      // 건너뛴 바이트도 넘겨야 하므로 건너뛰지 않음
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        byte[] recorded() {
+            return copy.toByteArray();
+        }
+    }
+
+    // 한쪽 소켓에서 읽은 바이트를 다른 쪽에 그대로 씀. 어느 한쪽이 끊기면 둘 다 닫음
+    private static void pipe(Socket from, Socket to, String name) {
+        Thread t = new Thread(() -> {
+            byte[] buf = new byte[8192];
+            try {
+                InputStream in = from.getInputStream();
+                OutputStream out = to.getOutputStream();
+                int n;
+                while ( (n = in.read(buf)) != -1 ) {
+                    out.write(buf, 0, n);
+                    out.flush();
+                }
+            } catch ( IOException ignored ) {
+                // 연결 종료
+            } finally {
+                try { from.close(); } catch ( IOException ignored ) { }
+                try { to.close(); } catch ( IOException ignored ) { }
+            }
+        }, name);
+        t.setDaemon(true);
+        t.start();
+    }
+
+    // 사용법: LobbyRouter [클라이언트포트] [제어포트]
+    // 예) 라우터 1개 + 로컬 백엔드 2개
+    //   java com.serverclient.LobbyRouter 9500 9600
+    //   java com.serverclient.ChatServer 9501 127.0.0.1:9600
+    //   java com.serverclient.ChatServer 9502 127.0.0.1:9600
+    public static void main(String[] args) throws IOException {
+        int clientPort = (args.length > 0) ? Integer.parseInt(args[0]) : CLIENT_PORT;
+        int controlPort = (args.length > 1) ? Integer.parseInt(args[1]) : CONTROL_PORT;
+        new LobbyRouter(clientPort, controlPort).serve();
+    }
+}
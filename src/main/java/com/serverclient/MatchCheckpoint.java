@@ -0,0 +1,42 @@
+package com.serverclient;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+// 진행 중인 한 판의 전체 상태. 주기적으로 파일에 남겨 서버가 죽어도 이어서 진행하기 위함
+// 엔진은 통째로 넣지 않고 되살리는 데 필요한 값(크기/설정/세대/난수 상태/보드)만 넣음
+public class MatchCheckpoint implements Serializable {
+    final int width, height;
+    final double moveDensity;
+    final Difficulty difficulty;
+    final int generation;
+    final long rngState;
+    CellColor[][] board;                    // 락 밖에서 채움 (ChatServer.checkpoint)
+    final HashMap<String,Integer> scores;
+    final long serverSeq;
+    final long endsAtMillis;
+    final HashMap<String,String> sessions;  // 토큰 -> 닉네임 (재접속한 클라이언트가 같은 세션으로 이어가도록)
+    final long savedAtMillis;
+
+    // 서버 락 안에서 부름. 엔진에서는 값 몇 개만 읽음
+    MatchCheckpoint(GameEngine engine, Map<String,Integer> scores, long serverSeq, long endsAtMillis,
+                    Map<String,String> sessions, long savedAtMillis) {
+        this.width = engine.getWidth();
+        this.height = engine.getHeight();
+        this.moveDensity = engine.moveDensity();
+        this.difficulty = engine.difficulty();
+        this.generation = engine.getGeneration();
+        this.rngState = engine.rngState();
+        this.scores = new HashMap<>(scores);
+        this.serverSeq = serverSeq;
+        this.endsAtMillis = endsAtMillis;
+        this.sessions = new HashMap<>(sessions);
+        this.savedAtMillis = savedAtMillis;
+    }
+
+    // 저장 당시와 같은 엔진 (이후 재생성 결과까지 같음)
+    GameEngine engine() {
+        return new GameEngine(width, height, moveDensity, difficulty, generation, rngState, board);
+    }
+}
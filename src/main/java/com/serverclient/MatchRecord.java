@@ -0,0 +1,46 @@
+package com.serverclient;
+
+import java.io.Serializable;
+
+// 한 플레이어의 한 판 결과 (RankingStore 기록 단위)
+public class MatchRecord implements Serializable {
+    private final long matchId;
+    private final long endedAtMillis;
+    private final String nickname;
+    private final int score;
+    private final int place;            // 그 판 등수 (1부터)
+    private final int players;          // 그 판 참가자 수
+
+    public MatchRecord(long matchId, long endedAtMillis, String nickname, int score, int place, int players) {
+        this.matchId = matchId;
+        this.endedAtMillis = endedAtMillis;
+        this.nickname = nickname;
+        this.score = score;
+        this.place = place;
+        this.players = players;
+    }
+
+    public long getMatchId() {
+        return matchId;
+    }
+
+    public long getEndedAtMillis() {
+        return endedAtMillis;
+    }
+
+    public String getNickname() {
+        return nickname;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getPlace() {
+        return place;
+    }
+
+    public int getPlayers() {
+        return players;
+    }
+}
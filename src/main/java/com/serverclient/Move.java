@@ -0,0 +1,15 @@
+package com.serverclient;
+
+import java.io.Serializable;
+
+// 유효한 클릭 한 수. 클릭 좌표와 그 수로 얻는 점수(회색으로 바뀌는 칸 수)
+public class Move implements Serializable {
+    public int x;
+    public int y;
+    public int gain;
+    public Move(int x, int y, int gain){
+        this.x = x;
+        this.y = y;
+        this.gain = gain;
+    }
+}
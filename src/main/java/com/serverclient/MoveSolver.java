@@ -0,0 +1,113 @@
+package com.serverclient;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// 서버측 해법 탐색기
+// 첫 수 후보들을 코어 수만큼의 ForkJoinPool에서 병렬로 평가하고, 그 뒤 수순은 점수 상위 몇 수만 따라가며(빔) 합산
+// 모든 봇이 이 풀 하나를 같이 씀
+public class MoveSolver {
+    private static final int BEAM = 6;      // 두번째 수부터 따라가 볼 후보 수
+
+    private final ForkJoinPool pool;
+
+    public MoveSolver(int parallelism) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    public MoveSolver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    // depth 수 앞까지 봤을 때 점수 합이 가장 큰 첫 수 (둘 곳이 없으면 null)
+    // engine은 건드리지 않음. 호출자가 넘긴 복사본 기준으로 탐색
+    public Move bestMove(GameEngine engine, int depth) {
+        List<Move> roots = engine.validMoves();
+        if ( roots.isEmpty() ) return null;
+        if ( depth <= 1 ) {
+            return roots.stream().max(Comparator.comparingInt(m -> m.gain)).get();
+        }
+        return pool.invoke(new RootSearch(engine, roots, depth));
+    }
+
+    // 봇 작업 투입용. 탐색과 같은 풀에서 돌아감
+    public void execute(Runnable task) {
+        pool.execute(task);
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // 첫 수마다 하위 작업을 만들어 병렬로 평가
+    private static class RootSearch extends RecursiveTask<Move> {
+        private final GameEngine engine;
+        private final List<Move> roots;
+        private final int depth;
+
+        RootSearch(GameEngine engine, List<Move> roots, int depth) {
+            this.engine = engine;
+            this.roots = roots;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Move compute() {
+            List<LineSearch> tasks = new ArrayList<>();
+            for ( Move m : roots ) {
+                tasks.add(new LineSearch(engine, m, depth));
+            }
+            invokeAll(tasks);
+
+            Move best = null;
+            int bestTotal = -1;
+            for ( LineSearch t : tasks ) {
+                int total = t.join();
+                if ( total > bestTotal ) {
+                    bestTotal = total;
+                    best = t.first;
+                }
+            }
+            return best;
+        }
+    }
+
+    // 첫 수를 둔 뒤 남은 depth-1 수까지의 최대 점수 합
+    private static class LineSearch extends RecursiveTask<Integer> {
+        private final GameEngine engine;
+        private final Move first;
+        private final int depth;
+
+        LineSearch(GameEngine engine, Move first, int depth) {
+            this.engine = engine;
+            this.first = first;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Integer compute() {
+            GameEngine sim = engine.copy();
+            ClickResult res = sim.tryClick(first.x, first.y);
+            if ( !res.success ) return 0;
+            return res.scoreGain + search(sim, depth - 1);
+        }
+
+        private static int search(GameEngine sim, int depth) {
+            if ( depth <= 0 ) return 0;
+            List<Move> moves = sim.validMoves();
+            moves.sort((a, b) -> Integer.compare(b.gain, a.gain));
+            int best = 0;
+            for ( int i = 0; i < moves.size() && i < BEAM; i++ ) {
+                Move m = moves.get(i);
+                GameEngine next = sim.copy();
+                ClickResult res = next.tryClick(m.x, m.y);
+                if ( !res.success ) continue;
+                best = Math.max(best, res.scoreGain + search(next, depth - 1));
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.serverclient;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// 한 판의 클릭 묶음을 낙관적으로 병렬 처리
+// 클릭은 자기 행/열과 거기서 처음 만나는 유색 칸의 행/열만 건드리므로 (GameEngine.footprint)
+// 묶음 앞에서부터 행/열이 서로 겹치지 않는 클릭을 최대한 모아 한 무리로 동시에 적용하고, 결과는 큐 순서대로 커밋
+// 겹치는 클릭을 만나면 무리를 끊고 그 클릭부터 바뀐 보드로 다시 모음 (혼자인 무리는 그냥 순차 처리)
+// 무리 안의 클릭들은 서로 영향을 주지 않으므로 결과가 큐 순서대로 하나씩 처리한 것과 같음
+// 호출은 게임 루프 한 스레드에서만 (엔진을 잠그는 건 호출자)
+public class ParallelClicks {
+    // 커밋 콜백. 큐 순서대로 불림. n은 tryClickInto와 같은 의미, changed는 다음 호출 전까지만 유효
+    interface Commit {
+        void accept(ChatServer.ClickTask t, int n, int[] changed, boolean regenerated);
+    }
+
+    static final int MAX_GROUP = 64;                // 한 무리 최대 클릭 수
+    private static final int MIN_SPLIT = 4;         // 이보다 작으면 나누지 않고 한 스레드에서
+
+    private final ForkJoinPool pool;
+    private final BitSet claimedRows = new BitSet();
+    private final BitSet claimedCols = new BitSet();
+    private final int[] rows = new int[3], cols = new int[3];
+    private final int[][] results = new int[MAX_GROUP][GameEngine.MAX_CHANGED];
+    private final int[] counts = new int[MAX_GROUP];
+
+    // 통계 (게임 루프 스레드만 씀)
+    private long groups = 0;            // 병렬로 적용한 무리 수
+    private long parallelClicks = 0;    // 무리로 적용한 클릭 수
+    private long serialClicks = 0;      // 겹쳐서 혼자 처리한 클릭 수
+
+    public ParallelClicks(int parallelism) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    // batch 전체를 처리. 커밋은 batch 순서대로
+    void process(GameEngine engine, List<ChatServer.ClickTask> batch, Commit commit) {
+        int i = 0;
+        while ( i < batch.size() ) {
+            int end = plan(engine, batch, i);
+            if ( end - i == 1 ) {                       // 바로 다음 클릭과 겹침 -> 순차
+                serial(engine, batch.get(i), commit);
+                serialClicks++;
+                i++;
+                continue;
+            }
+            ServerEvents.ClickGroup event = new ServerEvents.ClickGroup();
+            event.begin();
+            pool.invoke(new Apply(engine, batch, i, i, end));
+            if ( event.shouldCommit() ) {
+                event.size = end - i;
+                event.commit();
+            }
+            groups++;
+            parallelClicks += end - i;
+
+            // 재생성 검사는 마지막 성공 뒤 한 번만. 그 앞의 성공들 뒤에는 아직 성공할 클릭(뒤의 성공)이 남아 있으므로 막힐 수 없음
+            int last = -1;
+            for ( int k = i; k < end; k++ ) {
+                if ( counts[k - i] > 0 ) last = k;
+            }
+            boolean regenerated = last >= 0 && engine.regenerateIfStuck();
+            for ( int k = i; k < end; k++ ) {
+                if ( regenerated && k > last ) {
+                    // 순차였다면 새 보드에서 처리됐을 클릭. 옛 보드에서는 실패였으니(보드를 안 바꿨으니) 다시 처리
+                    serial(engine, batch.get(k), commit);
+                } else {
+                    commit.accept(batch.get(k), counts[k - i], results[k - i], regenerated && k == last);
+                }
+            }
+            i = end;
+        }
+    }
+
+    // from부터 행/열이 겹치지 않는 데까지 (최대 MAX_GROUP개). 반환은 끝 index(미포함), 최소 from+1
+    private int plan(GameEngine engine, List<ChatServer.ClickTask> batch, int from) {
+        claimedRows.clear();
+        claimedCols.clear();
+        int end = from;
+        while ( end < batch.size() && end - from < MAX_GROUP ) {
+            ChatServer.ClickTask t = batch.get(end);
+            engine.footprint(t.x, t.y, rows, cols);
+            if ( end > from && overlaps() ) break;
+            claim();
+            end++;
+        }
+        return end;
+    }
+
+    private boolean overlaps() {
+        for ( int k = 0; k < 3; k++ ) {
+            if ( rows[k] >= 0 && claimedRows.get(rows[k]) ) return true;
+            if ( cols[k] >= 0 && claimedCols.get(cols[k]) ) return true;
+        }
+        return false;
+    }
+
+    private void claim() {
+        for ( int k = 0; k < 3; k++ ) {
+            if ( rows[k] >= 0 ) claimedRows.set(rows[k]);
+            if ( cols[k] >= 0 ) claimedCols.set(cols[k]);
+        }
+    }
+
+    private void serial(GameEngine engine, ChatServer.ClickTask t, Commit commit) {
+        int gen = engine.getGeneration();
+        int n = engine.tryClickInto(t.x, t.y, results[0]);
+        commit.accept(t, n, results[0], engine.getGeneration() != gen);
+    }
+
+    public long getGroups() {
+        return groups;
+    }
+
+    public long getParallelClicks() {
+        return parallelClicks;
+    }
+
+    public long getSerialClicks() {
+        return serialClicks;
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // [lo, hi) 구간 클릭 적용. 결과는 results/counts의 (index - base) 자리에
+    private class Apply extends RecursiveAction {
+        private final GameEngine engine;
+        private final List<ChatServer.ClickTask> batch;
+        private final int base, lo, hi;
+
+        Apply(GameEngine engine, List<ChatServer.ClickTask> batch, int base, int lo, int hi) {
+            this.engine = engine;
+            this.batch = batch;
+            this.base = base;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if ( hi - lo < MIN_SPLIT ) {
+                for ( int k = lo; k < hi; k++ ) {
+                    ChatServer.ClickTask t = batch.get(k);
+                    counts[k - base] = engine.applyClickInto(t.x, t.y, results[k - base]);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new Apply(engine, batch, base, lo, mid), new Apply(engine, batch, base, mid, hi));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.serverclient;
+
+import java.io.Serializable;
+
+// 누적 순위표 한 줄 (RankingStore가 만들어 주는 읽기 전용 사본)
+public class RankEntry implements Serializable {
+    private final int rank;             // 1부터
+    private final String nickname;
+    private final long totalScore;      // 지금까지 모든 판 점수 합
+    private final int matches;          // 참가한 판 수
+    private final int bestScore;        // 한 판 최고 점수
+
+    public RankEntry(int rank, String nickname, long totalScore, int matches, int bestScore) {
+        this.rank = rank;
+        this.nickname = nickname;
+        this.totalScore = totalScore;
+        this.matches = matches;
+        this.bestScore = bestScore;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public String getNickname() {
+        return nickname;
+    }
+
+    public long getTotalScore() {
+        return totalScore;
+    }
+
+    public int getMatches() {
+        return matches;
+    }
+
+    public int getBestScore() {
+        return bestScore;
+    }
+}
@@ -0,0 +1,375 @@
+package com.serverclient;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// 판을 넘어서 쌓이는 누적 순위 저장소
+// 파일 두 개에 추가만 함
+//   <base>.results  고정 길이 레코드 (플레이어 한 명의 한 판 결과). 닉네임 대신 번호를 써서 레코드당 RECORD_SIZE바이트
+//   <base>.players  닉네임 목록 [길이 short][UTF-8]. 순서가 곧 번호
+// 메모리에는 플레이어별 합계와, 합계 내림차순으로 정렬된 목록, 플레이어별 레코드 번호만 둠
+// 순위/상위 N명은 정렬된 목록에서 이진 탐색, 기록은 레코드 번호로 파일 위치를 바로 읽음
+// 파일 쓰기는 전용 스레드가 하고, record()는 색인만 고치고 바로 반환 (게임 루프/종료 처리가 디스크를 기다리지 않음)
+// 재시작하면 두 파일을 처음부터 읽어 색인을 다시 만듦. 쓰다 만 마지막 레코드는 버림
+public class RankingStore {
+    private static final int MAX_NAME_BYTES = 200;
+    private static final int RECORD_SIZE = 8 + 8 + 4 + 4 + 2 + 2;  // 판 번호+1, 종료 시각, 플레이어 번호, 점수, 등수, 참가자 수
+
+    // 합계 내림차순, 같으면 닉네임 순
+    private static final Comparator<Player> ORDER = (a, b) -> {
+        int c = Long.compare(b.total, a.total);
+        return (c != 0) ? c : a.name.compareTo(b.name);
+    };
+
+    private static class Player {
+        final int id;
+        final String name;
+        long total;
+        int matches;
+        int best;
+        int[] records = new int[4];         // 이 플레이어의 레코드 번호 (오래된 것부터)
+
+        Player(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        void addRecord(int index) {
+            if ( matches == records.length ) records = Arrays.copyOf(records, matches * 2);
+            records[matches++] = index;
+        }
+    }
+
+    // 파일에 쓸 일 하나 (pos 위치에 씀)
+    private static class Write {
+        final FileChannel ch;
+        final ByteBuffer buf;
+        final long pos;
+        final int recordIndex;              // 결과 레코드면 번호, 아니면 -1
+
+        Write(FileChannel ch, ByteBuffer buf, long pos, int recordIndex) {
+            this.ch = ch;
+            this.buf = buf;
+            this.pos = pos;
+            this.recordIndex = recordIndex;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Player> byName = new HashMap<>();
+    private final List<Player> byId = new ArrayList<>();
+    private final List<Player> order = new ArrayList<>();      // ORDER로 정렬
+    private long nextMatchId = 0L;
+    private int nextRecord = 0;
+
+    private final FileChannel results;      // 파일을 못 열면 null (메모리 순위만 사용)
+    private final FileChannel names;
+    private long namesEnd = 0L;
+    private final BlockingQueue<Write> writes = new LinkedBlockingQueue<>();
+    private final Map<Integer, MatchRecord> unwritten = new ConcurrentHashMap<>();     // 아직 파일에 안 쓴 레코드
+
+    public RankingStore(Path base) {
+        FileChannel r = null, n = null;
+        if ( base != null ) {
+            try {
+                r = FileChannel.open(base.resolveSibling(base.getFileName() + ".results"),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                // 위치 지정 쓰기라 같은 파일을 두 서버가 쓰면 서로의 레코드를 덮어씀. 잠금은 .results 하나로 둘 다 지킴
+                if ( !tryLock(r) ) throw new IOException(base + " 잠금 실패 (다른 서버가 사용 중)");
+                n = FileChannel.open(base.resolveSibling(base.getFileName() + ".players"),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                load(r, n);
+            } catch ( IOException e ) {
+                ServerLog.warn("순위 파일 사용 불가, 메모리 순위만 사용:", e.getMessage());
+                closeQuietly(r);
+                closeQuietly(n);
+                r = null;
+                n = null;
+            }
+        }
+        this.results = r;
+        this.names = n;
+        if ( results != null ) {
+            Thread writer = new Thread(this::writeLoop, "순위 기록");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    // 프로세스가 끝나면 잠금도 풀림. 같은 JVM 안에서 이미 잠근 파일이면 OverlappingFileLockException
+    static boolean tryLock(FileChannel ch) throws IOException {
+        try {
+            return ch.tryLock() != null;
+        } catch ( OverlappingFileLockException e ) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(FileChannel ch) {
+        if ( ch == null ) return;
+        try {
+            ch.close();
+        } catch ( IOException ignored ) {
+        }
+    }
+
+    // 한 판 결과 기록. scores는 닉네임 -> 점수. 색인은 바로 바뀌고 파일은 나중에 씀
+    public void record(Map<String, Integer> scores, long endedAtMillis) {
+        if ( scores.isEmpty() ) return;
+        List<Map.Entry<String, Integer>> sorted = new ArrayList<>(scores.entrySet());
+        sorted.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+
+        lock.writeLock().lock();
+        try {
+            long matchId = nextMatchId++;
+            for ( int i = 0; i < sorted.size(); i++ ) {
+                String name = normalize(sorted.get(i).getKey());
+                int score = sorted.get(i).getValue();
+                Player p = byName.get(name);
+                if ( p == null ) {
+                    p = addPlayer(name);
+                    if ( names != null ) {
+                        ByteBuffer nb = encodeName(name);
+                        long at = namesEnd;
+                        namesEnd += nb.remaining();         // 쓰기 스레드가 버퍼를 소비하기 전에 길이 확정
+                        writes.add(new Write(names, nb, at, -1));
+                    }
+                } else {
+                    order.remove(indexOf(p));
+                }
+                int index = nextRecord++;
+                apply(p, index, score);
+                order.add(-(Collections.binarySearch(order, p, ORDER) + 1), p);
+
+                if ( results != null ) {
+                    MatchRecord rec = new MatchRecord(matchId, endedAtMillis, name, score, i + 1, sorted.size());
+                    unwritten.put(index, rec);
+                    writes.add(new Write(results, encode(rec, p.id), (long) index * RECORD_SIZE, index));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 상위 n명
+    public List<RankEntry> top(int n) {
+        lock.readLock().lock();
+        try {
+            List<RankEntry> out = new ArrayList<>(Math.min(n, order.size()));
+            for ( int i = 0; i < n && i < order.size(); i++ ) {
+                out.add(entry(order.get(i), i));
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 닉네임의 순위 정보 (기록이 없으면 null)
+    public RankEntry lookup(String nickname) {
+        lock.readLock().lock();
+        try {
+            Player p = byName.get(normalize(nickname));
+            return (p == null) ? null : entry(p, indexOf(p));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 최근 n판 기록 (최근 것부터)
+    public List<MatchRecord> history(String nickname, int n) {
+        int[] indexes;
+        lock.readLock().lock();
+        try {
+            Player p = byName.get(normalize(nickname));
+            if ( p == null ) return new ArrayList<>();
+            int count = Math.min(n, p.matches);
+            indexes = new int[count];
+            for ( int i = 0; i < count; i++ ) {
+                indexes[i] = p.records[p.matches - 1 - i];
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<MatchRecord> out = new ArrayList<>(indexes.length);
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE);
+        for ( int index : indexes ) {
+            MatchRecord rec = unwritten.get(index);
+            if ( rec == null ) rec = read(index, buf);
+            if ( rec != null ) out.add(rec);
+        }
+        return out;
+    }
+
+    public int playerCount() {
+        lock.readLock().lock();
+        try {
+            return order.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 저장소 안에서 쓰는 닉네임. 파일에 들어가는 길이(MAX_NAME_BYTES, UTF-8)로 글자 경계에서 자름
+    // 기록/조회 입구마다 거쳐서 메모리 색인과 재시작 후 파일에서 읽은 이름이 같은 키가 되게 함
+    static String normalize(String name) {
+        byte[] b = name.getBytes(StandardCharsets.UTF_8);
+        if ( b.length <= MAX_NAME_BYTES ) return name;
+        int len = MAX_NAME_BYTES;
+        while ( len > 0 && (b[len] & 0xC0) == 0x80 ) {
+            len--;      // UTF-8 이어지는 바이트면 그 글자 앞에서
+        }
+        return new String(b, 0, len, StandardCharsets.UTF_8);
+    }
+
+    private RankEntry entry(Player p, int index) {
+        return new RankEntry(index + 1, p.name, p.total, p.matches, p.best);
+    }
+
+    private int indexOf(Player p) {
+        return Collections.binarySearch(order, p, ORDER);
+    }
+
+    private Player addPlayer(String name) {
+        Player p = new Player(byId.size(), name);
+        byId.add(p);
+        byName.put(name, p);
+        return p;
+    }
+
+    private static void apply(Player p, int index, int score) {
+        p.total += score;
+        p.best = (p.matches == 0) ? score : Math.max(p.best, score);
+        p.addRecord(index);
+    }
+
+    // 파일 쓰기 스레드. 결과 레코드는 위치 지정 쓰기라 순서와 상관없지만, 닉네임은 번호 순서대로 이어 써야 하므로 한 스레드에서
+    private void writeLoop() {
+        while ( true ) {
+            try {
+                Write w = writes.take();
+                while ( w.buf.hasRemaining() ) {
+                    w.ch.write(w.buf, w.pos + w.buf.position());
+                }
+                if ( w.recordIndex >= 0 ) {
+                    unwritten.remove(w.recordIndex);
+                }
+            } catch ( InterruptedException e ) {
+                return;
+            } catch ( IOException e ) {
+                ServerLog.warn("순위 기록 저장 실패:", e.getMessage());
+            }
+        }
+    }
+
+    // 재시작 시 색인 복구
+    private void load(FileChannel r, FileChannel n) throws IOException {
+        ByteBuffer all = ByteBuffer.allocate((int) n.size());
+        while ( all.hasRemaining() && n.read(all, all.position()) >= 0 ) { }
+        all.flip();
+        while ( all.remaining() >= 2 ) {
+            int len = all.getShort();
+            if ( len < 0 || len > all.remaining() ) break;          // 쓰다 만 닉네임
+            byte[] b = new byte[len];
+            all.get(b);
+            addPlayer(new String(b, StandardCharsets.UTF_8));
+            namesEnd = all.position();
+        }
+
+        long count = r.size() / RECORD_SIZE;
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE * 4096);
+        long loaded = 0;
+        for ( long pos = 0; pos < count * RECORD_SIZE; ) {
+            buf.clear();
+            buf.limit((int) Math.min(buf.capacity(), count * RECORD_SIZE - pos));
+            while ( buf.hasRemaining() && r.read(buf, pos + buf.position()) >= 0 ) { }
+            buf.flip();
+            while ( buf.remaining() >= RECORD_SIZE ) {
+                long id = buf.getLong() - 1;
+                buf.getLong();
+                int playerId = buf.getInt();
+                int score = buf.getInt();
+                buf.getShort();
+                buf.getShort();
+                int index = (int) (pos / RECORD_SIZE);
+                pos += RECORD_SIZE;
+                if ( id < 0 || playerId < 0 || playerId >= byId.size() ) continue;     // 빈 자리/닉네임이 안 써진 레코드
+                apply(byId.get(playerId), index, score);
+                nextMatchId = Math.max(nextMatchId, id + 1);
+                loaded++;
+            }
+        }
+        nextRecord = (int) count;
+        for ( Player p : byId ) {
+            if ( p.matches > 0 ) order.add(p);
+        }
+        order.sort(ORDER);
+        ServerLog.info("순위 기록 " + loaded + "건, 플레이어 " + order.size() + "명 불러옴");
+    }
+
+    private MatchRecord read(int index, ByteBuffer buf) {
+        if ( results == null ) return null;
+        buf.clear();
+        try {
+            long pos = (long) index * RECORD_SIZE;
+            while ( buf.hasRemaining() ) {
+                if ( results.read(buf, pos + buf.position()) < 0 ) return null;
+            }
+        } catch ( IOException e ) {
+            return null;
+        }
+        buf.flip();
+        long id = buf.getLong() - 1;
+        long endedAt = buf.getLong();
+        int playerId = buf.getInt();
+        int score = buf.getInt();
+        int place = buf.getShort();
+        int players = buf.getShort();
+        if ( id < 0 ) return null;
+        String name;
+        lock.readLock().lock();
+        try {
+            name = (playerId >= 0 && playerId < byId.size()) ? byId.get(playerId).name : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+        return (name == null) ? null : new MatchRecord(id, endedAt, name, score, place, players);
+    }
+
+    private static ByteBuffer encode(MatchRecord rec, int playerId) {
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE);
+        buf.putLong(rec.getMatchId() + 1);      // 0으로 채워진 빈 자리와 구분하려고 +1
+        buf.putLong(rec.getEndedAtMillis());
+        buf.putInt(playerId);
+        buf.putInt(rec.getScore());
+        buf.putShort((short) rec.getPlace());
+        buf.putShort((short) rec.getPlayers());
+        return buf.flip();
+    }
+
+    // name은 normalize를 거친 것 (MAX_NAME_BYTES 이하)
+    private static ByteBuffer encodeName(String name) {
+        byte[] b = name.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.allocate(2 + b.length);
+        buf.putShort((short) b.length);
+        buf.put(b);
+        return buf.flip();
+    }
+}
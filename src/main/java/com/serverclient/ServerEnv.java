@@ -0,0 +1,50 @@
+package com.serverclient;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// ChatServer가 바깥 세계에서 가져다 쓰는 것들 (시계, 예약 실행기, 파일, 난수)
+// 기본(standard)은 실제 시계/스레드/파일. 시뮬레이션(SimDriver)은 가상 시계와 예약 실행기, 메모리 저장소, 고정 시드를 넣어서
+// 게임 루프 스레드 없이 한 스레드에서 같은 결과가 나오게 돌림
+public class ServerEnv {
+    final Clock clock;
+    final ScheduledExecutorService scheduler;
+    final boolean clickThread;          // false면 게임 루프 스레드 없이 호출자가 ChatServer.runQueuedClicks()로 처리
+    final Path checkpoint;              // null이면 체크포인트 안 함
+    final Path chatLog;                 // null이면 채팅 기록은 메모리만
+    final Path ranking;                 // null이면 순위는 메모리만
+    final BoardPool boards;
+    final LongSupplier seeds;           // 봇 난수 시드
+    final Supplier<String> tokens;      // 세션 토큰
+
+    ServerEnv(Clock clock, ScheduledExecutorService scheduler, boolean clickThread,
+              Path checkpoint, Path chatLog, Path ranking,
+              BoardPool boards, LongSupplier seeds, Supplier<String> tokens) {
+        this.clock = clock;
+        this.scheduler = scheduler;
+        this.clickThread = clickThread;
+        this.checkpoint = checkpoint;
+        this.chatLog = chatLog;
+        this.ranking = ranking;
+        this.boards = boards;
+        this.seeds = seeds;
+        this.tokens = tokens;
+    }
+
+    // 실제 서버용. 파일 경로는 시스템 속성(serverclient.checkpoint, chatLog, ranking)을 따름
+    public static ServerEnv standard(int port) {
+        return new ServerEnv(Clock.systemUTC(), Executors.newSingleThreadScheduledExecutor(), true,
+                Path.of(System.getProperty("serverclient.checkpoint", "match-" + port + ".ckpt")),
+                Path.of(System.getProperty("serverclient.chatLog", "chat-history-" + port + ".log")),
+                Path.of(System.getProperty("serverclient.ranking", "ranking-" + port)),
+                new BoardPool(),
+                () -> ThreadLocalRandom.current().nextLong(),
+                () -> UUID.randomUUID().toString());
+    }
+}
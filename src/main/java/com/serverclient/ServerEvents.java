@@ -0,0 +1,112 @@
+package com.serverclient;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+// JFR(Java Flight Recorder) 사용자 이벤트
+// 녹화할 때만 기록되고, 녹화가 꺼져 있으면 생성/commit이 거의 비용 없이 사라짐
+// 예: java -XX:StartFlightRecording=filename=server.jfr,settings=profile ... ChatServer
+//     jfr print --categories ServerClient server.jfr
+// 클릭 지연은 ClickEnqueue -> ClickDequeue(큐 대기) -> ClickProcess(엔진 + 이벤트 생성) -> Broadcast -> ConnectionWrite 순서로 보면 됨
+public final class ServerEvents {
+    private ServerEvents() {}
+
+    @Name("serverclient.ClickEnqueue")
+    @Label("Click Enqueue")
+    @Category({"ServerClient", "Click"})
+    @StackTrace(false)
+    public static class ClickEnqueue extends Event {
+        @Label("Player") String player;
+        @Label("X") int x;
+        @Label("Y") int y;
+        @Label("Client Seq") int clientSeq;
+        @Label("Queue Depth") int queueDepth;
+        @Label("Accepted") @Description("false면 큐가 가득 차서 거절") boolean accepted;
+    }
+
+    @Name("serverclient.ClickDequeue")
+    @Label("Click Dequeue")
+    @Category({"ServerClient", "Click"})
+    @StackTrace(false)
+    public static class ClickDequeue extends Event {
+        @Label("Player") String player;
+        @Label("Client Seq") int clientSeq;
+        @Label("Queue Wait") @Timespan(Timespan.NANOSECONDS) long queueWait;
+        @Label("Batch Size") @Description("한 번에 꺼낸 클릭 수 (지연 보정/병렬 모드)") int batchSize;
+    }
+
+    @Name("serverclient.ClickProcess")
+    @Label("Click Process")
+    @Description("게임 루프에서 클릭 하나 처리 (엔진 적용 + 응답/방송 이벤트 생성)")
+    @Category({"ServerClient", "Click"})
+    @StackTrace(false)
+    public static class ClickProcess extends Event {
+        @Label("Player") String player;
+        @Label("Client Seq") int clientSeq;
+        @Label("Changed Cells") @Description("음수면 거절 코드") int changed;
+        @Label("Regenerated") boolean regenerated;
+    }
+
+    @Name("serverclient.ClickGroup")
+    @Label("Parallel Click Group")
+    @Category({"ServerClient", "Click"})
+    @StackTrace(false)
+    public static class ClickGroup extends Event {
+        @Label("Size") int size;
+    }
+
+    @Name("serverclient.EngineClick")
+    @Label("Engine Click")
+    @Category({"ServerClient", "Engine"})
+    @StackTrace(false)
+    public static class EngineClick extends Event {
+        @Label("X") int x;
+        @Label("Y") int y;
+        @Label("Result") @Description("바뀐 칸 수, 음수면 거절 코드") int result;
+    }
+
+    @Name("serverclient.BoardRegenerate")
+    @Label("Board Regenerate")
+    @Category({"ServerClient", "Engine"})
+    @StackTrace(false)
+    public static class BoardRegenerate extends Event {
+        @Label("Width") int width;
+        @Label("Height") int height;
+        @Label("Planted Moves") int planted;
+    }
+
+    @Name("serverclient.Broadcast")
+    @Label("Broadcast")
+    @Description("전체 방송 한 번. 시간은 모든 송신 레인에 넣는 데 걸린 시간 (실제 쓰기는 ConnectionWrite)")
+    @Category({"ServerClient", "Network"})
+    @StackTrace(false)
+    public static class Broadcast extends Event {
+        @Label("Command") String command;
+        @Label("Server Seq") long serverSeq;
+        @Label("Recipients") int recipients;
+        @Label("Message Size") @DataAmount int messageBytes;
+        @Label("Total Bytes") @DataAmount long totalBytes;
+    }
+
+    // 기본 임계값 이상 걸린 쓰기만 남김 (설정에서 0 ms로 바꾸면 모든 쓰기)
+    @Name("serverclient.ConnectionWrite")
+    @Label("Connection Write")
+    @Description("연결 하나의 송신 스레드가 묶음을 쓰고 flush하는 데 걸린 시간. 오래 걸리면 송신 막힘")
+    @Category({"ServerClient", "Network"})
+    @Threshold("10 ms")
+    @StackTrace(false)
+    public static class ConnectionWrite extends Event {
+        @Label("Player") String player;
+        @Label("Messages") int messages;
+        @Label("Bytes") @DataAmount long bytes;
+        @Label("Game Lane Backlog") int gameBacklog;
+        @Label("Chat Lane Backlog") int chatBacklog;
+    }
+}
@@ -0,0 +1,206 @@
+package com.serverclient;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// 서버 로그 (System.out.println / printStackTrace 대신)
+// 부르는 스레드는 미리 만들어 둔 링 버퍼 칸에 값만 채우고 바로 반환. 문자열 만들기와 출력은 전용 출력 스레드가 함
+// - 버퍼가 가득 차면 기다리지 않고 버림 (버린 수는 나중에 한 줄로 알림)
+// - 메시지는 고정 문자열 + 값 하나(arg)로 넘기면 부르는 쪽에서 문자열을 이어 붙이지 않아도 됨
+// - 연결(conn: 닉네임 등)과 판 번호(match, 0이면 없음)를 같이 찍음
+// - WARN 이상은 같은 메시지가 REPEAT_WINDOW_MILLIS 안에 REPEAT_LIMIT번 넘게 오면 나머지는 세기만 하고, 다음 창의 첫 줄에 생략 수를 붙임
+// -Dserverclient.logLevel=DEBUG|INFO|WARN|ERROR (기본 INFO), -Dserverclient.logBuffer=칸 수 (2의 거듭제곱으로 올림)
+public final class ServerLog {
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    static final Level LEVEL = Level.valueOf(System.getProperty("serverclient.logLevel", "INFO").toUpperCase());
+    static final int CAPACITY = Integer.highestOneBit(Math.max(16, Integer.getInteger("serverclient.logBuffer", 4096)) - 1) << 1;
+    static final int REPEAT_LIMIT = Integer.getInteger("serverclient.logRepeatLimit", 5);
+    static final long REPEAT_WINDOW_MILLIS = Long.getLong("serverclient.logRepeatMillis", 10000L);
+    private static final int REPEAT_KEYS = 1024;                // 이보다 많은 종류는 제한 없이 찍음
+    private static final long IDLE_PARK_NANOS = 5_000_000L;     // 비어 있을 때 출력 스레드가 쉬는 시간
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    // 링 버퍼 칸. seq가 칸 번호와 같아지면 채우기가 끝난 것 (volatile 쓰기로 나머지 필드를 같이 내보냄)
+    private static final class Slot {
+        volatile long seq = -1L;
+        long time;
+        Level level;
+        String thread, conn, msg;
+        int match;
+        Object arg;
+        Throwable error;
+        long suppressed;
+    }
+
+    // 같은 메시지 반복 제한 상태 (메시지 문자열마다)
+    private static final class Repeat {
+        long windowStart;
+        int count;
+        long suppressed;
+    }
+
+    private static final int MASK = CAPACITY - 1;
+    private static final Slot[] slots = new Slot[CAPACITY];
+    private static final AtomicLong head = new AtomicLong();    // 다음에 잡을 칸
+    private static volatile long tail = 0L;                     // 다음에 출력할 칸 (출력 스레드만 씀)
+    private static final LongAdder dropped = new LongAdder();
+    private static long reportedDropped = 0L;
+    private static final ConcurrentHashMap<String, Repeat> repeats = new ConcurrentHashMap<>();
+    private static final Object drainLock = new Object();
+    private static final Thread drainer;
+
+    static {
+        for ( int i = 0; i < CAPACITY; i++ ) {
+            slots[i] = new Slot();
+        }
+        drainer = new Thread(ServerLog::drainLoop, "로그 출력");
+        drainer.setDaemon(true);
+        drainer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(ServerLog::drain, "로그 마무리"));
+    }
+
+    private ServerLog() {
+    }
+
+    public static boolean enabled(Level level) {
+        return level.compareTo(LEVEL) >= 0;
+    }
+
+    public static void info(String msg) {
+        log(Level.INFO, null, 0, msg, null, null);
+    }
+
+    public static void info(String msg, Object arg) {
+        log(Level.INFO, null, 0, msg, arg, null);
+    }
+
+    public static void warn(String msg, Object arg) {
+        log(Level.WARN, null, 0, msg, arg, null);
+    }
+
+    public static void error(String msg, Throwable error) {
+        log(Level.ERROR, null, 0, msg, null, error);
+    }
+
+    // msg 뒤에 arg를 한 칸 띄워 찍음 (arg는 출력 스레드에서 문자열로 바뀌므로 넘긴 뒤 바꾸지 말 것)
+    public static void log(Level level, String conn, int match, String msg, Object arg, Throwable error) {
+        if ( !enabled(level) ) return;
+        long suppressed = 0L;
+        if ( level.compareTo(Level.WARN) >= 0 ) {
+            suppressed = admit(msg);
+            if ( suppressed < 0 ) return;
+        }
+        long h;
+        do {
+            h = head.get();
+            if ( h - tail >= CAPACITY ) {       // 가득 참. 기다리지 않고 버림
+                dropped.increment();
+                return;
+            }
+        } while ( !head.compareAndSet(h, h + 1) );
+        Slot s = slots[(int) (h & MASK)];
+        s.time = System.currentTimeMillis();
+        s.level = level;
+        s.thread = Thread.currentThread().getName();
+        s.conn = conn;
+        s.match = match;
+        s.msg = msg;
+        s.arg = arg;
+        s.error = error;
+        s.suppressed = suppressed;
+        s.seq = h;
+        if ( level.compareTo(Level.WARN) >= 0 ) {
+            LockSupport.unpark(drainer);
+        }
+    }
+
+    // 버퍼가 넘쳐 버린 수
+    public static long dropped() {
+        return dropped.sum();
+    }
+
+    // 반복 제한. 찍을 거면 직전 창에서 생략한 수(0 이상), 생략할 거면 -1
+    private static long admit(String msg) {
+        if ( msg == null ) return 0L;
+        Repeat r = repeats.get(msg);
+        if ( r == null ) {
+            if ( repeats.size() >= REPEAT_KEYS ) return 0L;
+            r = repeats.computeIfAbsent(msg, k -> new Repeat());
+        }
+        long now = System.currentTimeMillis();
+        synchronized (r) {
+            if ( now - r.windowStart >= REPEAT_WINDOW_MILLIS ) {
+                r.windowStart = now;
+                r.count = 0;
+            }
+            if ( ++r.count > REPEAT_LIMIT ) {
+                r.suppressed++;
+                return -1L;
+            }
+            long s = r.suppressed;
+            r.suppressed = 0L;
+            return s;
+        }
+    }
+
+    private static void drainLoop() {
+        while ( true ) {
+            if ( !drain() ) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    // 채워진 칸을 순서대로 출력. 출력한 게 있으면 true
+    private static boolean drain() {
+        synchronized (drainLock) {
+            StringBuilder sb = new StringBuilder();
+            long t = tail;
+            while ( true ) {
+                Slot s = slots[(int) (t & MASK)];
+                if ( s.seq != t ) break;        // 아직 안 채워졌거나 비어 있음
+                format(sb, s);
+                s.thread = s.conn = s.msg = null;
+                s.arg = null;
+                s.error = null;
+                t++;
+                tail = t;
+            }
+            long d = dropped.sum();
+            if ( d > reportedDropped ) {
+                sb.append(TIME.format(Instant.now())).append(" WARN  로그 버퍼가 넘쳐 ").append(d - reportedDropped).append("건 버림\n");
+                reportedDropped = d;
+            }
+            if ( sb.length() == 0 ) return false;
+            System.out.print(sb);
+            System.out.flush();
+            return true;
+        }
+    }
+
+    private static void format(StringBuilder sb, Slot s) {
+        sb.append(TIME.format(Instant.ofEpochMilli(s.time))).append(' ');
+        sb.append(s.level);
+        for ( int i = s.level.name().length(); i < 6; i++ ) sb.append(' ');
+        sb.append('[').append(s.thread).append(']');
+        if ( s.match > 0 ) sb.append(" #").append(s.match);
+        if ( s.conn != null ) sb.append(" <").append(s.conn).append('>');
+        sb.append(' ').append(s.msg);
+        if ( s.arg != null ) sb.append(' ').append(s.arg);
+        if ( s.suppressed > 0 ) sb.append(" (같은 메시지 ").append(s.suppressed).append("건 생략)");
+        sb.append('\n');
+        if ( s.error != null ) {
+            StringWriter w = new StringWriter();
+            s.error.printStackTrace(new PrintWriter(w));
+            sb.append(w);
+        }
+    }
+}
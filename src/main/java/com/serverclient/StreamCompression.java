@@ -0,0 +1,276 @@
+package com.serverclient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// 연결별 메시지 압축 (JOIN/RESUME 때 협상)
+// 클라이언트가 JOIN/RESUME에 지원 방식(offer)을 싣고, 서버가 고른 방식을 SESSION에 실어 돌려주면 그 뒤로 양쪽 모두 사용
+// 메시지 하나를 따로 직렬화해서 연결 하나에 계속 이어지는 deflate 스트림으로 압축하고 SYNC_FLUSH로 끊어 COMPRESSED에 담아 보냄
+// 따로 직렬화할 때 클래스 설명은 이름만 씀 (양쪽이 같은 빌드라는 건 협상에서 확인)
+// - 미리 정한 사전(자주 오가는 메시지 직렬화 결과)을 깔아서 첫 메시지부터 클래스 설명/필드 이름이 거의 공짜가 됨
+// - 압축 문맥이 연결 내내 이어지므로 반복되는 채팅/로비 목록/보드 내용도 앞 메시지를 참조해서 줄어듦
+// - 원래 크기가 THRESHOLD 바이트보다 작으면 압축하지 않고 그대로 보냄
+// -Dserverclient.compression=false면 클라이언트는 제안하지 않고 서버는 수락하지 않음
+// 방식 이름에 사전의 Adler32와 InfoDTO 직렬화 버전을 넣어서, 다른 빌드끼리는 협상이 안 되고 압축 없이 통신함
+// wrap은 보내는 스레드 하나, unwrap은 받는 스레드 하나에서만 부를 것
+public class StreamCompression {
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("serverclient.compression", "true"));
+    static final int THRESHOLD = Integer.getInteger("serverclient.compressThreshold", 128);
+    // 받은 COMPRESSED 한 통을 풀었을 때 최대 크기. 작은 payload가 아주 크게 풀리는 메시지로 메모리를 다 쓰지 못하게
+    // 서버는 클라이언트 메시지(클릭 묶음, 채팅 등)만 풀므로 작게, 클라이언트는 서버의 따라잡기 묶음까지 받으므로 크게
+    static final int MAX_INFLATED = Integer.getInteger("serverclient.maxInflated", 256 * 1024);
+    static final int CLIENT_MAX_INFLATED = 64 * 1024 * 1024;
+    private static final byte[] DICTIONARY = buildDictionary();
+    public static final String MODE = "deflate-dict-" + Long.toHexString(adler(DICTIONARY))
+            + "-" + Long.toHexString(ObjectStreamClass.lookup(InfoDTO.class).getSerialVersionUID());
+
+    // 따로 직렬화하면 연결 스트림과 달리 헤더와 클래스 이름이 매번 들어가므로, 내용 없는 메시지 크기를 빼서 연결 스트림 기준 크기를 어림함
+    private static final int BASELINE = serialize(command(Info.SEND)).length;
+    private static final int CARRIER_OVERHEAD = carrierOverhead();
+
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final Inflater inflater = new Inflater();
+    private byte[] deflateBuf = new byte[4096];
+    private final byte[] inflateBuf = new byte[4096];
+    private final int maxInflated;
+
+    // 통계 (보내는 쪽/받는 쪽 스레드가 각자 자기 것만 씀)
+    private volatile long sentCompressed = 0, sentRaw = 0;
+    private volatile long sentRawBytes = 0, sentWireBytes = 0;     // 압축한 메시지의 원래 크기(어림)와 실제 보낸 크기
+    private volatile long deflateNanos = 0, inflateNanos = 0;
+    private volatile long received = 0;
+
+    public StreamCompression() {
+        this(MAX_INFLATED);
+    }
+
+    public StreamCompression(int maxInflated) {
+        this.maxInflated = maxInflated;
+        deflater.setDictionary(DICTIONARY);
+    }
+
+    // 클라이언트 쪽 지원 목록 (쉼표로 구분). 끈 경우 null
+    public static String offer() {
+        return ENABLED ? MODE : null;
+    }
+
+    // 서버 쪽 선택. 맞는 방식이 없거나 서버에서 끈 경우 null
+    public static String choose(String offered) {
+        if ( !ENABLED || offered == null ) return null;
+        for ( String m : offered.split(",") ) {
+            if ( m.trim().equals(MODE) ) return MODE;
+        }
+        return null;
+    }
+
+    // 보낼 메시지. 작으면 그대로, 아니면 COMPRESSED로 감싸서 반환
+    public InfoDTO wrap(InfoDTO dto) throws IOException {
+        long t0 = System.nanoTime();
+        byte[] raw = serialize(dto);
+        int estimate = raw.length - BASELINE;
+        if ( estimate < THRESHOLD ) {
+            sentRaw++;
+            deflateNanos += System.nanoTime() - t0;
+            return dto;
+        }
+        deflater.setInput(raw);
+        int n = 0;
+        while ( true ) {
+            n += deflater.deflate(deflateBuf, n, deflateBuf.length - n, Deflater.SYNC_FLUSH);
+            if ( n < deflateBuf.length ) break;             // 출력 버퍼가 남았으면 이번 메시지는 다 나옴
+            deflateBuf = Arrays.copyOf(deflateBuf, deflateBuf.length * 2);
+        }
+        InfoDTO carrier = new InfoDTO();
+        carrier.setCommand(Info.COMPRESSED);
+        carrier.setPayload(Arrays.copyOf(deflateBuf, n));
+        sentCompressed++;
+        sentRawBytes += estimate;
+        sentWireBytes += n + CARRIER_OVERHEAD;
+        deflateNanos += System.nanoTime() - t0;
+        return carrier;
+    }
+
+    // COMPRESSED 풀기. 풀린 크기가 maxInflated를 넘으면 IOException (연결을 끊을 것. 압축 문맥이 어긋나서 이어 쓸 수 없음)
+    public InfoDTO unwrap(InfoDTO carrier) throws IOException {
+        long t0 = System.nanoTime();
+        inflater.setInput(carrier.getPayload());
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try {
+            while ( true ) {
+                int n = inflater.inflate(inflateBuf);
+                if ( n > 0 ) {
+                    if ( bos.size() + n > maxInflated ) {
+                        throw new IOException("압축 해제 크기 초과 (" + maxInflated + " bytes)");
+                    }
+                    bos.write(inflateBuf, 0, n);
+                } else if ( inflater.needsDictionary() ) {
+                    inflater.setDictionary(DICTIONARY);
+                } else if ( inflater.needsInput() || inflater.finished() ) {
+                    break;
+                }
+            }
+        } catch ( DataFormatException e ) {
+            throw new IOException("압축 해제 실패", e);
+        }
+        try ( ObjectInputStream in = new CompactInput(new ByteArrayInputStream(bos.toByteArray())) ) {
+            InfoDTO dto = (InfoDTO) in.readObject();
+            received++;
+            inflateNanos += System.nanoTime() - t0;
+            return dto;
+        } catch ( ClassNotFoundException e ) {
+            throw new IOException(e);
+        }
+    }
+
+    // 압축한 메시지가 원래 크기의 몇 배가 됐는지 (낮을수록 좋음, 압축한 게 없으면 1)
+    public double ratio() {
+        long raw = sentRawBytes;
+        return (raw == 0) ? 1.0 : (double) sentWireBytes / raw;
+    }
+
+    public String summary() {
+        return String.format("압축 %d건 (%d -> %d bytes, 비율 %.2f), 그대로 %d건, 받은 압축 %d건, 압축 %.1f ms, 해제 %.1f ms",
+                sentCompressed, sentRawBytes, sentWireBytes, ratio(), sentRaw, received,
+                deflateNanos / 1e6, inflateNanos / 1e6);
+    }
+
+    public long getSentCompressed() {
+        return sentCompressed;
+    }
+
+    public long getSentRaw() {
+        return sentRaw;
+    }
+
+    public long getDeflateNanos() {
+        return deflateNanos;
+    }
+
+    public long getInflateNanos() {
+        return inflateNanos;
+    }
+
+    public void close() {
+        deflater.end();
+        inflater.end();
+    }
+
+    private static byte[] serialize(InfoDTO dto) {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+            try ( ObjectOutputStream out = new CompactOutput(bos) ) {
+                out.writeObject(dto);
+            }
+            return bos.toByteArray();
+        } catch ( IOException e ) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static InfoDTO command(Info command) {
+        InfoDTO dto = new InfoDTO();
+        dto.setCommand(command);
+        return dto;
+    }
+
+    // COMPRESSED 한 통이 연결 스트림에서 차지하는 payload 외 크기 (어림)
+    private static int carrierOverhead() {
+        InfoDTO c = command(Info.COMPRESSED);
+        c.setPayload(new byte[0]);
+        return Math.max(0, serialize(c).length - BASELINE);
+    }
+
+    // 클래스 설명 대신 클래스 이름만 쓰는 직렬화 (필드 목록은 받는 쪽 같은 클래스에서 찾음)
+    private static class CompactOutput extends ObjectOutputStream {
+        CompactOutput(OutputStream out) throws IOException {
+            super(out);
+        }
+
+        @Override
+        protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+            writeUTF(desc.getName());
+        }
+    }
+
+    private static class CompactInput extends ObjectInputStream {
+        CompactInput(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+            String name = readUTF();
+            return ObjectStreamClass.lookupAny(Class.forName(name, false, StreamCompression.class.getClassLoader()));
+        }
+    }
+
+    // 양쪽이 같은 코드로 만들기 때문에 같은 빌드면 같은 바이트가 나옴
+    // deflate는 사전 끝쪽을 더 싸게 참조하므로 자주 오가는 메시지를 뒤에 둠
+    private static byte[] buildDictionary() {
+        List<InfoDTO> samples = new ArrayList<>();
+
+        InfoDTO snap = new InfoDTO();
+        snap.setCommand(Info.BOARD_SNAPSHOT);
+        snap.setServerSeq(1L);
+        snap.setBoard(new CellColor[][] { { CellColor.GRAY, CellColor.RED }, { CellColor.BLUE, CellColor.GREEN }, { CellColor.YELLOW, CellColor.GRAY } });
+        samples.add(snap);
+
+        InfoDTO history = new InfoDTO();
+        history.setCommand(Info.CHAT_HISTORY);
+        List<ChatLine> lines = new ArrayList<>();
+        lines.add(new ChatLine(0L, 0L, "[guest] 안녕하세요"));
+        history.setChatLines(lines);
+        samples.add(history);
+
+        InfoDTO lobby = new InfoDTO();
+        lobby.setCommand(Info.LOBBY_UPDATE);
+        List<PlayerStatus> players = new ArrayList<>();
+        players.add(new PlayerStatus("guest", false));
+        players.add(new PlayerStatus("BOT-1", true));
+        lobby.setLobby(players);
+        samples.add(lobby);
+
+        InfoDTO chat = new InfoDTO();
+        chat.setCommand(Info.SEND);
+        chat.setMessage("guest님 입장하셨습니다.");
+        samples.add(chat);
+
+        InfoDTO up = new InfoDTO();
+        up.setCommand(Info.SCORE_UPDATE);
+        up.setServerSeq(1L);
+        up.setPlayer("guest");
+        up.setScore(2);
+        samples.add(up);
+
+        InfoDTO diff = new InfoDTO();
+        diff.setCommand(Info.BOARD_DIFF);
+        diff.setServerSeq(1L);
+        diff.setPackedDiff(new int[] { Coord.pack(1, 2), Coord.pack(3, 4) });
+        samples.add(diff);
+
+        ByteArrayOutputStream all = new ByteArrayOutputStream();
+        for ( InfoDTO s : samples ) {
+            all.writeBytes(serialize(s));
+        }
+        return all.toByteArray();
+    }
+
+    private static long adler(byte[] b) {
+        Adler32 a = new Adler32();
+        a.update(b);
+        return a.getValue();
+    }
+}
@@ -2,6 +2,7 @@ module com.serverclient {
     requires javafx.controls;
     requires javafx.fxml;
     requires java.desktop;
+    requires jdk.jfr;               // ServerEvents
 
 
     opens com.serverclient to javafx.fxml;
@@ -0,0 +1,149 @@
+package com.serverclient;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.Socket;
+
+// AppCDS 학습용 실행 (gradle serverCds)
+// 서버를 띄우고 가짜 클라이언트 둘로 한 판(입장, 채팅, 기록 요청, 준비, 모든 칸 클릭, 퇴장)을 돌린 뒤 종료
+// 이때 쓰인 클래스를 -XX:ArchiveClassesAtExit로 묶어 두면 실제 서버는 뜰 때 클래스 읽기/검증을 건너뜀
+// 파일 경로(serverclient.checkpoint, chatLog, ranking)는 빌드 스크립트가 임시 디렉터리로 넘겨줌
+public class ServerTraining {
+    private static final long TIMEOUT_MILLIS = 10000L;
+
+    public static void main(String[] args) throws Exception {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : 19500;
+        ChatServer server = new ChatServer(port);
+        Thread serve = new Thread(server::serve, "학습 서버");
+        serve.setDaemon(true);
+        serve.start();
+
+        Client a = new Client(port, "train-a", StreamCompression.offer());     // 압축 협상하는 연결
+        Client b = new Client(port, "train-b", null);                          // 압축 없는 연결
+        a.until(Info.CHAT_HISTORY);
+        b.until(Info.CHAT_HISTORY);
+
+        for ( int i = 0; i < 4; i++ ) {
+            InfoDTO chat = a.dto(Info.SEND);
+            chat.setMessage("학습용 채팅 " + i);
+            a.send(chat);
+            InfoDTO page = b.dto(Info.CHAT_HISTORY);
+            page.setBeforeSeq(Long.MAX_VALUE);
+            b.send(page);
+        }
+
+        a.send(a.dto(Info.READY));
+        b.send(b.dto(Info.READY));
+        CellColor[][] board = a.until(Info.BOARD_SNAPSHOT).getBoard();
+        b.until(Info.BOARD_SNAPSHOT);
+        int height = board.length, width = board[0].length;
+        for ( int y = 0; y < height; y++ ) {
+            for ( int x = 0; x < width; x++ ) {
+                a.click(x, y);
+                b.click(width - 1 - x, height - 1 - y);
+            }
+        }
+        a.awaitReply();
+        b.awaitReply();
+
+        a.send(a.dto(Info.EXIT));
+        b.send(b.dto(Info.EXIT));
+        a.until(Info.EXIT);
+        b.until(Info.EXIT);
+        System.out.println("학습 완료: 클릭 " + (a.clientSeq + b.clientSeq) + "회, " + server.compressionStats());
+        System.exit(0);
+    }
+
+    // ChatClient의 송수신 부분만 흉내낸 동기식 클라이언트
+    private static class Client {
+        private final Socket socket;
+        private final ObjectOutputStream writer;
+        private final ObjectInputStream reader;
+        private final String nickname;
+        private StreamCompression compression;
+        private int clientSeq = 0;
+
+        Client(int port, String nickname, String offer) throws Exception {
+            this.socket = connect(port);
+            this.nickname = nickname;
+            this.writer = new ObjectOutputStream(socket.getOutputStream());
+            this.reader = new ObjectInputStream(socket.getInputStream());
+            socket.setSoTimeout((int) TIMEOUT_MILLIS);
+            InfoDTO join = dto(Info.JOIN);
+            join.setCompression(offer);
+            send(join);
+        }
+
+        // 서버 스레드가 아직 포트를 안 열었을 수 있으므로 잠깐 재시도
+        private static Socket connect(int port) throws Exception {
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while ( true ) {
+                try {
+                    return new Socket("127.0.0.1", port);
+                } catch ( IOException e ) {
+                    if ( System.currentTimeMillis() > deadline ) throw e;
+                    Thread.sleep(20);
+                }
+            }
+        }
+
+        InfoDTO dto(Info command) {
+            InfoDTO dto = new InfoDTO();
+            dto.setCommand(command);
+            dto.setNickName(nickname);
+            return dto;
+        }
+
+        void send(InfoDTO dto) throws IOException {
+            writer.writeObject(compression != null ? compression.wrap(dto) : dto);
+            writer.flush();
+        }
+
+        void click(int x, int y) throws IOException {
+            InfoDTO dto = dto(Info.CLICK_REQ);
+            dto.setX(x);
+            dto.setY(y);
+            dto.setClientSeq(++clientSeq);
+            dto.setClickAt(System.currentTimeMillis());
+            send(dto);
+        }
+
+        // 마지막 클릭의 응답까지 읽음
+        void awaitReply() throws Exception {
+            while ( true ) {
+                InfoDTO dto = read();
+                if ( (dto.getCommand() == Info.CLICK_OK || dto.getCommand() == Info.CLICK_REJECT)
+                        && dto.getClientSeq() != null && dto.getClientSeq() == clientSeq ) {
+                    return;
+                }
+            }
+        }
+
+        InfoDTO until(Info command) throws Exception {
+            while ( true ) {
+                InfoDTO dto = read();
+                if ( dto.getCommand() == command ) return dto;
+            }
+        }
+
+        // 압축 풀기, SESSION의 압축 방식 적용, PING 응답까지 처리한 메시지 하나
+        private InfoDTO read() throws Exception {
+            InfoDTO dto = (InfoDTO) reader.readObject();
+            if ( dto.getCommand() == Info.COMPRESSED ) {
+                dto = compression.unwrap(dto);
+            }
+            if ( dto.getCommand() == Info.SESSION && compression == null && StreamCompression.MODE.equals(dto.getCompression()) ) {
+                compression = new StreamCompression();
+            } else if ( dto.getCommand() == Info.PING ) {
+                InfoDTO pong = dto(Info.PONG);
+                pong.setPingAt(dto.getPingAt());
+                pong.setServerTime(dto.getServerTime());
+                pong.setClientRecvAt(System.currentTimeMillis());
+                pong.setClientSendAt(System.currentTimeMillis());
+                send(pong);
+            }
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+// 서버 전용 모듈 (JavaFX 없음). src/main/java에서 클라이언트 UI(ChatClient, GameController)만 빼고 같이 컴파일
+// 클라이언트 모듈과는 같은 패키지를 쓰므로 한 이미지에 같이 넣지 않음 (gradle serverImage)
+module com.serverclient.server {
+    requires jdk.jfr;               // ServerEvents
+
+    exports com.serverclient;
+}
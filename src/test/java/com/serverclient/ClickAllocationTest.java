@@ -0,0 +1,62 @@
+package com.serverclient;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 클릭 처리 경로 할당량 (엔진 클릭 -> 바뀐 칸 버퍼 -> DIFF 패킷 인코딩)
+// 보드를 훑으면서 계속 클릭하고, 클릭마다 현재 스레드가 할당한 바이트를 잼 (com.sun.management.ThreadMXBean)
+// 보드 재생성이 일어난 클릭은 뺌 (재생성은 새 판을 만드는 일이라 할당함)
+// 범위는 GameEngine.tryClickInto -> DatagramCodec.encodeDiff까지. 서버의 handleClick -> 이벤트 -> TCP 전송은 재지 않음
+class ClickAllocationTest {
+    private static final int W = 30, H = 20;
+    private static final int CLICKS = 200_000;
+    private static final int ROUNDS = 10;       // JIT 컴파일이 끝나기 전 라운드는 할당할 수 있으므로 이만큼까지 기다림
+
+    @Test
+    void engineToDatagramCodecAllocatesNothing() {
+        GameEngine engine = new GameEngine(W, H, 42L);
+        int[] buf = new int[GameEngine.MAX_CHANGED];
+        ByteBuffer packet = ByteBuffer.allocateDirect(DatagramCodec.MAX_PACKET);
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(mx.isThreadAllocatedMemorySupported() && mx.isThreadAllocatedMemoryEnabled(), "스레드 할당량을 잴 수 없음");
+
+        long[] stats = new long[4];
+        for ( int round = 0; round < ROUNDS; round++ ) {
+            stats = run(mx, engine, buf, packet);
+            if ( stats[2] == 0L ) break;
+        }
+        assertTrue(stats[0] > 0, "성공한 클릭이 없음");
+        assertEquals(0L, stats[2], "엔진 -> DatagramCodec 구간 할당 (handleClick -> TCP 전송은 범위 밖): 재생성 없는 클릭 "
+                + (CLICKS - stats[1]) + "회 중 " + stats[3] + "회가 할당");
+    }
+
+    // 반환: 성공, 재생성, 재생성 없는 클릭의 할당 합, 할당이 있었던 클릭 수
+    private static long[] run(com.sun.management.ThreadMXBean mx, GameEngine engine, int[] buf, ByteBuffer packet) {
+        long[] stats = new long[4];
+        long seq = 0;
+        int cell = 0;
+        for ( int i = 0; i < CLICKS; i++ ) {
+            int x = cell % W, y = cell / W;
+            cell = (cell + 7) % (W * H);        // 칸을 건너뛰며 훑기
+            int gen = engine.getGeneration();
+            long before = mx.getCurrentThreadAllocatedBytes();
+            int n = engine.tryClickInto(x, y, buf);
+            if ( n > 0 ) {
+                DatagramCodec.encodeDiff(packet, ++seq, seq - 1, buf, n);
+            }
+            long bytes = mx.getCurrentThreadAllocatedBytes() - before;
+            if ( n > 0 ) stats[0]++;
+            if ( engine.getGeneration() != gen ) {
+                stats[1]++;
+            } else {
+                stats[2] += bytes;
+                if ( bytes > 0 ) stats[3]++;
+            }
+        }
+        return stats;
+    }
+}
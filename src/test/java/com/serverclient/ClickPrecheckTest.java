@@ -0,0 +1,124 @@
+package com.serverclient;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 클릭 사전 검사(ChatServer.precheck)가 게임 루프 판정을 바꾸지 않는지
+// 같은 시드로 만든 엔진에 같은 순서로 클릭을 적용한 결과(OK/거절)와 서버 응답을 클릭마다 비교
+// 처리 전에 클릭을 여러 개 쌓아서, 앞선 클릭이 칸을 회색으로 바꾸거나 보드를 새로 까는 경우가 섞이게 함
+// 사전 검사가 실제로 일찍 거절하는지도 봄: 범위 밖 클릭과, 쌓인 클릭이 없을 때의 회색 아닌 칸 클릭은
+// runQueuedClicks() 전에 거절 응답이 와야 하고, 나머지는 그 전에 응답이 오면 안 됨
+class ClickPrecheckTest {
+    private static final int ROUNDS = 400;
+    private static final int MAX_QUEUED = 40;       // 한 번에 쌓는 클릭 수 (1~)
+
+    @Test
+    void precheckAgreesWithGameLoop() {
+        for ( long seed = 1; seed <= 5; seed++ ) {
+            play(seed);
+        }
+    }
+
+    private static void play(long seed) {
+        SimScheduler sched = new SimScheduler(1_000_000L);
+        Random serverRng = new Random(~seed);
+        ServerEnv env = new ServerEnv(sched.clock(), sched, false, null, null, null,
+                new BoardPool(0, serverRng::nextLong), serverRng::nextLong, () -> "token-" + seed);
+        ChatServer server = new ChatServer(0, env);
+        ChatHandler h = server.connectLocal("p#0");
+
+        InfoDTO join = new InfoDTO();
+        join.setCommand(Info.JOIN);
+        join.setNickName("p");
+        join.setSeedBoards(true);
+        h.deliver(join);
+        InfoDTO ready = new InfoDTO();
+        ready.setCommand(Info.READY);
+        ready.setReady(true);
+        h.deliver(ready);
+
+        // 서버와 같은 보드 (시드 + 첫 세대)
+        List<InfoDTO> out = new ArrayList<>();
+        h.drainOutbound(out);
+        GameEngine shadow = null;
+        for ( InfoDTO d : out ) {
+            if ( d.getCommand() == Info.START_GAME ) {
+                shadow = new GameEngine(d.getWidth(), d.getHeight(), d.getSeed());
+            } else if ( d.getCommand() == Info.BOARD_REGEN ) {
+                while ( shadow.getGeneration() < d.getGeneration() ) {
+                    shadow.regenerateBoard();
+                }
+                assertEquals((long) d.getBoardHash(), shadow.boardHash());
+            }
+        }
+        assertNotNull(shadow, "게임이 시작되지 않음");
+
+        Random rng = new Random(seed);
+        int W = shadow.getWidth(), H = shadow.getHeight();
+        int[] buf = new int[GameEngine.MAX_CHANGED];
+        Map<Integer, Boolean> expected = new HashMap<>();
+        int seq = 0;
+        int earlyOutOfBounds = 0, earlyNotGray = 0;
+        for ( int round = 0; round < ROUNDS; round++ ) {
+            int n = 1 + rng.nextInt(MAX_QUEUED);
+            int queued = 0;         // 이번 라운드에 사전 검사를 통과해서 쌓인 클릭 수
+            int x = rng.nextInt(W), y = rng.nextInt(H);
+            for ( int i = 0; i < n; i++ ) {
+                // 대부분 직전 클릭과 같은 행이나 열 (앞선 클릭 결과에 기대는 클릭), 가끔 아무 데나 (범위 밖 포함)
+                int r = rng.nextInt(8);
+                int cx = x, cy = y;
+                if ( r < 3 ) {
+                    x = cx = rng.nextInt(W);
+                } else if ( r < 6 ) {
+                    y = cy = rng.nextInt(H);
+                } else {
+                    cx = rng.nextInt(W + 2) - 1;
+                    cy = rng.nextInt(H + 2) - 1;
+                }
+                // 쌓인 클릭이 없으면 서버의 view는 섀도 엔진의 지금 보드와 같음
+                boolean outside = cx < 0 || cy < 0 || cx >= W || cy >= H;
+                boolean early = outside || (queued == 0 && shadow.getBoard()[cy][cx] != CellColor.GRAY);
+                expected.put(++seq, shadow.tryClickInto(cx, cy, buf) > 0);
+                server.enqueueClick("p", cx, cy, seq);
+
+                out.clear();
+                h.drainOutbound(out);
+                boolean replied = check(seed, out, expected) > 0;
+                assertEquals(early, replied, "시드 " + seed + ": 클릭 " + seq + " (" + cx + "," + cy + ", 쌓인 클릭 " + queued + ")"
+                        + (early ? "을 사전 검사가 거절하지 않음" : "을 게임 루프 전에 거절함"));
+                if ( !replied ) queued++;
+                else if ( outside ) earlyOutOfBounds++;
+                else earlyNotGray++;
+            }
+            server.runQueuedClicks();
+
+            out.clear();
+            h.drainOutbound(out);
+            check(seed, out, expected);
+            assertTrue(expected.isEmpty(), "시드 " + seed + ": 응답 없는 클릭 " + expected.keySet());
+        }
+        assertTrue(earlyOutOfBounds > 0, "시드 " + seed + ": 사전 검사로 거절한 범위 밖 클릭이 없음");
+        assertTrue(earlyNotGray > 0, "시드 " + seed + ": 사전 검사로 거절한 회색 아닌 칸 클릭이 없음");
+    }
+
+    // 클릭 응답을 기대값과 맞춰 보고 지움. 반환은 응답 수
+    private static int check(long seed, List<InfoDTO> out, Map<Integer, Boolean> expected) {
+        int replies = 0;
+        for ( InfoDTO d : out ) {
+            if ( d.getCommand() != Info.CLICK_OK && d.getCommand() != Info.CLICK_REJECT ) continue;
+            Boolean ok = expected.remove(d.getClientSeq());
+            assertNotNull(ok, "시드 " + seed + ": 응답이 두 번 온 클릭 " + d.getClientSeq());
+            assertEquals(ok, d.getCommand() == Info.CLICK_OK,
+                    "시드 " + seed + ": 클릭 " + d.getClientSeq() + " 판정이 다름 (" + d.getReason() + ")");
+            replies++;
+        }
+        return replies;
+    }
+}
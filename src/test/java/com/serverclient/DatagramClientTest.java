@@ -0,0 +1,165 @@
+package com.serverclient;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// UDP DIFF 누락/순서 바뀜 처리. 수신 스레드는 띄우지 않고 handle/retransmit을 직접 불러서
+// 클라이언트가 보내는 NACK은 가짜 서버 소켓에서 받아 확인
+class DatagramClientTest {
+
+    private final List<List<Coord>> applied = new ArrayList<>();
+    private int gaveUp = 0;
+
+    @Test
+    void inOrderDiffsSendNoNack() throws IOException {
+        try ( DatagramSocket server = fakeServer() ) {
+            DatagramClient client = client(server);
+            client.onSnapshot(10L);
+            client.handle(diff(11L, 10L, 1, 1));
+            client.handle(diff(12L, 11L, 2, 2));
+
+            assertEquals(2, applied.size());
+            assertNull(receiveNack(server));
+            client.close();
+        }
+    }
+
+    @Test
+    void gapSendsOneNackForThePreviousDiff() throws IOException {
+        try ( DatagramSocket server = fakeServer() ) {
+            DatagramClient client = client(server);
+            client.onSnapshot(10L);
+            client.handle(diff(11L, 10L, 1, 1));
+            client.handle(diff(13L, 12L, 3, 3));           // 12가 빠짐
+
+            assertEquals(Long.valueOf(12L), receiveNack(server));
+            client.handle(diff(14L, 13L, 4, 4));           // 13은 받았으므로 더 요청하지 않음
+            assertNull(receiveNack(server));
+
+            client.handle(diff(12L, -1L, 2, 2));           // 재전송분 (이전 seq 검사 안 함)
+            assertEquals(4, applied.size());
+            client.retransmit(System.currentTimeMillis() + 10_000L);
+            assertNull(receiveNack(server), "받은 DIFF는 다시 요청하지 않음");
+            assertEquals(0, gaveUp);
+            client.close();
+        }
+    }
+
+    @Test
+    void reorderedDiffIsAppliedOnceAndNotRequestedAgain() throws IOException {
+        try ( DatagramSocket server = fakeServer() ) {
+            DatagramClient client = client(server);
+            client.onSnapshot(0L);
+            client.handle(diff(2L, 1L, 2, 2));             // 1보다 먼저 도착
+            assertEquals(Long.valueOf(1L), receiveNack(server));
+            client.handle(diff(1L, 0L, 1, 1));             // 원래 1이 늦게 도착
+            client.handle(diff(1L, 0L, 1, 1));             // 중복
+
+            assertEquals(2, applied.size());
+            client.retransmit(System.currentTimeMillis() + 10_000L);
+            assertNull(receiveNack(server));
+            assertEquals(0, gaveUp);
+            client.close();
+        }
+    }
+
+    @Test
+    void diffsOlderThanSnapshotAreDropped() throws IOException {
+        try ( DatagramSocket server = fakeServer() ) {
+            DatagramClient client = client(server);
+            client.handle(diff(5L, 4L, 5, 5));
+            assertEquals(Long.valueOf(4L), receiveNack(server));
+
+            List<List<Coord>> newer = client.onSnapshot(6L);   // 스냅샷이 앞질러서 4 요청은 취소
+            assertTrue(newer.isEmpty());
+            client.handle(diff(6L, 5L, 6, 6));
+            assertEquals(1, applied.size(), "스냅샷보다 오래된 DIFF는 버림");
+
+            client.retransmit(System.currentTimeMillis() + 10_000L);
+            assertNull(receiveNack(server));
+            assertEquals(0, gaveUp);
+            client.close();
+        }
+    }
+
+    @Test
+    void newerDiffsAreReturnedForReapplyAfterSnapshot() throws IOException {
+        try ( DatagramSocket server = fakeServer() ) {
+            DatagramClient client = client(server);
+            client.onSnapshot(0L);
+            client.handle(diff(1L, 0L, 1, 1));
+            client.handle(diff(2L, 1L, 2, 2));
+            client.handle(diff(3L, 2L, 3, 3));
+
+            List<List<Coord>> newer = client.onSnapshot(1L);
+            assertEquals(2, newer.size());
+            assertEquals(2, newer.get(0).get(0).x);
+            assertEquals(3, newer.get(1).get(0).x);
+            client.close();
+        }
+    }
+
+    @Test
+    void missingDiffIsRetriedThenGivenUp() throws IOException {
+        try ( DatagramSocket server = fakeServer() ) {
+            DatagramClient client = client(server);
+            client.onSnapshot(0L);
+            client.handle(diff(2L, 1L, 2, 2));
+            assertEquals(Long.valueOf(1L), receiveNack(server));
+
+            long now = System.currentTimeMillis();
+            int retries = 0;
+            for ( int i = 1; i <= 10 && gaveUp == 0; i++ ) {
+                client.retransmit(now + i * 1_000L);
+                if ( receiveNack(server) != null ) retries++;
+            }
+            assertEquals(1, gaveUp, "재시도를 다 쓰면 TCP 재동기화");
+            assertTrue(retries >= 1);
+            client.retransmit(now + 60_000L);
+            assertEquals(1, gaveUp, "포기는 한 번만");
+            client.close();
+        }
+    }
+
+    private DatagramClient client(DatagramSocket server) throws IOException {
+        return new DatagramClient("127.0.0.1", server.getLocalPort(), reply -> { }, applied::add, () -> gaveUp++);
+    }
+
+    private static DatagramSocket fakeServer() throws IOException {
+        DatagramSocket s = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        s.setSoTimeout(200);
+        return s;
+    }
+
+    private static ByteBuffer diff(long seq, long prev, int x, int y) {
+        int[] packed = { Coord.pack(x, y) };
+        return DatagramCodec.encodeDiff(ByteBuffer.allocate(DatagramCodec.MAX_PACKET), seq, prev, packed, 1);
+    }
+
+    // 가짜 서버가 받은 NACK의 seq (시간 안에 없으면 null). NACK 말고 다른 패킷은 건너뜀
+    private static Long receiveNack(DatagramSocket server) throws IOException {
+        byte[] buf = new byte[DatagramCodec.MAX_PACKET];
+        while ( true ) {
+            DatagramPacket p = new DatagramPacket(buf, buf.length);
+            try {
+                server.receive(p);
+            } catch ( SocketTimeoutException e ) {
+                return null;
+            }
+            ByteBuffer b = ByteBuffer.wrap(p.getData(), 0, p.getLength());
+            if ( b.get() == DatagramCodec.NACK ) {
+                return b.getLong();
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.serverclient;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// UDP 패킷 형식 왕복 (DatagramCodec으로 쓰고, 받는 쪽과 같은 방법으로 읽기)
+class DatagramCodecTest {
+
+    @Test
+    void clickOkRoundTrip() {
+        InfoDTO ok = new InfoDTO();
+        ok.setCommand(Info.CLICK_OK);
+        ok.setClientSeq(42);
+        ok.setServerSeq(1_000_000_007L);
+        ok.setScore(17);
+        ok.setPackedDiff(new int[] { Coord.pack(0, 0), Coord.pack(3, 24), Coord.pack(39, 29) });
+
+        ByteBuffer b = DatagramCodec.event(ok, -1L);
+        byte type = b.get();
+        assertEquals(DatagramCodec.CLICK_OK, type);
+        InfoDTO back = DatagramCodec.decodeReply(type, b);
+
+        assertEquals(Info.CLICK_OK, back.getCommand());
+        assertEquals(42, (int) back.getClientSeq());
+        assertEquals(1_000_000_007L, (long) back.getServerSeq());
+        assertEquals(17, (int) back.getScore());
+        assertCoords(back.getDiff(), 0, 0, 3, 24, 39, 29);
+        assertFalse(b.hasRemaining());
+    }
+
+    @Test
+    void clickOkFromCoordList() {
+        InfoDTO ok = new InfoDTO();
+        ok.setCommand(Info.CLICK_OK);
+        ok.setClientSeq(1);
+        ok.setServerSeq(2L);
+        ok.setScore(3);
+        ok.setDiff(List.of(new Coord(5, 6), new Coord(7, 8)));
+
+        ByteBuffer b = DatagramCodec.event(ok, -1L);
+        InfoDTO back = DatagramCodec.decodeReply(b.get(), b);
+        assertCoords(back.getDiff(), 5, 6, 7, 8);
+    }
+
+    @Test
+    void clickRejectRoundTrip() {
+        InfoDTO rej = new InfoDTO();
+        rej.setCommand(Info.CLICK_REJECT);
+        rej.setClientSeq(9);
+        rej.setServerSeq(77L);
+        rej.setReason("회색 칸이 아님");
+
+        ByteBuffer b = DatagramCodec.event(rej, -1L);
+        byte type = b.get();
+        assertEquals(DatagramCodec.CLICK_REJ, type);
+        InfoDTO back = DatagramCodec.decodeReply(type, b);
+        assertEquals(Info.CLICK_REJECT, back.getCommand());
+        assertEquals(9, (int) back.getClientSeq());
+        assertEquals(77L, (long) back.getServerSeq());
+        assertEquals("회색 칸이 아님", back.getReason());
+    }
+
+    @Test
+    void rejectWithoutServerSeqCarriesMinusOne() {
+        InfoDTO rej = new InfoDTO();
+        rej.setCommand(Info.CLICK_REJECT);
+        rej.setClientSeq(3);
+        rej.setReason("큐 포화");
+
+        ByteBuffer b = DatagramCodec.event(rej, -1L);
+        InfoDTO back = DatagramCodec.decodeReply(b.get(), b);
+        assertEquals(-1L, (long) back.getServerSeq());
+    }
+
+    @Test
+    void diffRoundTrip() {
+        int[] packed = { Coord.pack(1, 2), Coord.pack(3, 4), Coord.pack(5, 6), Coord.pack(7, 8) };
+        ByteBuffer b = DatagramCodec.encodeDiff(ByteBuffer.allocate(DatagramCodec.MAX_PACKET), 12L, 11L, packed, packed.length);
+
+        assertEquals(DatagramCodec.DIFF, b.get());
+        assertEquals(12L, b.getLong());
+        assertEquals(11L, b.getLong());
+        assertCoords(DatagramCodec.getCoords(b), 1, 2, 3, 4, 5, 6, 7, 8);
+        assertFalse(b.hasRemaining());
+    }
+
+    @Test
+    void diffEventMatchesEncodeDiff() {
+        int[] packed = { Coord.pack(2, 9), Coord.pack(2, 0) };
+        InfoDTO diff = new InfoDTO();
+        diff.setCommand(Info.BOARD_DIFF);
+        diff.setServerSeq(30L);
+        diff.setPackedDiff(packed);
+
+        ByteBuffer fromEvent = DatagramCodec.event(diff, 29L);
+        ByteBuffer direct = DatagramCodec.encodeDiff(ByteBuffer.allocate(DatagramCodec.MAX_PACKET), 30L, 29L, packed, packed.length);
+        assertEquals(direct, fromEvent);
+    }
+
+    @Test
+    void clickRequestLayout() {
+        ByteBuffer b = DatagramCodec.clickReq(123, 24, 19, 1_700_000_000_000L);
+
+        // DatagramServer가 읽는 순서 그대로
+        assertEquals(DatagramCodec.CLICK_REQ, b.get());
+        assertEquals(123, b.getInt());
+        assertEquals(24, b.getShort());
+        assertEquals(19, b.getShort());
+        assertEquals(1_700_000_000_000L, b.getLong());
+        assertFalse(b.hasRemaining());
+    }
+
+    @Test
+    void helloAndNackRoundTrip() {
+        ByteBuffer hello = DatagramCodec.hello("7f1c0e52-토큰");
+        assertEquals(DatagramCodec.HELLO, hello.get());
+        assertEquals("7f1c0e52-토큰", DatagramCodec.getString(hello));
+
+        ByteBuffer nack = DatagramCodec.nack(5L);
+        assertEquals(DatagramCodec.NACK, nack.get());
+        assertEquals(5L, nack.getLong());
+    }
+
+    @Test
+    void onlyClickRepliesAndDiffsGoOverUdp() {
+        assertTrue(DatagramCodec.carries(Info.CLICK_OK));
+        assertTrue(DatagramCodec.carries(Info.CLICK_REJECT));
+        assertTrue(DatagramCodec.carries(Info.BOARD_DIFF));
+        assertFalse(DatagramCodec.carries(Info.BOARD_SNAPSHOT));
+        assertFalse(DatagramCodec.carries(Info.SEND));
+    }
+
+    private static void assertCoords(List<Coord> coords, int... xy) {
+        assertEquals(xy.length / 2, coords.size());
+        for ( int i = 0; i < coords.size(); i++ ) {
+            assertEquals(xy[2 * i], coords.get(i).x);
+            assertEquals(xy[2 * i + 1], coords.get(i).y);
+        }
+    }
+}
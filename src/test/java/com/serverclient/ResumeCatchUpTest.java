@@ -0,0 +1,144 @@
+package com.serverclient;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 예전 판의 seq를 들고 다음 판 도중에 RESUME한 참가자의 따라잡기 (serverSeq는 판마다 0부터)
+// 링 버퍼의 이번 판 이벤트가 아니라 START_GAME + 스냅샷 + 모두의 점수를 받아야 함
+class ResumeCatchUpTest {
+    private final SimScheduler sched = new SimScheduler(1_000_000L);
+    private final ChatServer server;
+
+    ResumeCatchUpTest() {
+        Random rng = new Random(3);
+        server = new ChatServer(0, new ServerEnv(sched.clock(), sched, false, null, null, null,
+                new BoardPool(0, rng::nextLong), rng::nextLong, () -> "token-" + rng.nextInt(1_000_000)));
+    }
+
+    @Test
+    void resumeFromPreviousMatchGetsSnapshotAndAllScores() {
+        ChatHandler p = join("p");
+        ChatHandler q = join("q");
+        String token = null;
+        for ( InfoDTO d : drain(p) ) {
+            if ( d.getCommand() == Info.SESSION ) token = d.getToken();
+        }
+        drain(q);
+
+        // 1판: p가 본 마지막 seq와 판 번호
+        ready(p);
+        ready(q);
+        clickUntilOk(q, 3);
+        long lastSeq = 0L;
+        Integer lastMatch = null;
+        for ( InfoDTO d : drain(p) ) {
+            if ( d.getCommand() == Info.START_GAME ) lastMatch = d.getMatchNo();
+            if ( d.getServerSeq() != null ) lastSeq = Math.max(lastSeq, d.getServerSeq());
+        }
+        assertNotNull(lastMatch);
+        assertTrue(lastSeq > 0);
+
+        // 1판 끝. 2판이 시작되는 순간 p의 연결이 끊겨 START_GAME부터 못 받음
+        passTime(61_000L, p, q);
+        ready(p);
+        ready(q);
+        drain(p);
+        clickUntilOk(q, lastSeq + 3);        // 2판 seq가 p가 본 seq를 넘도록
+
+        ChatHandler back = server.connectLocal("p#1");
+        InfoDTO resume = new InfoDTO();
+        resume.setCommand(Info.RESUME);
+        resume.setNickName("p");
+        resume.setToken(token);
+        resume.setServerSeq(lastSeq);
+        resume.setMatchNo(lastMatch);
+        back.deliver(resume);
+
+        InfoDTO catchUp = null;
+        for ( InfoDTO d : drain(back) ) {
+            if ( d.getCommand() == Info.CATCH_UP ) catchUp = d;
+        }
+        assertNotNull(catchUp);
+        assertNotEquals(lastMatch, catchUp.getMatchNo());
+        List<InfoDTO> events = catchUp.getEvents();
+        assertEquals(Info.START_GAME, events.get(0).getCommand(), "이 판 시작을 못 본 참가자는 START_GAME부터");
+        assertEquals(catchUp.getMatchNo(), events.get(0).getMatchNo());
+        Set<String> scored = new HashSet<>();
+        boolean board = false;
+        for ( InfoDTO e : events ) {
+            assertNotEquals(Info.BOARD_DIFF, e.getCommand(), "다른 판의 seq로 링 버퍼 이벤트를 보냄");
+            board |= e.getCommand() == Info.BOARD_SNAPSHOT || e.getCommand() == Info.BOARD_REGEN;
+            if ( e.getCommand() == Info.SCORE_UPDATE ) scored.add(e.getPlayer());
+        }
+        assertTrue(board, "보드 스냅샷이 없음");
+        assertEquals(Set.of("p", "q"), scored);
+    }
+
+    private ChatHandler join(String name) {
+        ChatHandler h = server.connectLocal(name + "#0");
+        InfoDTO join = new InfoDTO();
+        join.setCommand(Info.JOIN);
+        join.setNickName(name);
+        h.deliver(join);
+        return h;
+    }
+
+    private static void ready(ChatHandler h) {
+        InfoDTO ready = new InfoDTO();
+        ready.setCommand(Info.READY);
+        ready.setReady(true);
+        h.deliver(ready);
+    }
+
+    private static List<InfoDTO> drain(ChatHandler h) {
+        List<InfoDTO> out = new ArrayList<>();
+        h.drainOutbound(out);
+        return out;
+    }
+
+    // 서버 seq가 seq 이상이 될 때까지 h가 회색 칸을 누름
+    private void clickUntilOk(ChatHandler h, long seq) {
+        CellColor[][] board = null;
+        long last = 0L;
+        int clientSeq = 0;
+        for ( int round = 0; round < 100 && last < seq; round++ ) {
+            for ( InfoDTO d : drain(h) ) {
+                if ( d.getCommand() == Info.BOARD_SNAPSHOT ) board = d.getBoard();
+                if ( d.getCommand() == Info.BOARD_REGEN && d.getSnapshot() != null ) board = d.getSnapshot().getBoard();
+                if ( d.getCommand() == Info.BOARD_DIFF && board != null ) {
+                    for ( Coord c : d.getDiff() ) board[c.y][c.x] = CellColor.GRAY;
+                }
+                if ( d.getServerSeq() != null && d.getCommand() != Info.CLICK_OK && d.getCommand() != Info.CLICK_REJECT ) {
+                    last = Math.max(last, d.getServerSeq());
+                }
+            }
+            assertNotNull(board, "보드를 못 받음");
+            for ( int y = 0; y < board.length; y++ ) {
+                for ( int x = 0; x < board[0].length; x++ ) {
+                    if ( board[y][x] == CellColor.GRAY ) server.enqueueClick(h.getNickname(), x, y, ++clientSeq);
+                }
+            }
+            server.runQueuedClicks();
+        }
+        assertTrue(last >= seq, "seq가 " + seq + "까지 안 감");
+    }
+
+    // 가상 시각을 1초씩 진행. 하트비트 정리에 걸리지 않게 매번 PONG을 보냄
+    private void passTime(long millis, ChatHandler... alive) {
+        for ( long t = 0; t < millis; t += 1000L ) {
+            for ( ChatHandler h : alive ) {
+                InfoDTO pong = new InfoDTO();
+                pong.setCommand(Info.PONG);
+                h.deliver(pong);
+            }
+            sched.advance(1000L);
+        }
+    }
+}
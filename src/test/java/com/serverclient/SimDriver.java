@@ -0,0 +1,367 @@
+package com.serverclient;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+// 결정적 시뮬레이션: 진짜 ChatServer를 가상 시계(SimScheduler)와 메모리 연결로 한 스레드에서 돌림
+// 소켓/스레드/파일/벽시계 없이 고정 시드로 클라이언트 N명이 입장, 준비, 클릭, 채팅, 연결 끊김 후 재개를 하면서 판을 여러 번 진행
+// 한 틱(TICK_MILLIS)마다: 클라이언트 행동 -> 쌓인 클릭 처리(runQueuedClicks) -> 서버가 보낸 것 전달 -> 가상 시각 진행
+// 확인하는 것
+// - 방송 이벤트 serverSeq가 건너뛰거나 거꾸로 가지 않음
+// - 보낸 클릭마다 CLICK_OK/REJECT가 정확히 한 번
+// - BOARD_REGEN 요약값이 시드로 따라 만든 로컬 보드와 같고, 판이 끝날 때 모든 클라이언트 보드가 같음
+// - 같은 시드로 두 번 돌리면 받은 메시지 요약값(checksum)이 같음
+// SimDriverTest가 시드별로 두 번씩 돌려서 확인
+class SimDriver {
+    static final long TICK_MILLIS = Long.getLong("serverclient.simTick", 10L);
+    static final double CLICK_RATE = 0.3;       // 틱마다 클릭할 확률 (게임 중)
+    static final double MISS_RATE = 0.2;        // 그중 아무 칸이나 누를 확률 (거절 유도)
+    static final double CHAT_RATE = 0.002;
+    static final double DROP_RATE = 0.0005;     // 게임 중 연결이 끊길 확률 (다음 틱에 RESUME)
+
+    // 한 번 돌린 결과
+    static class Result {
+        long checksum = 0xcbf29ce484222325L;    // FNV-1a
+        long messages, clicks, oks, rejects, regens, chats, drops, virtualMillis, wallNanos;
+        int matches;
+        final List<String> errors = new ArrayList<>();
+
+        void mix(long v) {
+            for ( int i = 0; i < 8; i++ ) {
+                checksum ^= (v >>> (i * 8)) & 0xff;
+                checksum *= 0x100000001b3L;
+            }
+        }
+
+        void error(String e) {
+            if ( errors.size() < 20 ) errors.add(e);
+        }
+    }
+
+    // 메모리 연결 클라이언트 하나 (시드 모드 보드)
+    static class SimClient {
+        final int index;
+        final String name;
+        ChatHandler handler;
+        int connections = 0;
+        String token;
+        long lastSeq = 0L;
+        Integer match;
+        boolean ready = false, inGame = false;
+        int W, H;
+        long seed;
+        GameEngine local;
+        int clientSeq = 0;
+        final Set<Integer> waiting = new HashSet<>();      // 응답을 기다리는 clientSeq
+
+        SimClient(int index) {
+            this.index = index;
+            this.name = "sim" + index;
+        }
+    }
+
+    private final int matches;
+    private final Random rng;
+    private final SimScheduler sched = new SimScheduler(1_000_000L);
+    private final ChatServer server;
+    private final List<SimClient> clients = new ArrayList<>();
+    private final Result result = new Result();
+    private final List<InfoDTO> inbox = new ArrayList<>();
+
+    SimDriver(long seed, int matches, int clientCount) {
+        this.matches = matches;
+        this.rng = new Random(seed);
+        Random serverRng = new Random(~seed);
+        long[] tokenNo = { 0L };
+        ServerEnv env = new ServerEnv(sched.clock(), sched, false, null, null, null,
+                new BoardPool(0, serverRng::nextLong), serverRng::nextLong,
+                () -> "sim-token-" + (++tokenNo[0]));
+        server = new ChatServer(0, env);
+        for ( int i = 0; i < clientCount; i++ ) {
+            clients.add(new SimClient(i));
+        }
+    }
+
+    Result run() {
+        long started = System.nanoTime();
+        long startMillis = sched.millis();
+        for ( SimClient c : clients ) {
+            c.handler = server.connectLocal(c.name + "#" + (c.connections++));
+            InfoDTO join = new InfoDTO();
+            join.setCommand(Info.JOIN);
+            join.setNickName(c.name);
+            join.setSeedBoards(true);
+            deliver(c, join);
+        }
+        long limit = startMillis + (matches + 1) * 120_000L;      // 판이 안 끝나면 멈춤
+        while ( result.matches < matches ) {
+            if ( sched.millis() > limit ) {
+                result.error("시간 안에 판이 끝나지 않음 (" + result.matches + "/" + matches + ")");
+                break;
+            }
+            tick();
+        }
+        server.runQueuedClicks();      // 남은 클릭 응답까지 받고 확인
+        route();
+        for ( SimClient c : clients ) {
+            if ( !c.waiting.isEmpty() ) {
+                result.error(c.name + " 응답 없는 클릭 " + c.waiting.size() + "개");
+            }
+        }
+        result.virtualMillis = sched.millis() - startMillis;
+        result.wallNanos = System.nanoTime() - started;
+        return result;
+    }
+
+    private void tick() {
+        // 끊긴 클라이언트 재개가 먼저 (다른 클라이언트 READY로 새 판이 시작되기 전에)
+        for ( SimClient c : clients ) {
+            if ( c.handler == null ) resume(c);
+        }
+        for ( SimClient c : clients ) {
+            act(c);
+        }
+        server.runQueuedClicks();
+        route();
+        sched.advance(TICK_MILLIS);
+    }
+
+    // 클라이언트 하나의 이번 틱 행동
+    private void act(SimClient c) {
+        if ( c.handler == null ) return;
+        if ( !c.inGame && !c.ready ) {
+            InfoDTO r = new InfoDTO();
+            r.setCommand(Info.READY);
+            r.setReady(true);
+            c.ready = true;
+            deliver(c, r);
+            return;
+        }
+        if ( c.inGame && rng.nextDouble() < DROP_RATE ) {      // 소켓이 끊긴 것처럼
+            result.drops++;
+            server.evict(c.handler);
+            c.handler = null;
+            c.waiting.clear();          // 끊긴 연결로 올 응답은 못 받음
+            return;
+        }
+        if ( c.inGame && c.local != null && rng.nextDouble() < CLICK_RATE ) {
+            int x, y;
+            List<Move> moves = c.local.validMoves();
+            if ( moves.isEmpty() || rng.nextDouble() < MISS_RATE ) {
+                x = rng.nextInt(c.W);
+                y = rng.nextInt(c.H);
+            } else {
+                Move m = moves.get(rng.nextInt(moves.size()));
+                x = m.x;
+                y = m.y;
+            }
+            InfoDTO click = new InfoDTO();
+            click.setCommand(Info.CLICK_REQ);
+            click.setX(x);
+            click.setY(y);
+            click.setClientSeq(++c.clientSeq);
+            click.setClickAt(sched.millis());
+            c.waiting.add(c.clientSeq);
+            result.clicks++;
+            deliver(c, click);
+        }
+        if ( rng.nextDouble() < CHAT_RATE ) {
+            InfoDTO chat = new InfoDTO();
+            chat.setCommand(Info.SEND);
+            chat.setNickName(c.name);
+            chat.setMessage("틱 " + sched.millis());
+            result.chats++;
+            deliver(c, chat);
+        }
+    }
+
+    // 새 메모리 연결로 토큰과 마지막 seq를 들고 재개
+    private void resume(SimClient c) {
+        c.handler = server.connectLocal(c.name + "#" + (c.connections++));
+        InfoDTO r = new InfoDTO();
+        r.setCommand(Info.RESUME);
+        r.setNickName(c.name);
+        r.setToken(c.token);
+        r.setServerSeq(c.lastSeq);
+        r.setMatchNo(c.match);
+        r.setSeedBoards(true);
+        deliver(c, r);
+    }
+
+    private void deliver(SimClient c, InfoDTO dto) {
+        if ( c.handler != null && !c.handler.deliver(dto) ) {
+            c.handler = null;
+        }
+    }
+
+    // 서버가 각 연결에 쌓아 둔 메시지를 전달. 응답(PONG 등)이 또 메시지를 만들 수 있으니 빌 때까지
+    private void route() {
+        boolean more = true;
+        while ( more ) {
+            more = false;
+            for ( SimClient c : clients ) {
+                if ( c.handler == null ) continue;
+                inbox.clear();
+                c.handler.drainOutbound(inbox);
+                for ( InfoDTO dto : inbox ) {
+                    more = true;
+                    result.messages++;
+                    receive(c, dto);
+                }
+            }
+        }
+    }
+
+    private void startGame(SimClient c, InfoDTO dto) {
+        c.W = dto.getWidth();
+        c.H = dto.getHeight();
+        c.seed = dto.getSeed();
+        c.local = new GameEngine(c.W, c.H, c.seed);
+        c.lastSeq = 0L;
+        c.match = dto.getMatchNo();
+        c.inGame = true;
+        c.ready = false;
+    }
+
+    // 클라이언트가 받은 메시지 처리 (ChatClient/GameController의 시드 모드와 같은 규칙)
+    private void receive(SimClient c, InfoDTO dto) {
+        mix(c, dto);
+        switch ( dto.getCommand() ) {
+            case PING -> {
+                InfoDTO pong = new InfoDTO();
+                pong.setCommand(Info.PONG);
+                pong.setPingAt(dto.getPingAt());
+                pong.setClientRecvAt(sched.millis());
+                pong.setClientSendAt(sched.millis());
+                deliver(c, pong);
+            }
+            case SESSION -> c.token = dto.getToken();
+            case START_GAME -> startGame(c, dto);
+            case CATCH_UP -> {
+                if ( dto.getEvents() == null || dto.getEvents().isEmpty() ) {    // 그새 판이 끝났음
+                    c.inGame = false;
+                    c.local = null;
+                    return;
+                }
+                if ( dto.getMatchNo() != null && !dto.getMatchNo().equals(c.match) ) {     // 다른 판으로 따라잡음
+                    c.match = dto.getMatchNo();
+                    c.lastSeq = 0L;
+                }
+                for ( InfoDTO e : dto.getEvents() ) {
+                    if ( e.getCommand() == Info.START_GAME ) {
+                        startGame(c, e);
+                        continue;
+                    }
+                    Long seq = e.getServerSeq();
+                    if ( seq != null ) {
+                        if ( seq < c.lastSeq ) continue;
+                        c.lastSeq = seq;
+                    }
+                    apply(c, e);
+                }
+            }
+            case BOARD_DIFF, SCORE_UPDATE, BOARD_REGEN, BOARD_SNAPSHOT, GAME_OVER -> {
+                Long seq = dto.getServerSeq();
+                if ( seq != null ) {
+                    if ( seq < c.lastSeq || seq > c.lastSeq + 1 ) {
+                        result.error(c.name + " " + dto.getCommand() + " seq " + seq + " (직전 " + c.lastSeq + ")");
+                    }
+                    c.lastSeq = Math.max(c.lastSeq, seq);
+                }
+                apply(c, dto);
+            }
+            case CLICK_OK, CLICK_REJECT -> {
+                if ( dto.getCommand() == Info.CLICK_OK ) result.oks++; else result.rejects++;
+                if ( !c.waiting.remove(dto.getClientSeq()) ) {
+                    result.error(c.name + " 보내지 않았거나 이미 받은 클릭 응답 " + dto.getClientSeq());
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    // 보드/점수 이벤트 적용
+    private void apply(SimClient c, InfoDTO e) {
+        if ( e.getCommand() == Info.BOARD_DIFF ) {
+            if ( c.local == null || e.getDiff() == null ) return;
+            for ( Coord p : e.getDiff() ) {
+                c.local.markGray(p.x, p.y);
+            }
+        } else if ( e.getCommand() == Info.BOARD_REGEN ) {
+            result.regens++;
+            int generation = e.getGeneration();
+            if ( c.local == null ) return;
+            if ( generation < c.local.getGeneration() ) {
+                c.local = new GameEngine(c.W, c.H, c.seed);
+            }
+            while ( c.local.getGeneration() < generation ) {
+                c.local.regenerateBoard();
+            }
+            if ( c.local.boardHash() != e.getBoardHash() ) {
+                result.error(c.name + " 세대 " + generation + " 보드 요약값 불일치");
+            }
+        } else if ( e.getCommand() == Info.BOARD_SNAPSHOT ) {
+            if ( c.local == null ) {
+                c.local = new GameEngine(c.W, c.H, c.seed);
+            }
+            Integer generation = e.getGeneration();
+            if ( generation != null && generation < c.local.getGeneration() ) {
+                c.local = new GameEngine(c.W, c.H, c.seed);
+            }
+            c.local.loadBoard(e.getBoard(), (generation != null) ? generation : c.local.getGeneration());
+        } else if ( e.getCommand() == Info.GAME_OVER ) {
+            gameOver(c);
+        }
+    }
+
+    // 판 끝. 첫 클라이언트가 받을 때 판 수를 세고, 각자 보드를 첫 클라이언트 것과 비교
+    // (GAME_OVER를 받기 전에 누른 클릭은 판이 끝난 뒤 거절로 돌아오므로 응답은 여기서 따지지 않음)
+    private void gameOver(SimClient c) {
+        SimClient first = null;
+        for ( SimClient o : clients ) {
+            if ( o.local != null ) {
+                first = o;
+                break;
+            }
+        }
+        if ( first != null && c.local != null && c.local.boardHash() != first.local.boardHash() ) {
+            result.error(c.name + " 판 끝 보드가 " + first.name + "와 다름");
+        }
+        if ( c == clients.get(0) ) {
+            result.matches++;
+        }
+        c.inGame = false;
+        c.ready = false;
+    }
+
+    // 벽시계/nanoTime에 기대는 값(pingAt)은 빼고 섞음
+    private void mix(SimClient c, InfoDTO dto) {
+        result.mix(c.index);
+        result.mix(dto.getCommand().ordinal());
+        if ( dto.getServerSeq() != null ) result.mix(dto.getServerSeq());
+        if ( dto.getClientSeq() != null ) result.mix(dto.getClientSeq());
+        if ( dto.getScore() != null ) result.mix(dto.getScore());
+        if ( dto.getServerTime() != null ) result.mix(dto.getServerTime());
+        if ( dto.getCommand() == Info.BOARD_REGEN ) result.mix(dto.getBoardHash());
+        if ( dto.getPlayer() != null ) result.mix(dto.getPlayer().hashCode());
+        if ( dto.getMessage() != null ) result.mix(dto.getMessage().hashCode());
+        if ( dto.getDiff() != null ) {
+            for ( Coord p : dto.getDiff() ) {
+                result.mix(p.y * 65536L + p.x);
+            }
+        }
+    }
+
+    static void print(String label, Result r) {
+        System.out.printf("%s: 판 %d, 가상 %.1f초 / 실제 %.1f ms (%.0f배), 메시지 %d, 클릭 %d (OK %d, 거절 %d), 재생성 %d, 채팅 %d, 끊김 %d, checksum %016x%n",
+                label, r.matches, r.virtualMillis / 1e3, r.wallNanos / 1e6, r.virtualMillis * 1e6 / Math.max(1L, r.wallNanos),
+                r.messages, r.clicks, r.oks, r.rejects, r.regens, r.chats, r.drops, r.checksum);
+        for ( String e : r.errors ) {
+            System.out.println("  어긋남: " + e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.serverclient;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 결정적 시뮬레이션 (SimDriver). 클라이언트 4명이 판 3번을 하면서 어긋난 게 없고,
+// 같은 시드로 두 번 돌린 받은 메시지 요약값(checksum)이 같아야 함
+class SimDriverTest {
+    private static final int MATCHES = 3;
+    private static final int CLIENTS = 4;
+
+    @Test
+    void seed1() {
+        playTwice(1L);
+    }
+
+    @Test
+    void seed7() {
+        playTwice(7L);
+    }
+
+    private static void playTwice(long seed) {
+        SimDriver.Result a = new SimDriver(seed, MATCHES, CLIENTS).run();
+        SimDriver.print("시드 " + seed + " 1회", a);
+        SimDriver.Result b = new SimDriver(seed, MATCHES, CLIENTS).run();
+        SimDriver.print("시드 " + seed + " 2회", b);
+
+        assertEquals(List.of(), a.errors);
+        assertEquals(List.of(), b.errors);
+        assertEquals(MATCHES, a.matches);
+        assertEquals(a.checksum, b.checksum, "같은 시드인데 결과가 다름 (결정적이지 않음)");
+    }
+}
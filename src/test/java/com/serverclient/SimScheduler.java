@@ -0,0 +1,237 @@
+package com.serverclient;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// 시뮬레이션용 예약 실행기 + 가상 시계 (SimDriver)
+// 스레드 없이 예약된 작업을 (시각, 예약 순서) 순으로 쌓아 두고, advance()를 부른 스레드에서 시각을 옮기며 실행
+// 시계(clock())는 이 실행기의 가상 시각을 돌려줌. 벽시계와 상관없이 advance()로만 흐름
+// 같은 순서로 예약하고 같은 만큼 advance하면 언제 돌려도 같은 순서로 실행됨
+public class SimScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+    private long now;
+    private long nextSeq = 0L;
+    private boolean shutdown = false;
+    private long ran = 0L;
+    private final PriorityQueue<Task> tasks = new PriorityQueue<>();
+    private final Clock clock = new VirtualClock();
+
+    public SimScheduler(long startMillis) {
+        this.now = startMillis;
+    }
+
+    public Clock clock() {
+        return clock;
+    }
+
+    public long millis() {
+        return now;
+    }
+
+    // 실행한 작업 수
+    public long getRan() {
+        return ran;
+    }
+
+    // 시각을 millis만큼 옮기면서 그 사이에 예약된 작업을 순서대로 실행. 작업이 새로 예약한 것도 시각 안이면 같이 실행
+    public void advance(long millis) {
+        long until = now + millis;
+        Task t;
+        while ( (t = tasks.peek()) != null && t.time <= until ) {
+            tasks.poll();
+            if ( t.cancelled ) continue;
+            now = Math.max(now, t.time);
+            t.run();
+        }
+        now = until;
+    }
+
+    // 지금 시각까지 예약된 것만 실행 (execute/submit으로 넘긴 작업 등)
+    public void runDue() {
+        advance(0L);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return add(command, unit.toMillis(delay), 0L);
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        Task t = new Task(() -> {
+            try {
+                callable.call();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }, now + Math.max(0L, unit.toMillis(delay)), 0L);
+        enqueue(t);
+        @SuppressWarnings("unchecked")
+        ScheduledFuture<V> f = (ScheduledFuture<V>) t;
+        return f;
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        return add(command, unit.toMillis(initialDelay), Math.max(1L, unit.toMillis(period)));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        return add(command, unit.toMillis(initialDelay), -Math.max(1L, unit.toMillis(delay)));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        add(command, 0L, 0L);
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Runnable> left = new ArrayList<>(tasks);
+        tasks.clear();
+        return left;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && tasks.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return isTerminated();
+    }
+
+    private Task add(Runnable command, long delay, long period) {
+        Task t = new Task(command, now + Math.max(0L, delay), period);
+        enqueue(t);
+        return t;
+    }
+
+    private void enqueue(Task t) {
+        if ( shutdown ) return;
+        t.seq = nextSeq++;
+        tasks.add(t);
+    }
+
+    // 예약된 작업 하나. period > 0이면 고정 주기, < 0이면 끝난 뒤 고정 간격, 0이면 한 번
+    private final class Task implements ScheduledFuture<Object>, Runnable {
+        final Runnable command;
+        final long period;
+        long time;
+        long seq;
+        boolean cancelled = false, done = false;
+
+        Task(Runnable command, long time, long period) {
+            this.command = command;
+            this.time = time;
+            this.period = period;
+        }
+
+        @Override
+        public void run() {
+            ran++;
+            try {
+                command.run();
+            } catch (RuntimeException e) {
+                // 실제 예약 실행기처럼 예외가 나면 그 뒤 주기는 멈춤
+                ServerLog.log(ServerLog.Level.ERROR, null, 0, "예약 작업 실패", null, e);
+                done = true;
+                return;
+            }
+            if ( period == 0L || cancelled ) {
+                done = true;
+                return;
+            }
+            time = (period > 0L) ? time + period : now - period;
+            enqueue(this);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(time - now, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            Task t = (Task) o;
+            int c = Long.compare(time, t.time);
+            return (c != 0) ? c : Long.compare(seq, t.seq);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if ( done ) return false;
+            cancelled = done = true;
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done;
+        }
+
+        // 한 스레드에서 시각을 직접 옮기므로 기다릴 수 없음. 끝난 작업만 (값은 없음)
+        @Override
+        public Object get() {
+            if ( !done ) throw new IllegalStateException("가상 시각으로 도는 작업은 기다릴 수 없음 (advance로 진행)");
+            return null;
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) {
+            return get();
+        }
+    }
+
+    // 실행기의 가상 시각을 읽는 시계 (UTC)
+    private final class VirtualClock extends Clock {
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            if ( zone.equals(ZoneOffset.UTC) ) return this;
+            throw new UnsupportedOperationException("가상 시계는 UTC만");
+        }
+
+        @Override
+        public long millis() {
+            return now;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(now);
+        }
+    }
+}